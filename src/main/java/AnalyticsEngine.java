@@ -0,0 +1,341 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+/**
+ * The AnalyticsEngine class computes the month's occupancy and revenue report
+ * of every hotel in a portfolio, and of the portfolio as a whole. The hotels
+ * are split into ranges, and each hotel's rooms into ranges, that are added
+ * up in parallel on a fork-join pool into per-night arrays of primitive
+ * counters, which are then merged pairwise. Each hotel is read from one
+ * snapshot, and its report is handed out as soon as it is complete, while the
+ * other hotels are still being added up. Archived stays are read from the
+ * hotel's cold segments and counted with the rooms they were in.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class AnalyticsEngine {
+    /** Name of the report that covers every hotel. */
+    public static final String PORTFOLIO = "All hotels";
+
+    private static final int ROOMS_PER_TASK = 256; // Rooms added up sequentially by one task
+
+    private ForkJoinPool pool;
+
+    /**
+     * Constructor for creating an AnalyticsEngine on the common fork-join pool.
+     */
+    public AnalyticsEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor for creating an AnalyticsEngine on a given pool.
+     *
+     * @param pool the pool the reports are computed on
+     */
+    public AnalyticsEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Computes the report of every hotel and of the whole portfolio.
+     *
+     * @param hotels the hotels to report on
+     * @param sink   called with each hotel's report as soon as it is complete,
+     *               from the pool's threads and possibly concurrently; may be
+     *               null
+     * @return the report of the whole portfolio
+     */
+    public OccupancyReport run(List<Hotel> hotels, Consumer<OccupancyReport> sink) {
+        Hotel[] portfolio = hotels.toArray(new Hotel[0]);
+        if (portfolio.length == 0) {
+            return new Tally().toReport(PORTFOLIO);
+        }
+        return pool.invoke(new HotelTask(portfolio, 0, portfolio.length, sink)).toReport(PORTFOLIO);
+    }
+
+    /**
+     * Computes the report of a single hotel.
+     *
+     * @param hotel the hotel
+     * @return the hotel's report
+     */
+    public OccupancyReport report(Hotel hotel) {
+        HotelSnapshot snapshot = hotel.snapshot();
+        return pool.invoke(new RoomTask(snapshot, weights(snapshot.getPriceSnapshot()), 0,
+                snapshot.getTotalRooms())).addArchived(snapshot, weights(snapshot.getPriceSnapshot()))
+                .toReport(snapshot.getName());
+    }
+
+    /**
+     * Gets the running sums of the date price modifiers, used to spread a
+     * stay's revenue over its nights: the nights from checkIn to checkOut weigh
+     * sums[checkOut] - sums[checkIn].
+     *
+     * @param pricing the hotel's prices
+     * @return the sum of the modifiers of the dates before each date
+     */
+    private static double[] weights(PriceSnapshot pricing) {
+        double[] sums = new double[Hotel.DAYS_IN_MONTH + 2];
+        for (int date = 1; date <= Hotel.DAYS_IN_MONTH; date++) {
+            sums[date + 1] = sums[date] + pricing.getModifier(date);
+        }
+        return sums;
+    }
+
+    /**
+     * Fork-join task that reports on a range of hotels, handing out each
+     * hotel's report, and returns their combined figures.
+     */
+    private class HotelTask extends RecursiveTask<Tally> {
+        private static final long serialVersionUID = 1L; // Tasks are never serialized
+
+        private Hotel[] hotels;
+        private int from;
+        private int to;
+        private Consumer<OccupancyReport> sink;
+
+        /**
+         * Constructor for creating a task over hotels[from, to).
+         *
+         * @param hotels the hotels being reported on
+         * @param from   the first hotel of the range
+         * @param to     the end of the range, exclusive
+         * @param sink   the consumer of each hotel's report, or null
+         */
+        HotelTask(Hotel[] hotels, int from, int to, Consumer<OccupancyReport> sink) {
+            this.hotels = hotels;
+            this.from = from;
+            this.to = to;
+            this.sink = sink;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (to - from == 1) {
+                HotelSnapshot snapshot = hotels[from].snapshot(); // Report each hotel as of one moment
+                double[] weights = weights(snapshot.getPriceSnapshot());
+                Tally tally = new RoomTask(snapshot, weights, 0, snapshot.getTotalRooms()).compute()
+                        .addArchived(snapshot, weights);
+                if (sink != null) {
+                    sink.accept(tally.toReport(snapshot.getName()));
+                }
+                return tally;
+            }
+            int mid = (from + to) >>> 1;
+            HotelTask left = new HotelTask(hotels, from, mid, sink);
+            left.fork();
+            Tally right = new HotelTask(hotels, mid, to, sink).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /**
+     * Fork-join task that adds up a range of a hotel's rooms.
+     */
+    private static class RoomTask extends RecursiveTask<Tally> {
+        private static final long serialVersionUID = 1L; // Tasks are never serialized
+
+        private HotelSnapshot snapshot;
+        private double[] weights;
+        private int from;
+        private int to;
+
+        /**
+         * Constructor for creating a task over the rooms [from, to) of a hotel.
+         *
+         * @param snapshot the hotel's snapshot
+         * @param weights  the running sums of the hotel's date price modifiers
+         * @param from     the first room of the range
+         * @param to       the end of the range, exclusive
+         */
+        RoomTask(HotelSnapshot snapshot, double[] weights, int from, int to) {
+            this.snapshot = snapshot;
+            this.weights = weights;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (to - from <= ROOMS_PER_TASK) {
+                Tally tally = new Tally();
+                List<RoomSnapshot> rooms = snapshot.getRooms();
+                for (int i = from; i < to; i++) {
+                    tally.addRoom(rooms.get(i), weights);
+                }
+                return tally;
+            }
+            int mid = (from + to) >>> 1;
+            RoomTask left = new RoomTask(snapshot, weights, from, mid);
+            left.fork();
+            Tally right = new RoomTask(snapshot, weights, mid, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /**
+     * Running figures of a set of rooms: the rooms, the room nights sold and the
+     * revenue of each date, and the revenue of each room type and discount
+     * code.
+     */
+    private static class Tally {
+        private int rooms;
+        private int[] nightsSold = new int[Hotel.DAYS_IN_MONTH + 1];
+        private double[] revenue = new double[Hotel.DAYS_IN_MONTH + 1];
+        private Breakdown byRoomType = new Breakdown();
+        private Breakdown byDiscountCode = new Breakdown();
+
+        /**
+         * Adds a room and its reservations.
+         *
+         * @param room    the room
+         * @param weights the running sums of the hotel's date price modifiers
+         */
+        void addRoom(RoomSnapshot room, double[] weights) {
+            rooms++;
+            Symbol type = Reservation.NAMES.intern(room.getRoomType());
+            byRoomType.add(type, 0); // Listed even without revenue
+            for (Reservation reservation : room.getReservations()) {
+                addStay(reservation.getCheckIn(), reservation.getCheckOut(), reservation.getPaidPrice(), type,
+                        reservation.getDiscountCodeSymbol(), weights);
+            }
+        }
+
+        /**
+         * Adds the archived stays of a hotel. Their rooms are already counted.
+         *
+         * @param snapshot the hotel's snapshot
+         * @param weights  the running sums of the hotel's date price modifiers
+         * @return this tally
+         */
+        Tally addArchived(HotelSnapshot snapshot, double[] weights) {
+            for (ArchivedReservation stay : snapshot.getArchivedReservations()) {
+                addStay(stay.getCheckIn(), stay.getCheckOut(), stay.getPaidPrice(),
+                        Reservation.NAMES.intern(stay.getRoomType()), Reservation.NAMES.intern(stay.getDiscountCode()),
+                        weights);
+            }
+            return this;
+        }
+
+        /**
+         * Adds one stay, spreading the price paid over its nights by their
+         * modifiers.
+         *
+         * @param checkIn  the check-in date
+         * @param checkOut the check-out date
+         * @param paid     the price paid
+         * @param type     the room type
+         * @param code     the discount code, or null if none
+         * @param weights  the running sums of the hotel's date price modifiers
+         */
+        private void addStay(int checkIn, int checkOut, double paid, Symbol type, Symbol code, double[] weights) {
+            checkIn = Math.max(checkIn, 1);
+            checkOut = Math.min(checkOut, Hotel.DAYS_IN_MONTH + 1);
+            if (checkIn >= checkOut) {
+                return; // Outside the month
+            }
+            double weight = weights[checkOut] - weights[checkIn];
+            for (int date = checkIn; date < checkOut; date++) {
+                nightsSold[date]++;
+                revenue[date] += weight > 0 ? paid * (weights[date + 1] - weights[date]) / weight
+                        : paid / (checkOut - checkIn);
+            }
+            byRoomType.add(type, paid);
+            byDiscountCode.add(code, paid);
+        }
+
+        /**
+         * Adds another tally's figures into this one.
+         *
+         * @param other the other tally
+         * @return this tally
+         */
+        Tally merge(Tally other) {
+            rooms += other.rooms;
+            for (int date = 1; date <= Hotel.DAYS_IN_MONTH; date++) {
+                nightsSold[date] += other.nightsSold[date];
+                revenue[date] += other.revenue[date];
+            }
+            byRoomType.addAll(other.byRoomType);
+            byDiscountCode.addAll(other.byDiscountCode);
+            return this;
+        }
+
+        /**
+         * Makes a report of the figures as they are now.
+         *
+         * @param name the name of the report
+         * @return the report
+         */
+        OccupancyReport toReport(String name) {
+            return new OccupancyReport(name, rooms, nightsSold.clone(), revenue.clone(), byRoomType.toMap(),
+                    byDiscountCode.toMap());
+        }
+    }
+
+    /**
+     * Revenue keyed by symbols of {@link Reservation#NAMES}, in parallel
+     * arrays. There are only a few room types and discount codes, so keys are
+     * looked up by a linear scan comparing references. Holding the symbols
+     * keeps them in the table until the report is made.
+     */
+    private static class Breakdown {
+        private Symbol[] ids = new Symbol[4];
+        private double[] amounts = new double[4];
+        private int size;
+
+        /**
+         * Adds an amount to a key.
+         *
+         * @param id     the key, or null
+         * @param amount the amount
+         */
+        void add(Symbol id, double amount) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    amounts[i] += amount;
+                    return;
+                }
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                amounts = Arrays.copyOf(amounts, size * 2);
+            }
+            ids[size] = id;
+            amounts[size++] = amount;
+        }
+
+        /**
+         * Adds every amount of another breakdown.
+         *
+         * @param other the other breakdown
+         */
+        void addAll(Breakdown other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.ids[i], other.amounts[i]);
+            }
+        }
+
+        /**
+         * Resolves the keys into names.
+         *
+         * @return the amounts by name, with null as an empty string
+         */
+        Map<String, Double> toMap() {
+            Map<String, Double> map = new LinkedHashMap<String, Double>();
+            for (int i = 0; i < size; i++) {
+                String name = ids[i] == null ? "" : ids[i].getName();
+                map.put(name, amounts[i]);
+            }
+            return map;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * The ArchivedReservation class is a checked-out stay read back from a
+ * {@link ColdSegment}. It keeps what the reservation was sold for, so history
+ * and revenue reports need not reprice it.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class ArchivedReservation {
+    private String guestName;
+    private String roomName;
+    private String roomType;
+    private int checkIn;
+    private int checkOut;
+    private double totalCost;
+    private double paidPrice;
+    private String discountCode;
+
+    /**
+     * Constructor for creating an ArchivedReservation.
+     *
+     * @param guestName    the name of the guest
+     * @param roomName     the name of the room
+     * @param roomType     the type of the room
+     * @param checkIn      the check-in date
+     * @param checkOut     the check-out date
+     * @param totalCost    the total cost of the stay before any discount
+     * @param paidPrice    the price paid, after the discount code
+     * @param discountCode the discount code applied, or null if none was
+     */
+    public ArchivedReservation(String guestName, String roomName, String roomType, int checkIn, int checkOut,
+            double totalCost, double paidPrice, String discountCode) {
+        this.guestName = guestName;
+        this.roomName = roomName;
+        this.roomType = roomType;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+        this.totalCost = totalCost;
+        this.paidPrice = paidPrice;
+        this.discountCode = discountCode;
+    }
+
+    /**
+     * Constructor for creating an ArchivedReservation from a live reservation.
+     *
+     * @param reservation the reservation
+     */
+    public ArchivedReservation(Reservation reservation) {
+        this(reservation.getGuestName(), reservation.getRoomName(), reservation.getRoom().getRoomType(),
+                reservation.getCheckIn(), reservation.getCheckOut(), reservation.getTotalCost(),
+                reservation.getPaidPrice(), reservation.getDiscountCode());
+    }
+
+    /**
+     * Gets the name of the guest.
+     *
+     * @return the guest's name
+     */
+    public String getGuestName() {
+        return guestName;
+    }
+
+    /**
+     * Gets the name of the room.
+     *
+     * @return the room name
+     */
+    public String getRoomName() {
+        return roomName;
+    }
+
+    /**
+     * Gets the type of the room.
+     *
+     * @return the room type
+     */
+    public String getRoomType() {
+        return roomType;
+    }
+
+    /**
+     * Gets the check-in date.
+     *
+     * @return the check-in date
+     */
+    public int getCheckIn() {
+        return checkIn;
+    }
+
+    /**
+     * Gets the check-out date.
+     *
+     * @return the check-out date
+     */
+    public int getCheckOut() {
+        return checkOut;
+    }
+
+    /**
+     * Gets the total cost of the stay before any discount.
+     *
+     * @return the total cost
+     */
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    /**
+     * Gets the price paid for the stay, after the discount code.
+     *
+     * @return the price paid
+     */
+    public double getPaidPrice() {
+        return paidPrice;
+    }
+
+    /**
+     * Gets the discount code applied to the stay.
+     *
+     * @return the discount code, or null if none was applied
+     */
+    public String getDiscountCode() {
+        return discountCode;
+    }
+
+    @Override
+    public String toString() {
+        return guestName + " | Room " + roomName + " | " + checkIn + "-" + checkOut + " | " + totalCost;
+    }
+}
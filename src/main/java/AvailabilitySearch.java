@@ -0,0 +1,161 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The AvailabilitySearch class finds rooms across many hotels that are free for
+ * a range of nights, cost at most a given price and optionally have a given
+ * room type. The hotels are split into ranges that are searched in parallel on
+ * a fork-join pool, and only the cheapest matches up to the result limit are
+ * kept.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class AvailabilitySearch {
+    private static final String[] ROOM_TYPES = { "Standard", "Deluxe", "Executive" };
+    private static final int HOTELS_PER_TASK = 8; // Hotels searched sequentially by one task
+
+    private int checkIn;
+    private int checkOut;
+    private double maxPrice;
+    private String roomType;
+    private int limit;
+
+    /**
+     * Constructor for creating a new AvailabilitySearch.
+     *
+     * @param checkIn  the check-in date
+     * @param checkOut the check-out date
+     * @param maxPrice the highest acceptable total price of the stay
+     * @param roomType the room type to look for, or null for any type
+     * @param limit    the maximum number of matches to return
+     */
+    public AvailabilitySearch(int checkIn, int checkOut, double maxPrice, String roomType, int limit) {
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+        this.maxPrice = maxPrice;
+        this.roomType = roomType;
+        this.limit = limit;
+    }
+
+    /**
+     * Searches the given hotels in parallel.
+     *
+     * @param hotels the hotels to search
+     * @return up to the limit of matches, sorted from cheapest to most expensive
+     */
+    public List<RoomMatch> search(List<Hotel> hotels) {
+        if (limit <= 0 || checkIn >= checkOut) {
+            return new ArrayList<RoomMatch>();
+        }
+        Hotel[] candidates = hotels.toArray(new Hotel[0]);
+        return ForkJoinPool.commonPool().invoke(new SearchTask(candidates, 0, candidates.length));
+    }
+
+    /**
+     * Searches a single hotel, keeping only the cheapest matches in the given
+     * bounded heap. Rooms of one type in a hotel share a price, so a room type
+     * whose price is over the budget, or no better than the worst kept match,
+     * is skipped without looking at its rooms.
+     *
+     * @param hotel the hotel to search
+     * @param best  a max-heap of the best matches found so far
+     */
+    private void searchHotel(Hotel hotel, PriorityQueue<RoomMatch> best) {
+        PriceSnapshot pricing = hotel.getPriceSnapshot();
+        List<Room> rooms = null; // Copied once, and only if some room type is within budget
+        for (String type : ROOM_TYPES) {
+            if (roomType != null && !roomType.equalsIgnoreCase(type)) {
+                continue;
+            }
+            double price = pricing.calculateTotalCost(checkIn, checkOut, pricing.getRoomPrice(type));
+            if (price > maxPrice || (best.size() >= limit && price >= best.peek().getTotalPrice())) {
+                continue; // No room of this type can make it into the results
+            }
+            if (rooms == null) {
+                rooms = hotel.getRooms();
+            }
+            for (Room room : rooms) {
+                if (room.getRoomType().equals(type) && room.isAvailable(checkIn, checkOut)) {
+                    best.add(new RoomMatch(hotel, room, price));
+                    if (best.size() > limit) {
+                        best.poll(); // Drop the most expensive match
+                    }
+                    if (best.size() >= limit && price >= best.peek().getTotalPrice()) {
+                        break; // Remaining rooms of this type cannot improve the results
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Fork-join task that searches a range of hotels and returns its cheapest
+     * matches in ascending price order.
+     */
+    private class SearchTask extends RecursiveTask<List<RoomMatch>> {
+        private static final long serialVersionUID = 1L; // Tasks are never serialized
+
+        private Hotel[] hotels;
+        private int from;
+        private int to;
+
+        /**
+         * Constructor for creating a task over hotels[from, to).
+         *
+         * @param hotels the hotels being searched
+         * @param from   the first hotel of the range
+         * @param to     the end of the range, exclusive
+         */
+        SearchTask(Hotel[] hotels, int from, int to) {
+            this.hotels = hotels;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<RoomMatch> compute() {
+            if (to - from <= HOTELS_PER_TASK) {
+                PriorityQueue<RoomMatch> best = new PriorityQueue<RoomMatch>(Collections.reverseOrder());
+                for (int i = from; i < to; i++) {
+                    searchHotel(hotels[i], best);
+                }
+                List<RoomMatch> matches = new ArrayList<RoomMatch>(best);
+                Collections.sort(matches);
+                return matches;
+            }
+            int mid = (from + to) >>> 1;
+            SearchTask left = new SearchTask(hotels, from, mid);
+            left.fork();
+            List<RoomMatch> right = new SearchTask(hotels, mid, to).compute();
+            return merge(left.join(), right);
+        }
+
+        /**
+         * Merges two sorted match lists, keeping only the cheapest up to the
+         * limit.
+         *
+         * @param a the first sorted list
+         * @param b the second sorted list
+         * @return the merged sorted list
+         */
+        private List<RoomMatch> merge(List<RoomMatch> a, List<RoomMatch> b) {
+            List<RoomMatch> merged = new ArrayList<RoomMatch>(Math.min(limit, a.size() + b.size()));
+            int i = 0;
+            int j = 0;
+            while (merged.size() < limit && (i < a.size() || j < b.size())) {
+                if (j >= b.size() || (i < a.size() && a.get(i).compareTo(b.get(j)) <= 0)) {
+                    merged.add(a.get(i++));
+                } else {
+                    merged.add(b.get(j++));
+                }
+            }
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,527 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The BatchMain class runs hotel operations from a script instead of the
+ * dialogs of the GUI. Each line of the script is one command, read from the
+ * file named as the first argument or from standard input, and applied to the
+ * model right away. Results go to standard output through one large buffer,
+ * one line per command with the time it took, followed by a count and total
+ * time for each kind of command. Arguments are separated by spaces; an
+ * argument with spaces is written in double quotes. Blank lines and lines
+ * starting with # are skipped.
+ *
+ * <pre>
+ * hotel        name basePrice [maxRooms]
+ * remove-hotel hotel
+ * room         hotel name type
+ * rooms        hotel type count [prefix]      adds rooms prefix1, prefix2, ...
+ * remove-room  hotel room
+ * base-price   hotel price
+ * modifier     hotel date[-lastDate] rate
+ * book         hotel room|* type guest checkIn checkOut
+ * cancel       hotel room guest
+ * modify       hotel room guest checkIn checkOut [newRoom]
+ * availability hotel date
+ * archive      hotel today                    archives stays checked out by today
+ * earnings     hotel
+ * report       [hotel]
+ * import       file
+ * export       file
+ * </pre>
+ *
+ * The exit status is 1 if any command failed, 0 otherwise.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class BatchMain {
+    private static final int OUTPUT_BUFFER = 1 << 16;
+
+    private List<Hotel> hotels;
+    private PrintWriter out;
+    private Map<String, long[]> timings; // command -> { count, nanoseconds }
+    private int failures;
+
+    /**
+     * Constructor for creating a BatchMain with no hotels.
+     *
+     * @param out where results are written
+     */
+    public BatchMain(PrintWriter out) {
+        this.hotels = new ArrayList<Hotel>();
+        this.out = out;
+        this.timings = new TreeMap<String, long[]>();
+    }
+
+    /**
+     * Runs every command of a script, then writes the timing summary. A command
+     * that fails, for any reason, is reported and the script goes on.
+     *
+     * @param script the script
+     * @return the number of commands that failed
+     * @throws IOException if the script cannot be read
+     */
+    public int run(BufferedReader script) throws IOException {
+        long started = System.nanoTime();
+        String line;
+        int lineNumber = 0;
+        int commands = 0;
+        while ((line = script.readLine()) != null) {
+            lineNumber++;
+            List<String> args = tokenize(line);
+            if (args.isEmpty() || args.get(0).startsWith("#")) {
+                continue;
+            }
+            commands++;
+            String command = args.get(0).toLowerCase();
+            long start = System.nanoTime();
+            String result;
+            boolean ok;
+            try {
+                result = execute(command, args);
+                ok = true;
+            } catch (IllegalArgumentException ex) {
+                result = ex.getMessage();
+                ok = false;
+                failures++;
+            } catch (RuntimeException ex) {
+                result = ex.toString(); // Unexpected, report it and go on with the next command
+                ok = false;
+                failures++;
+            }
+            long elapsed = System.nanoTime() - start;
+            long[] timing = timings.computeIfAbsent(command, key -> new long[2]);
+            timing[0]++;
+            timing[1] += elapsed;
+            out.printf("%d %s %s: %s (%.1f us)\n", lineNumber, ok ? "ok" : "error", command, result,
+                    elapsed / 1000.0);
+        }
+        out.println("--");
+        for (Map.Entry<String, long[]> timing : timings.entrySet()) {
+            long[] value = timing.getValue();
+            out.printf("%-12s %8d commands %10.3f ms %9.1f us each\n", timing.getKey(), value[0], value[1] / 1e6,
+                    value[1] / 1000.0 / value[0]);
+        }
+        out.printf("%d commands, %d failed, %.3f ms\n", commands, failures, (System.nanoTime() - started) / 1e6);
+        out.flush();
+        return failures;
+    }
+
+    /**
+     * Gets the hotels built up by the commands run so far.
+     *
+     * @return the hotels
+     */
+    public List<Hotel> getHotels() {
+        return hotels;
+    }
+
+    /**
+     * Applies one command.
+     *
+     * @param command the command name, in lower case
+     * @param args    the command name followed by its arguments
+     * @return the result to report
+     * @throws IllegalArgumentException if the command is unknown, its
+     *                                  arguments are invalid, or it cannot be
+     *                                  applied
+     */
+    private String execute(String command, List<String> args) {
+        switch (command) {
+            case "hotel": {
+                expect(args, 3, 4);
+                String name = args.get(1);
+                double basePrice = number(args.get(2));
+                if (findHotel(name) != null) {
+                    throw new IllegalArgumentException("hotel already exists: " + name);
+                } else if (basePrice < 100) {
+                    throw new IllegalArgumentException("base price should be >= 100");
+                }
+                int maxRooms = args.size() > 3 ? integer(args.get(3)) : Hotel.DEFAULT_MAX_ROOMS;
+                if (maxRooms < 1) {
+                    throw new IllegalArgumentException("room limit should be >= 1");
+                }
+                Hotel hotel = new Hotel(name, basePrice);
+                hotel.setMaxRooms(maxRooms);
+                hotels.add(hotel);
+                return "created " + name;
+            }
+            case "remove-hotel":
+                expect(args, 2, 2);
+                hotels.remove(hotel(args.get(1)));
+                return "removed " + args.get(1);
+            case "room": {
+                expect(args, 4, 4);
+                Hotel hotel = hotel(args.get(1));
+                return "added " + addRoom(hotel, args.get(2), args.get(3));
+            }
+            case "rooms": {
+                expect(args, 4, 5);
+                Hotel hotel = hotel(args.get(1));
+                int count = integer(args.get(3));
+                String prefix = args.size() > 4 ? args.get(4) : "";
+                if (Room.create("", args.get(2), hotel.getBasePrice()) == null) {
+                    throw new IllegalArgumentException("invalid room type: " + args.get(2));
+                } else if (count < 1) {
+                    throw new IllegalArgumentException("room count should be >= 1");
+                } else if (hotel.getTotalRooms() + count > hotel.getMaxRooms()) {
+                    throw new IllegalArgumentException("only " + (hotel.getMaxRooms() - hotel.getTotalRooms())
+                            + " more rooms fit");
+                }
+                int number = hotel.getTotalRooms();
+                for (int added = 0; added < count; added++) {
+                    Room room;
+                    do {
+                        room = Room.create(prefix + (++number), args.get(2), hotel.getBasePrice());
+                    } while (hotel.checkDuplicateRoomName(room.getName())); // Skip names already taken
+                    hotel.addRoom(room);
+                }
+                return "added " + count + " rooms, " + hotel.getTotalRooms() + " in total";
+            }
+            case "remove-room": {
+                expect(args, 3, 3);
+                if (!hotel(args.get(1)).removeRoomByName(args.get(2))) {
+                    throw new IllegalArgumentException("room not found or not empty: " + args.get(2));
+                }
+                return "removed " + args.get(2);
+            }
+            case "base-price": {
+                expect(args, 3, 3);
+                Hotel hotel = hotel(args.get(1));
+                double basePrice = number(args.get(2));
+                if (basePrice < 100) {
+                    throw new IllegalArgumentException("base price should be >= 100");
+                } else if (!hotel.isPriceUpdateable()) {
+                    throw new IllegalArgumentException("some rooms are occupied");
+                }
+                hotel.setBasePrice(basePrice);
+                return "base price " + basePrice;
+            }
+            case "modifier": {
+                expect(args, 4, 4);
+                Hotel hotel = hotel(args.get(1));
+                String[] range = args.get(2).split("-", 2);
+                int first = integer(range[0]);
+                int last = range.length > 1 ? integer(range[1]) : first;
+                double rate = number(args.get(3));
+                if (first < 1 || last > Hotel.DAYS_IN_MONTH || first > last || rate < 0.5 || rate > 1.5) {
+                    throw new IllegalArgumentException("dates should be 1 to 30 and the rate 0.5 to 1.5");
+                }
+                for (int date = first; date <= last; date++) {
+                    hotel.setDatePriceModifier(date, rate);
+                }
+                return (last - first + 1) + " dates at " + rate;
+            }
+            case "book": {
+                expect(args, 7, 7);
+                return "booked " + book(hotel(args.get(1)), args.get(2), args.get(3), args.get(4),
+                        integer(args.get(5)), integer(args.get(6)));
+            }
+            case "cancel": {
+                expect(args, 4, 4);
+                Hotel hotel = hotel(args.get(1));
+                Room room = room(hotel, args.get(2));
+                if (!room.removeReservation(args.get(3))) {
+                    for (Reservation reservation : room.getReservations()) {
+                        if (reservation.getGuestName().equals(args.get(3))) { // Only stays with past nights are kept
+                            throw new IllegalArgumentException("nights before " + hotel.getClosedBefore()
+                                    + " are closed");
+                        }
+                    }
+                    throw new IllegalArgumentException("no reservation for " + args.get(3));
+                }
+                return "cancelled " + args.get(3);
+            }
+            case "modify": {
+                expect(args, 6, 7);
+                Hotel hotel = hotel(args.get(1));
+                Room room = room(hotel, args.get(2));
+                Reservation reservation = null;
+                for (Reservation candidate : room.getReservations()) {
+                    if (candidate.getGuestName().equals(args.get(3))) {
+                        reservation = candidate;
+                    }
+                }
+                if (reservation == null) {
+                    throw new IllegalArgumentException("no reservation for " + args.get(3));
+                }
+                int checkIn = integer(args.get(4));
+                int checkOut = integer(args.get(5));
+                if (checkIn < 1 || checkOut > Hotel.DAYS_IN_MONTH + 1 || checkIn >= checkOut) {
+                    throw new IllegalArgumentException("invalid date range");
+                }
+                Room target = args.size() > 6 ? room(hotel, args.get(6)) : room;
+                if (target != room && reservation.getCheckIn() < hotel.getClosedBefore()) {
+                    throw new IllegalArgumentException("nights before " + hotel.getClosedBefore()
+                            + " are closed, the stay cannot change rooms");
+                }
+                Reservation modified = hotel.modifyReservation(reservation, target, checkIn, checkOut);
+                if (modified == null) {
+                    throw new IllegalArgumentException("new nights not available");
+                }
+                return "moved to " + modified.getRoomName() + " for " + modified.getTotalCost();
+            }
+            case "archive": {
+                expect(args, 3, 3);
+                Hotel hotel = hotel(args.get(1));
+                try {
+                    int archived = hotel.archiveCheckedOut(integer(args.get(2)));
+                    return archived + " stays archived, " + hotel.getArchive().size() + " in "
+                            + hotel.getArchive().getSegments().size() + " segments";
+                } catch (UncheckedIOException ex) {
+                    throw new IllegalArgumentException("archive failed: " + ex.getCause().getMessage());
+                }
+            }
+            case "availability": {
+                expect(args, 3, 3);
+                HotelSnapshot snapshot = hotel(args.get(1)).snapshot();
+                int date = integer(args.get(2));
+                return snapshot.getAvailableRooms(date) + " free, " + snapshot.getBookedRooms(date) + " booked";
+            }
+            case "earnings":
+                expect(args, 2, 2);
+                return String.valueOf(hotel(args.get(1)).getEstimatedEarnings());
+            case "report": {
+                expect(args, 1, 2);
+                AnalyticsEngine analytics = new AnalyticsEngine();
+                OccupancyReport report = args.size() > 1 ? analytics.report(hotel(args.get(1)))
+                        : analytics.run(hotels, null);
+                return "\n" + report;
+            }
+            case "import": {
+                expect(args, 2, 2);
+                try {
+                    int[] counts = new PortfolioIO(hotels).importFrom(Paths.get(args.get(1)),
+                            Paths.get(args.get(1) + ".rejects"));
+                    return counts[0] + " records imported, " + counts[1] + " rejected";
+                } catch (IOException ex) {
+                    throw new IllegalArgumentException("import failed: " + ex.getMessage());
+                }
+            }
+            case "export": {
+                expect(args, 2, 2);
+                String fileName = args.get(1).toLowerCase();
+                boolean json = fileName.endsWith(".json") || fileName.endsWith(".jsonl")
+                        || fileName.endsWith(".ndjson");
+                try {
+                    return new PortfolioIO(hotels).exportTo(Paths.get(args.get(1)), json) + " records exported";
+                } catch (IOException ex) {
+                    throw new IllegalArgumentException("export failed: " + ex.getMessage());
+                }
+            }
+            default:
+                throw new IllegalArgumentException("unknown command");
+        }
+    }
+
+    /**
+     * Adds a room to a hotel.
+     *
+     * @param hotel    the hotel
+     * @param name     the name of the room
+     * @param roomType Standard, Deluxe or Executive
+     * @return the name the room was given
+     */
+    private static String addRoom(Hotel hotel, String name, String roomType) {
+        Room room = Room.create(name, roomType, hotel.getBasePrice());
+        if (room == null) {
+            throw new IllegalArgumentException("invalid room type: " + roomType);
+        } else if (hotel.checkDuplicateRoomName(room.getName())) {
+            throw new IllegalArgumentException("room name already exists: " + room.getName());
+        } else if (hotel.getTotalRooms() >= hotel.getMaxRooms()) {
+            throw new IllegalArgumentException("maximum number of rooms reached");
+        }
+        hotel.addRoom(room);
+        return room.getName();
+    }
+
+    /**
+     * Books a named room, or any free room of a type.
+     *
+     * @param hotel     the hotel
+     * @param roomName  the name of the room, or * for any room of the type
+     * @param roomType  the room type when no room is named, in any case
+     * @param guestName the name of the guest
+     * @param checkIn   the check-in date
+     * @param checkOut  the check-out date
+     * @return the room booked and the price
+     */
+    private static String book(Hotel hotel, String roomName, String roomType, String guestName, int checkIn,
+            int checkOut) {
+        if (checkIn < 1 || checkOut > Hotel.DAYS_IN_MONTH + 1 || checkIn >= checkOut) {
+            throw new IllegalArgumentException("invalid date range");
+        }
+        Reservation reservation;
+        if (roomName.equals("*")) {
+            Room typed = Room.create("", roomType, hotel.getBasePrice()); // Spells the type as the rooms do
+            if (typed == null) {
+                throw new IllegalArgumentException("invalid room type: " + roomType);
+            }
+            reservation = hotel.bookAutoAssigned(guestName, typed.getRoomType(), checkIn, checkOut);
+        } else {
+            Room room = room(hotel, roomName);
+            reservation = new Reservation(guestName, checkIn, checkOut, room.getName(), hotel, room);
+            if (!room.addReservation(reservation)) {
+                reservation = null;
+            }
+        }
+        if (reservation == null) {
+            throw new IllegalArgumentException("no room available");
+        }
+        return reservation.getRoomName() + " for " + reservation.getTotalCost();
+    }
+
+    /**
+     * Finds a hotel by name.
+     *
+     * @param name the name of the hotel
+     * @return the hotel, or null if there is none
+     */
+    private Hotel findHotel(String name) {
+        for (Hotel hotel : hotels) {
+            if (hotel.getName().equals(name)) {
+                return hotel;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets a hotel by name.
+     *
+     * @param name the name of the hotel
+     * @return the hotel
+     * @throws IllegalArgumentException if there is no such hotel
+     */
+    private Hotel hotel(String name) {
+        Hotel hotel = findHotel(name);
+        if (hotel == null) {
+            throw new IllegalArgumentException("hotel not found: " + name);
+        }
+        return hotel;
+    }
+
+    /**
+     * Gets a room of a hotel by name.
+     *
+     * @param hotel the hotel
+     * @param name  the name of the room
+     * @return the room
+     * @throws IllegalArgumentException if there is no such room
+     */
+    private static Room room(Hotel hotel, String name) {
+        Room room = hotel.getRoomByName(name);
+        if (room == null) {
+            throw new IllegalArgumentException("room not found: " + name);
+        }
+        return room;
+    }
+
+    /**
+     * Checks the number of arguments of a command.
+     *
+     * @param args the command name followed by its arguments
+     * @param min  the least number of words, the command name included
+     * @param max  the most number of words, the command name included
+     */
+    private static void expect(List<String> args, int min, int max) {
+        if (args.size() < min || args.size() > max) {
+            throw new IllegalArgumentException("expected " + (min - 1)
+                    + (max > min ? " to " + (max - 1) : "") + " arguments");
+        }
+    }
+
+    /**
+     * Parses a whole number argument.
+     *
+     * @param text the argument
+     * @return the number
+     */
+    private static int integer(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("not a whole number: " + text);
+        }
+    }
+
+    /**
+     * Parses a number argument.
+     *
+     * @param text the argument
+     * @return the number
+     */
+    private static double number(String text) {
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("not a number: " + text);
+        }
+    }
+
+    /**
+     * Splits a command line into words at spaces, keeping text in double quotes
+     * together.
+     *
+     * @param line the line
+     * @return the words
+     */
+    static List<String> tokenize(String line) {
+        List<String> words = new ArrayList<String>();
+        StringBuilder word = new StringBuilder();
+        boolean quoted = false;
+        boolean inWord = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                inWord = true; // "" is an empty word
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (inWord) {
+                    words.add(word.toString());
+                    word.setLength(0);
+                    inWord = false;
+                }
+            } else {
+                word.append(c);
+                inWord = true;
+            }
+        }
+        if (inWord) {
+            words.add(word.toString());
+        }
+        return words;
+    }
+
+    /**
+     * Runs a script from a file, or from standard input if no file is given.
+     *
+     * @param args the script file, optionally
+     * @throws IOException if the script cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        PrintWriter out = new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(System.out, StandardCharsets.UTF_8), OUTPUT_BUFFER));
+        int failures;
+        try (BufferedReader script = args.length > 0
+                ? Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)
+                : new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))) {
+            failures = new BatchMain(out).run(script);
+        }
+        System.exit(failures > 0 ? 1 : 0);
+    }
+}
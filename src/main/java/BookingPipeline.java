@@ -0,0 +1,242 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The BookingPipeline class takes in high volumes of booking requests, such as
+ * a channel feed, and books them in batches, in three stages:
+ * <ol>
+ * <li>Requests are validated on the submitting threads, so validation runs in
+ * parallel and invalid requests never take up queue space.</li>
+ * <li>Valid requests wait in a bounded queue; a full queue blocks the callers
+ * until the pipeline catches up. A dispatcher thread takes up to a batch of
+ * requests at a time and groups them by the partition owning their hotel.</li>
+ * <li>Each partition's micro-batch is handed to its owner thread in a
+ * {@link PartitionedEngine} as one task, which books the requests in arrival
+ * order and then acknowledges the whole micro-batch together. Different
+ * partitions are booked in parallel while the dispatcher is already grouping
+ * the next batch.</li>
+ * </ol>
+ * Bookings go through a {@link BookingService}, so retried requests are not
+ * booked twice. The batch size caps how long any request waits behind others.
+ *
+ * <p>
+ * Shutting down queues a stop marker behind the last accepted request, so
+ * every request accepted before the shutdown is booked or failed; none is left
+ * waiting.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class BookingPipeline {
+    private static final int MAX_BATCH = 512; // Requests taken from the queue at once
+    private static final Pending STOP = new Pending(null); // Queued by shutdown behind the last request
+
+    private BlockingQueue<Pending> intake;
+    private BookingService bookings;
+    private PartitionedEngine engine;
+    private Thread dispatcher;
+    private ReadWriteLock state; // Submitters share it, shutdown takes it alone
+    private boolean running;
+
+    /**
+     * Constructor for creating and starting a BookingPipeline.
+     *
+     * @param capacity the number of waiting requests before callers block
+     * @param bookings the service that books each request
+     * @param engine   the engine whose owner threads apply the bookings
+     */
+    public BookingPipeline(int capacity, BookingService bookings, PartitionedEngine engine) {
+        this.intake = new ArrayBlockingQueue<Pending>(capacity);
+        this.bookings = bookings;
+        this.engine = engine;
+        this.state = new ReentrantReadWriteLock();
+        this.running = true;
+        this.dispatcher = new Thread(this::run, "booking-pipeline");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Submits a booking request. Blocks while the queue is full.
+     *
+     * @param request the booking request
+     * @return a future completed with the reservation, or with null if the
+     *         request is invalid or the room is not available
+     * @throws IllegalStateException if the pipeline has been shut down
+     */
+    public CompletableFuture<Reservation> submit(BookingRequest request) {
+        Pending pending = new Pending(request);
+        Lock admission = state.readLock();
+        admission.lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("Pipeline is shut down.");
+            }
+            if (!isValid(request)) {
+                pending.future.complete(null); // Refused without queueing
+                return pending.future;
+            }
+            intake.put(pending);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            pending.future.completeExceptionally(ex);
+        } finally {
+            admission.unlock();
+        }
+        return pending.future;
+    }
+
+    /**
+     * Stops accepting requests, waits for submitters already queueing, hands
+     * every queued request to the engine and waits for the dispatcher to stop.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void shutdown() throws InterruptedException {
+        Lock exclusive = state.writeLock();
+        exclusive.lock();
+        try {
+            if (running) {
+                running = false;
+                intake.put(STOP); // Nothing can be queued behind it
+            }
+        } finally {
+            exclusive.unlock();
+        }
+        dispatcher.join();
+    }
+
+    /**
+     * Loop of the dispatcher thread: takes batches from the queue and processes
+     * them until it takes the stop marker.
+     */
+    private void run() {
+        List<Pending> batch = new ArrayList<Pending>(MAX_BATCH);
+        boolean stopped = false;
+        while (!stopped) {
+            try {
+                batch.add(intake.take());
+            } catch (InterruptedException ex) {
+                continue; // Only the stop marker ends the loop
+            }
+            intake.drainTo(batch, MAX_BATCH - 1);
+            if (batch.get(batch.size() - 1) == STOP) { // Always the last request queued
+                batch.remove(batch.size() - 1);
+                stopped = true;
+            }
+            process(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Groups one batch of requests by the partition owning their hotel and hands
+     * each partition's micro-batch to its owner thread as a single task. The
+     * hotels of a partition share the owner, so each hotel's requests are still
+     * booked in arrival order, and one hand-off serves all of them.
+     *
+     * @param batch the requests, in arrival order
+     */
+    private void process(List<Pending> batch) {
+        Map<Integer, List<Pending>> byPartition = new LinkedHashMap<Integer, List<Pending>>();
+        for (Pending pending : batch) {
+            byPartition.computeIfAbsent(engine.partitionOf(pending.request.getHotel()),
+                    partition -> new ArrayList<Pending>()).add(pending);
+        }
+        for (List<Pending> microBatch : byPartition.values()) {
+            try {
+                engine.submit(microBatch.get(0).request.getHotel(), hotel -> {
+                    apply(microBatch);
+                    return null;
+                }).whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        fail(microBatch, error); // The owner could not run the micro-batch
+                    }
+                });
+            } catch (IllegalStateException ex) {
+                fail(microBatch, ex); // The engine was shut down first
+            }
+        }
+    }
+
+    /**
+     * Fails every request of a micro-batch that is not acknowledged yet.
+     *
+     * @param microBatch the requests
+     * @param error      the reason
+     */
+    private static void fail(List<Pending> microBatch, Throwable error) {
+        for (Pending pending : microBatch) {
+            pending.future.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * Books one partition's micro-batch in arrival order, then acknowledges it.
+     * Runs on the partition's owner thread.
+     *
+     * @param microBatch the requests for the hotels of one partition
+     */
+    private void apply(List<Pending> microBatch) {
+        Reservation[] reservations = new Reservation[microBatch.size()];
+        RuntimeException[] errors = new RuntimeException[microBatch.size()];
+        for (int i = 0; i < microBatch.size(); i++) {
+            try {
+                reservations[i] = bookings.book(microBatch.get(i).request);
+            } catch (RuntimeException ex) {
+                errors[i] = ex;
+            }
+        }
+        // Acknowledge the micro-batch together
+        for (int i = 0; i < microBatch.size(); i++) {
+            if (errors[i] != null) {
+                microBatch.get(i).future.completeExceptionally(errors[i]);
+            } else {
+                microBatch.get(i).future.complete(reservations[i]);
+            }
+        }
+    }
+
+    /**
+     * Checks that a request can be booked at all: the stay lies within the month
+     * and the named room exists, or a room type is given.
+     *
+     * @param request the booking request
+     * @return true if the request is valid
+     */
+    private static boolean isValid(BookingRequest request) {
+        if (request.getHotel() == null || request.getGuestName() == null || request.getGuestName().isEmpty()) {
+            return false;
+        }
+        if (request.getCheckIn() < 1 || request.getCheckOut() > Hotel.DAYS_IN_MONTH + 1
+                || request.getCheckIn() >= request.getCheckOut()) {
+            return false;
+        }
+        if (request.getRoomName() == null) {
+            return request.getRoomType() != null;
+        }
+        return request.getHotel().getRoomByName(request.getRoomName()) != null;
+    }
+
+    /**
+     * A queued request and the future that acknowledges it.
+     */
+    private static class Pending {
+        private BookingRequest request;
+        private CompletableFuture<Reservation> future;
+
+        Pending(BookingRequest request) {
+            this.request = request;
+            this.future = new CompletableFuture<Reservation>();
+        }
+    }
+}
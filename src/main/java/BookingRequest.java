@@ -0,0 +1,129 @@
+/**
+ * The BookingRequest class is a request to book a stay, as sent by a booking
+ * channel. It names either a room or, for the hotel to pick one, a room type.
+ * The idempotency key is chosen by the client and stays the same when the
+ * client retries the request, so a retry can be recognised.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class BookingRequest {
+    private String idempotencyKey;
+    private Hotel hotel;
+    private String roomName;
+    private String roomType;
+    private String guestName;
+    private int checkIn;
+    private int checkOut;
+
+    /**
+     * Constructor for creating a new BookingRequest.
+     *
+     * @param idempotencyKey the client's key for the request, or null if the
+     *                       request is not to be deduplicated
+     * @param hotel          the hotel to book in
+     * @param roomName       the name of the room, or null to let the hotel pick a
+     *                       room of the room type
+     * @param roomType       the room type to pick from when no room is named
+     * @param guestName      the name of the guest
+     * @param checkIn        the check-in date
+     * @param checkOut       the check-out date
+     */
+    public BookingRequest(String idempotencyKey, Hotel hotel, String roomName, String roomType, String guestName,
+            int checkIn, int checkOut) {
+        this.idempotencyKey = idempotencyKey;
+        this.hotel = hotel;
+        this.roomName = roomName;
+        this.roomType = roomType;
+        this.guestName = guestName;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+    }
+
+    /**
+     * Gets the client's idempotency key.
+     *
+     * @return the idempotency key, or null if there is none
+     */
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    /**
+     * Gets the hotel to book in.
+     *
+     * @return the hotel
+     */
+    public Hotel getHotel() {
+        return hotel;
+    }
+
+    /**
+     * Gets the name of the room.
+     *
+     * @return the room name, or null if the hotel picks the room
+     */
+    public String getRoomName() {
+        return roomName;
+    }
+
+    /**
+     * Gets the room type to pick from when no room is named.
+     *
+     * @return the room type
+     */
+    public String getRoomType() {
+        return roomType;
+    }
+
+    /**
+     * Gets the name of the guest.
+     *
+     * @return the guest's name
+     */
+    public String getGuestName() {
+        return guestName;
+    }
+
+    /**
+     * Gets the check-in date.
+     *
+     * @return the check-in date
+     */
+    public int getCheckIn() {
+        return checkIn;
+    }
+
+    /**
+     * Gets the check-out date.
+     *
+     * @return the check-out date
+     */
+    public int getCheckOut() {
+        return checkOut;
+    }
+
+    /**
+     * Checks if another request asks for the same booking, whatever its key.
+     *
+     * @param other the other request
+     * @return true if both requests book the same stay for the same guest
+     */
+    public boolean isSameBooking(BookingRequest other) {
+        return hotel == other.hotel && checkIn == other.checkIn && checkOut == other.checkOut
+                && guestName.equals(other.guestName) && equalOrNull(roomName, other.roomName)
+                && equalOrNull(roomType, other.roomType);
+    }
+
+    /**
+     * Compares two strings that may be null.
+     *
+     * @param first  the first string
+     * @param second the second string
+     * @return true if both are null or equal
+     */
+    private static boolean equalOrNull(String first, String second) {
+        return first == null ? second == null : first.equals(second);
+    }
+}
@@ -0,0 +1,164 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The BookingService class books requests from booking channels exactly once
+ * per idempotency key. The outcome of each keyed request, whether a
+ * reservation or a refusal, is kept in a dedupe table for a while; a retry with
+ * the same key gets the original outcome without the room being booked again,
+ * and a retry that arrives while the original is still running waits for it.
+ * Entries expire after a fixed time and the table is bounded, the oldest
+ * entries being dropped first.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class BookingService {
+    private long ttlMillis;
+    private int maxEntries;
+    private ConcurrentMap<String, Outcome> outcomes;
+    private ConcurrentLinkedQueue<Outcome> arrivals; // oldest first, which is also expiry order
+
+    /**
+     * Constructor for creating a BookingService with an empty dedupe table.
+     *
+     * @param ttlMillis  how long an outcome is kept for retries, in milliseconds
+     * @param maxEntries the number of outcomes to keep at most
+     */
+    public BookingService(long ttlMillis, int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+        this.outcomes = new ConcurrentHashMap<String, Outcome>();
+        this.arrivals = new ConcurrentLinkedQueue<Outcome>();
+    }
+
+    /**
+     * Books a request, or returns the outcome of an earlier request with the
+     * same idempotency key.
+     *
+     * @param request the booking request
+     * @return the reservation, or null if the room does not exist or is not
+     *         available
+     * @throws IllegalArgumentException if the key was already used for a
+     *                                  different booking
+     */
+    public Reservation book(BookingRequest request) {
+        String key = request.getIdempotencyKey();
+        if (key == null) {
+            return execute(request);
+        }
+        long now = System.currentTimeMillis();
+        Outcome fresh = new Outcome(key, request, now + ttlMillis);
+        while (true) {
+            Outcome existing = outcomes.putIfAbsent(key, fresh);
+            if (existing == null) {
+                break; // First time this key is seen
+            }
+            if (existing.expiresAt > now) {
+                if (!existing.request.isSameBooking(request)) {
+                    throw new IllegalArgumentException("Idempotency key " + key + " was used for another booking.");
+                }
+                return existing.await(); // A retry, answer as the original was answered
+            }
+            if (outcomes.replace(key, existing, fresh)) {
+                break; // The earlier outcome expired, treat this as a new request
+            }
+        }
+        arrivals.add(fresh);
+        evict(now);
+
+        try {
+            Reservation reservation = execute(request);
+            fresh.result.complete(reservation);
+            return reservation;
+        } catch (RuntimeException ex) {
+            outcomes.remove(key, fresh); // Let a retry try again
+            fresh.result.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Drops outcomes that have expired, and the oldest ones while the table is
+     * over its size.
+     *
+     * @param now the current time in milliseconds
+     */
+    private void evict(long now) {
+        Outcome oldest = arrivals.peek();
+        while (oldest != null && (oldest.expiresAt <= now || outcomes.size() > maxEntries)) {
+            if (arrivals.remove(oldest)) {
+                outcomes.remove(oldest.key, oldest);
+            }
+            oldest = arrivals.peek();
+        }
+    }
+
+    /**
+     * Books a request in its hotel.
+     *
+     * @param request the booking request
+     * @return the reservation, or null if the room does not exist or is not
+     *         available
+     */
+    private static Reservation execute(BookingRequest request) {
+        Hotel hotel = request.getHotel();
+        if (request.getRoomName() == null) {
+            return hotel.bookAutoAssigned(request.getGuestName(), request.getRoomType(), request.getCheckIn(),
+                    request.getCheckOut());
+        }
+        Room room = hotel.getRoomByName(request.getRoomName());
+        if (room == null) {
+            return null;
+        }
+        Reservation reservation = new Reservation(request.getGuestName(), request.getCheckIn(),
+                request.getCheckOut(), room.getName(), hotel, room);
+        return room.addReservation(reservation) ? reservation : null;
+    }
+
+    /**
+     * Gets the number of outcomes in the dedupe table.
+     *
+     * @return the number of outcomes kept
+     */
+    public int getTrackedRequests() {
+        return outcomes.size();
+    }
+
+    /**
+     * The outcome of a keyed request, completed once the request has run.
+     */
+    private static class Outcome {
+        private String key;
+        private BookingRequest request;
+        private long expiresAt;
+        private CompletableFuture<Reservation> result;
+
+        Outcome(String key, BookingRequest request, long expiresAt) {
+            this.key = key;
+            this.request = request;
+            this.expiresAt = expiresAt;
+            this.result = new CompletableFuture<Reservation>();
+        }
+
+        /**
+         * Waits for the request to have run.
+         *
+         * @return the reservation the request produced, or null
+         */
+        Reservation await() {
+            try {
+                return result.join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ex.getCause();
+                }
+                throw ex;
+            }
+        }
+    }
+}
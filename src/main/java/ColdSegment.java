@@ -0,0 +1,182 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The ColdSegment class is an immutable batch of archived reservations stored
+ * in a deflate-compressed file and mapped read-only into memory. The stays are
+ * only decompressed when they are read; the count and revenue of the segment
+ * are kept uncompressed, so revenue totals never touch the file.
+ *
+ * <p>
+ * The file holds a magic number, the number of stays and then the compressed
+ * stays, each as the guest name, room name, room type, check-in and check-out
+ * dates, total cost, price paid and discount code (empty if none).
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class ColdSegment {
+    private static final int MAGIC = 0x48434f4c; // "HCOL"
+    private static final int HEADER_BYTES = 8;
+
+    private Path path;
+    private MappedByteBuffer data;
+    private int count;
+    private double revenue;
+    private double paidRevenue;
+
+    /**
+     * Constructor for creating a ColdSegment over a file already written.
+     *
+     * @param path        the file
+     * @param data        the file, mapped read-only
+     * @param count       the number of stays in the file
+     * @param revenue     the sum of the total costs of the stays
+     * @param paidRevenue the sum of the prices paid for the stays
+     */
+    private ColdSegment(Path path, MappedByteBuffer data, int count, double revenue, double paidRevenue) {
+        this.path = path;
+        this.data = data;
+        this.count = count;
+        this.revenue = revenue;
+        this.paidRevenue = paidRevenue;
+    }
+
+    /**
+     * Writes stays to a new segment file and maps it.
+     *
+     * @param path  the file to create
+     * @param stays the stays
+     * @return the segment
+     * @throws IOException if the file cannot be written or mapped
+     */
+    public static ColdSegment write(Path path, List<ArchivedReservation> stays) throws IOException {
+        double revenue = 0;
+        double paidRevenue = 0;
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (OutputStream file = new BufferedOutputStream(
+                Files.newOutputStream(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))) {
+            DataOutputStream header = new DataOutputStream(file);
+            header.writeInt(MAGIC);
+            header.writeInt(stays.size());
+            DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(file, deflater));
+            for (ArchivedReservation stay : stays) {
+                out.writeUTF(stay.getGuestName());
+                out.writeUTF(stay.getRoomName());
+                out.writeUTF(stay.getRoomType());
+                out.writeByte(stay.getCheckIn());
+                out.writeByte(stay.getCheckOut());
+                out.writeDouble(stay.getTotalCost());
+                out.writeDouble(stay.getPaidPrice());
+                out.writeUTF(stay.getDiscountCode() == null ? "" : stay.getDiscountCode());
+                revenue += stay.getTotalCost();
+                paidRevenue += stay.getPaidPrice();
+            }
+            out.close(); // Finishes the compressed stream and closes the file
+        } finally {
+            deflater.end();
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ColdSegment(path, data, stays.size(), revenue, paidRevenue);
+        }
+    }
+
+    /**
+     * Gets the file of the segment.
+     *
+     * @return the path of the file
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the number of stays in the segment.
+     *
+     * @return the number of stays
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets the size of the segment file.
+     *
+     * @return the number of bytes stored
+     */
+    public int getStoredBytes() {
+        return data.capacity();
+    }
+
+    /**
+     * Gets the sum of the total costs of the stays, without reading them.
+     *
+     * @return the revenue of the segment
+     */
+    public double getRevenue() {
+        return revenue;
+    }
+
+    /**
+     * Gets the sum of the prices paid for the stays, without reading them.
+     *
+     * @return the paid revenue of the segment
+     */
+    public double getPaidRevenue() {
+        return paidRevenue;
+    }
+
+    /**
+     * Reads and decompresses every stay of the segment.
+     *
+     * @return the stays, in the order they were written
+     * @throws IllegalStateException if the file is damaged
+     */
+    public List<ArchivedReservation> read() {
+        if (data.getInt(0) != MAGIC || data.getInt(4) != count) {
+            throw new IllegalStateException("Not a segment of this archive: " + path);
+        }
+        byte[] compressed = new byte[data.capacity() - HEADER_BYTES];
+        ByteBuffer view = data.duplicate(); // Own position, segments are read concurrently
+        view.position(HEADER_BYTES);
+        view.get(compressed);
+        List<ArchivedReservation> stays = new ArrayList<ArchivedReservation>(count);
+        try (DataInputStream in = new DataInputStream(
+                new InflaterInputStream(new ByteArrayInputStream(compressed)))) {
+            for (int i = 0; i < count; i++) {
+                String guestName = in.readUTF();
+                String roomName = in.readUTF();
+                String roomType = in.readUTF();
+                int checkIn = in.readUnsignedByte();
+                int checkOut = in.readUnsignedByte();
+                double totalCost = in.readDouble();
+                double paidPrice = in.readDouble();
+                String discountCode = in.readUTF();
+                stays.add(new ArchivedReservation(guestName, roomName, roomType, checkIn, checkOut, totalCost,
+                        paidPrice, discountCode.isEmpty() ? null : discountCode));
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Damaged segment " + path + ": " + ex.getMessage());
+        }
+        return Collections.unmodifiableList(stays);
+    }
+}
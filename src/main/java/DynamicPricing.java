@@ -0,0 +1,295 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The DynamicPricing class sets the date price modifiers of hotels from their
+ * live occupancy and booking pace. Each night's modifier is
+ *
+ * <pre>
+ * 1 + (occupancy - TARGET_OCCUPANCY) * OCCUPANCY_WEIGHT + pace * PACE_WEIGHT
+ * </pre>
+ *
+ * kept between 0.5 and 1.5 and rounded to a hundredth, where occupancy is the
+ * share of the hotel's rooms booked that night and pace the share booked for
+ * it recently, decaying by half every tick.
+ *
+ * <p>
+ * Bookings and cancellations only mark the nights they touch as dirty, with a
+ * few atomic operations under the room lock, and queue the hotel once. A
+ * background thread wakes every tick, takes the queued hotels and re-evaluates
+ * their dirty nights only, reading occupancy from the hotel's free-room
+ * counters rather than its reservations. Each hotel's changed modifiers are
+ * published together as one price snapshot. Nights still carrying booking pace
+ * stay dirty until the pace has worn off.
+ *
+ * <p>
+ * Modifiers of the hotels the engine manages are overwritten, including ones
+ * set by hand. A change in the number of rooms is picked up the next time one
+ * of the hotel's nights is re-evaluated.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class DynamicPricing {
+    /** Occupancy at which a night is priced at the base price. */
+    public static final double TARGET_OCCUPANCY = 0.6;
+    /** Change of the modifier per unit of occupancy above or below the target. */
+    public static final double OCCUPANCY_WEIGHT = 1.0;
+    /** Change of the modifier per unit of booking pace. */
+    public static final double PACE_WEIGHT = 2.0;
+
+    private static final double PACE_DECAY = 0.5; // Share of the pace left after a tick
+    private static final double PACE_FLOOR = 0.0005; // Pace below this counts as none
+    private static final double MIN_RATE = 0.5;
+    private static final double MAX_RATE = 1.5;
+    private static final long ALL_NIGHTS = ((1L << Hotel.DAYS_IN_MONTH) - 1) << 1; // bits 1 to DAYS_IN_MONTH
+
+    private ConcurrentMap<Hotel, Tracker> trackers;
+    private ConcurrentLinkedQueue<Tracker> dirty;
+    private ScheduledExecutorService scheduler;
+    private long tick;
+    private AtomicLong nightsEvaluated;
+
+    /**
+     * Constructor for creating a DynamicPricing engine that re-evaluates dirty
+     * nights once per tick.
+     *
+     * @param tickMillis the length of one tick in milliseconds
+     */
+    public DynamicPricing(long tickMillis) {
+        this.trackers = new ConcurrentHashMap<Hotel, Tracker>();
+        this.dirty = new ConcurrentLinkedQueue<Tracker>();
+        this.nightsEvaluated = new AtomicLong();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dynamic-pricing");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts pricing a hotel. Every night is evaluated on the next tick.
+     *
+     * @param hotel the hotel
+     */
+    public void addHotel(Hotel hotel) {
+        Tracker tracker = new Tracker(hotel);
+        if (trackers.putIfAbsent(hotel, tracker) == null) {
+            hotel.addRoomListener(tracker);
+            tracker.markDirty(ALL_NIGHTS);
+        }
+    }
+
+    /**
+     * Stops pricing a hotel. Its modifiers stay as they were last set.
+     *
+     * @param hotel the hotel
+     */
+    public void removeHotel(Hotel hotel) {
+        Tracker tracker = trackers.remove(hotel);
+        if (tracker != null) {
+            hotel.removeRoomListener(tracker);
+        }
+    }
+
+    /**
+     * Checks if a hotel is priced by the engine.
+     *
+     * @param hotel the hotel
+     * @return true if the engine sets the hotel's modifiers
+     */
+    public boolean isManaged(Hotel hotel) {
+        return trackers.containsKey(hotel);
+    }
+
+    /**
+     * Gets the number of nights re-evaluated so far, over all hotels.
+     *
+     * @return the number of nights evaluated
+     */
+    public long getNightsEvaluated() {
+        return nightsEvaluated.get();
+    }
+
+    /**
+     * Stops the background thread.
+     */
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * Runs a tick right away on the background thread and waits for it to
+     * finish.
+     */
+    public void runNow() {
+        try {
+            scheduler.submit(this::tick).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * Re-evaluates the dirty nights of every queued hotel. Runs on the
+     * background thread only. A hotel that fails is reported and skipped, so
+     * neither the other hotels nor the later ticks are affected: an exception
+     * escaping the tick would cancel the schedule without a word.
+     */
+    private void tick() {
+        tick++;
+        int queued = dirty.size(); // Hotels queued during this tick wait for the next one
+        for (int i = 0; i < queued; i++) {
+            Tracker tracker = dirty.poll();
+            if (tracker == null) {
+                break;
+            }
+            tracker.queued.set(false); // Bookings from now on queue the hotel again
+            if (trackers.get(tracker.hotel) == tracker) {
+                try {
+                    tracker.evaluate(tracker.dirtyNights.getAndSet(0));
+                } catch (RuntimeException ex) {
+                    System.err.println("Dynamic pricing of " + tracker.hotel.getName() + " failed: " + ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Clamps a modifier to the allowed range and rounds it to a hundredth.
+     *
+     * @param rate the modifier
+     * @return the modifier to publish
+     */
+    static double bound(double rate) {
+        return Math.round(Math.max(MIN_RATE, Math.min(MAX_RATE, rate)) * 100) / 100.0;
+    }
+
+    /**
+     * Follows the bookings of one hotel. The listener side runs under room
+     * locks and only touches atomics; the pricing side runs on the background
+     * thread.
+     */
+    private class Tracker implements RoomListener {
+        private Hotel hotel;
+        private AtomicLong dirtyNights; // bit d is set when night d needs re-evaluating
+        private AtomicIntegerArray newBookings; // nights booked since the night was last evaluated
+        private AtomicBoolean queued;
+        private double[] pace; // decayed share of rooms recently booked, background thread only
+        private long[] paceTick; // tick the pace of each night was last brought up to date
+        private int lastRooms;
+
+        Tracker(Hotel hotel) {
+            this.hotel = hotel;
+            this.dirtyNights = new AtomicLong();
+            this.newBookings = new AtomicIntegerArray(Hotel.DAYS_IN_MONTH + 1);
+            this.queued = new AtomicBoolean();
+            this.pace = new double[Hotel.DAYS_IN_MONTH + 1];
+            this.paceTick = new long[Hotel.DAYS_IN_MONTH + 1];
+        }
+
+        @Override
+        public void nightsBooked(Room room, int checkIn, int checkOut) {
+            int first = Math.max(checkIn, 1);
+            int last = Math.min(checkOut, Hotel.DAYS_IN_MONTH + 1);
+            for (int date = first; date < last; date++) {
+                newBookings.incrementAndGet(date);
+            }
+            markDirty(nights(first, last));
+        }
+
+        @Override
+        public void nightsReleased(Room room, int checkIn, int checkOut) {
+            markDirty(nights(Math.max(checkIn, 1), Math.min(checkOut, Hotel.DAYS_IN_MONTH + 1)));
+        }
+
+        /**
+         * Marks nights for re-evaluation and queues the hotel if it is not
+         * queued yet.
+         *
+         * @param nights the nights, as a mask
+         */
+        void markDirty(long nights) {
+            if (nights == 0) {
+                return;
+            }
+            dirtyNights.getAndAccumulate(nights, (current, added) -> current | added);
+            if (queued.compareAndSet(false, true)) {
+                dirty.add(this);
+            }
+        }
+
+        /**
+         * Recomputes the modifiers of dirty nights and publishes the ones that
+         * changed.
+         *
+         * @param nights the dirty nights, as a mask
+         */
+        void evaluate(long nights) {
+            int rooms = hotel.getTotalRooms();
+            if (rooms != lastRooms) {
+                nights = ALL_NIGHTS; // Occupancy of every night changed
+                lastRooms = rooms;
+            }
+            if (rooms == 0) {
+                return;
+            }
+            PriceSnapshot pricing = hotel.getPriceSnapshot();
+            RoomInventory inventory = hotel.getInventory();
+            Map<Integer, Double> changes = new HashMap<Integer, Double>();
+            long stillMoving = 0;
+            while (nights != 0) {
+                int date = Long.numberOfTrailingZeros(nights);
+                nights &= nights - 1;
+                if (date < 1 || date > Hotel.DAYS_IN_MONTH) {
+                    continue;
+                }
+                double decayed = pace[date] * Math.pow(PACE_DECAY, tick - paceTick[date]);
+                pace[date] = decayed + (double) newBookings.getAndSet(date, 0) / rooms;
+                paceTick[date] = tick;
+                if (pace[date] < PACE_FLOOR) {
+                    pace[date] = 0;
+                } else {
+                    stillMoving |= 1L << date; // Look again next tick while the pace wears off
+                }
+                double occupancy = (double) (rooms - inventory.getFreeCount(date)) / rooms;
+                double rate = bound(1 + (occupancy - TARGET_OCCUPANCY) * OCCUPANCY_WEIGHT
+                        + pace[date] * PACE_WEIGHT);
+                if (rate != pricing.getModifier(date)) {
+                    changes.put(date, rate);
+                }
+                nightsEvaluated.incrementAndGet();
+            }
+            hotel.setDatePriceModifiers(changes);
+            markDirty(stillMoving);
+        }
+    }
+
+    /**
+     * Gets the mask of the nights of a stay.
+     *
+     * @param checkIn  the first night
+     * @param checkOut the night after the last one
+     * @return the mask, with bit d set for each night d
+     */
+    private static long nights(int checkIn, int checkOut) {
+        if (checkIn >= checkOut) {
+            return 0;
+        }
+        return ((1L << (checkOut - checkIn)) - 1) << checkIn;
+    }
+}
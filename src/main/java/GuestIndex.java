@@ -0,0 +1,506 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The GuestIndex class finds reservations by guest name across every hotel
+ * registered with it. Names are normalized (trimmed, lower case, single
+ * spaces) and kept in a compressed trie, where each edge holds a run of
+ * characters and each node where a name ends holds that name's reservations.
+ * Looking up a name or a prefix walks one path of the trie, so it costs the
+ * length of the name rather than the number of reservations. The index listens
+ * to the rooms of its hotels and is updated as reservations are added and
+ * removed. Archived reservations leave the index.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class GuestIndex implements RoomListener {
+    private Node root;
+    private Set<Hotel> hotels;
+    private int size;
+    private ReentrantReadWriteLock lock;
+
+    /**
+     * Constructor for creating an empty GuestIndex.
+     */
+    public GuestIndex() {
+        this.root = new Node("");
+        this.hotels = Collections.newSetFromMap(new IdentityHashMap<Hotel, Boolean>());
+        this.lock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Registers a hotel: indexes its reservations and follows its rooms from
+     * now on. Registering a hotel again does nothing.
+     *
+     * @param hotel the hotel
+     */
+    public void addHotel(Hotel hotel) {
+        lock.writeLock().lock();
+        try {
+            if (!hotels.add(hotel)) {
+                return;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        hotel.addRoomListener(this); // From here on, changes arrive as events
+        for (Room room : hotel.getRooms()) {
+            for (Reservation reservation : room.getReservations()) {
+                lock.writeLock().lock();
+                try {
+                    // A removal published before this check is skipped; a later one waits for the lock
+                    if (room.getReservations().contains(reservation)) {
+                        insert(reservation);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Unregisters a hotel and drops its reservations from the index.
+     *
+     * @param hotel the hotel
+     */
+    public void removeHotel(Hotel hotel) {
+        lock.writeLock().lock();
+        try {
+            if (!hotels.remove(hotel)) {
+                return;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        hotel.removeRoomListener(this);
+        // Read the hotel before locking the index: listeners hold room locks while they wait for it
+        List<Reservation> reservations = new ArrayList<Reservation>();
+        for (Room room : hotel.getRooms()) {
+            reservations.addAll(room.getReservations());
+        }
+        lock.writeLock().lock();
+        try {
+            for (Reservation reservation : reservations) {
+                delete(reservation);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void nightsBooked(Room room, int checkIn, int checkOut) {
+        // Only whole reservations are indexed
+    }
+
+    @Override
+    public void nightsReleased(Room room, int checkIn, int checkOut) {
+        // Only whole reservations are indexed
+    }
+
+    @Override
+    public void reservationAdded(Room room, Reservation reservation) {
+        lock.writeLock().lock();
+        try {
+            insert(reservation);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void reservationRemoved(Room room, Reservation reservation) {
+        lock.writeLock().lock();
+        try {
+            delete(reservation);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void reservationArchived(Room room, Reservation reservation) {
+        lock.writeLock().lock();
+        try {
+            delete(reservation); // Found in the hotel's archive from now on
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of reservations in the index.
+     *
+     * @return the number of indexed reservations
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the reservations of a guest, matching the name exactly.
+     *
+     * @param guestName the name of the guest
+     * @return the reservations of the guest
+     */
+    public List<Reservation> findExact(String guestName) {
+        List<Reservation> found = new ArrayList<Reservation>();
+        int guestId = Reservation.NAMES.lookup(guestName);
+        if (guestId == SymbolTable.NONE) {
+            return found; // No reservation was ever made under this name
+        }
+        for (Reservation reservation : findIgnoreCase(guestName)) {
+            if (reservation.getGuestId() == guestId) {
+                found.add(reservation);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the reservations of a guest, ignoring case and extra spaces.
+     *
+     * @param guestName the name of the guest
+     * @return the reservations of the guest
+     */
+    public List<Reservation> findIgnoreCase(String guestName) {
+        String key = normalize(guestName);
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int matched = 0;
+            while (matched < key.length()) {
+                Node child = node.child(key.charAt(matched));
+                if (child == null || !key.startsWith(child.label, matched)) {
+                    return new ArrayList<Reservation>();
+                }
+                node = child;
+                matched += child.label.length();
+            }
+            return node.postings == null ? new ArrayList<Reservation>()
+                    : new ArrayList<Reservation>(node.postings);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds reservations of guests whose names start with a prefix, ignoring
+     * case, in alphabetical order of the names.
+     *
+     * @param prefix the start of the names
+     * @param limit  the maximum number of reservations to return
+     * @return the reservations found
+     */
+    public List<Reservation> findByPrefix(String prefix, int limit) {
+        List<Reservation> found = new ArrayList<Reservation>();
+        lock.readLock().lock();
+        try {
+            Node node = prefixNode(normalizePrefix(prefix));
+            if (node != null) {
+                collect(node, found, limit, false);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    /**
+     * Suggests guest names starting with a prefix, ignoring case, for
+     * type-ahead.
+     *
+     * @param prefix the start of the names
+     * @param limit  the maximum number of names to return
+     * @return the distinct guest names found, in alphabetical order
+     */
+    public List<String> suggest(String prefix, int limit) {
+        List<Reservation> found = new ArrayList<Reservation>();
+        lock.readLock().lock();
+        try {
+            Node node = prefixNode(normalizePrefix(prefix));
+            if (node != null) {
+                collect(node, found, limit, true);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<String> names = new ArrayList<String>(found.size());
+        for (Reservation reservation : found) {
+            names.add(reservation.getGuestName());
+        }
+        return names;
+    }
+
+    /**
+     * Normalizes a guest name for the index: trimmed, lower case, with single
+     * spaces between words.
+     *
+     * @param name the name
+     * @return the normalized name
+     */
+    static String normalize(String name) {
+        return name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Normalizes the start of a guest name like {@link #normalize(String)}, but
+     * keeps a trailing space, which marks the end of a word.
+     *
+     * @param prefix the start of a name
+     * @return the normalized prefix
+     */
+    static String normalizePrefix(String prefix) {
+        String collapsed = prefix.replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        return collapsed.startsWith(" ") ? collapsed.substring(1) : collapsed;
+    }
+
+    /**
+     * Finds the node under which every name starts with a prefix. Called with a
+     * lock held.
+     *
+     * @param key the normalized prefix
+     * @return the node, or null if no name starts with the prefix
+     */
+    private Node prefixNode(String key) {
+        Node node = root;
+        int matched = 0;
+        while (matched < key.length()) {
+            Node child = node.child(key.charAt(matched));
+            if (child == null) {
+                return null;
+            }
+            int common = commonPrefix(child.label, key, matched);
+            if (matched + common == key.length()) {
+                return child; // The prefix ends on or inside the edge to this child
+            }
+            if (common < child.label.length()) {
+                return null;
+            }
+            node = child;
+            matched += common;
+        }
+        return node;
+    }
+
+    /**
+     * Collects reservations from a subtree in alphabetical order. Called with a
+     * lock held.
+     *
+     * @param node    the root of the subtree
+     * @param found   the list to add to
+     * @param limit   the number of entries to stop at
+     * @param oneEach true to take only one reservation per name
+     */
+    private static void collect(Node node, List<Reservation> found, int limit, boolean oneEach) {
+        if (node.postings != null) {
+            for (Reservation reservation : node.postings) {
+                if (found.size() >= limit) {
+                    return;
+                }
+                found.add(reservation);
+                if (oneEach) {
+                    break;
+                }
+            }
+        }
+        for (Node child : node.children) {
+            if (found.size() >= limit) {
+                return;
+            }
+            collect(child, found, limit, oneEach);
+        }
+    }
+
+    /**
+     * Adds a reservation under its guest's name. Called with the write lock
+     * held.
+     *
+     * @param reservation the reservation
+     */
+    private void insert(Reservation reservation) {
+        String key = normalize(reservation.getGuestName());
+        Node node = root;
+        int matched = 0;
+        while (matched < key.length()) {
+            int index = node.indexOf(key.charAt(matched));
+            if (index < 0) {
+                Node leaf = new Node(key.substring(matched));
+                node.addChild(leaf);
+                node = leaf;
+                break;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, key, matched);
+            if (common < child.label.length()) {
+                // Split the edge where the name leaves it
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.addChild(child);
+                node.children[index] = middle;
+                child = middle;
+            }
+            node = child;
+            matched += common;
+        }
+        if (node.postings == null) {
+            node.postings = new ArrayList<Reservation>(1);
+        }
+        for (Reservation posting : node.postings) {
+            if (posting == reservation) {
+                return; // Already indexed
+            }
+        }
+        node.postings.add(reservation);
+        size++;
+    }
+
+    /**
+     * Removes a reservation from under its guest's name, pruning and merging
+     * nodes left without reservations. Called with the write lock held.
+     *
+     * @param reservation the reservation
+     */
+    private void delete(Reservation reservation) {
+        String key = normalize(reservation.getGuestName());
+        List<Node> path = new ArrayList<Node>();
+        Node node = root;
+        int matched = 0;
+        while (matched < key.length()) {
+            Node child = node.child(key.charAt(matched));
+            if (child == null || !key.startsWith(child.label, matched)) {
+                return; // Not indexed
+            }
+            path.add(node);
+            node = child;
+            matched += child.label.length();
+        }
+        if (node.postings == null || !removeIdentical(node.postings, reservation)) {
+            return;
+        }
+        size--;
+        if (!node.postings.isEmpty()) {
+            return;
+        }
+        node.postings = null;
+        // Prune the emptied node, then merge a parent left with a single child
+        for (int i = path.size() - 1; i >= 0 && node != root; i--) {
+            Node parent = path.get(i);
+            if (node.postings == null && node.children.length == 0) {
+                parent.removeChild(node);
+            } else if (node.postings == null && node.children.length == 1) {
+                Node only = node.children[0];
+                only.label = node.label + only.label;
+                parent.replaceChild(node, only);
+            }
+            node = parent;
+        }
+    }
+
+    /**
+     * Removes an object from a list by identity.
+     *
+     * @param list        the list
+     * @param reservation the object to remove
+     * @return true if the object was in the list
+     */
+    private static boolean removeIdentical(List<Reservation> list, Reservation reservation) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == reservation) {
+                list.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts the characters an edge label shares with a key from an offset.
+     *
+     * @param label  the edge label
+     * @param key    the key
+     * @param offset the offset into the key
+     * @return the length of the common prefix
+     */
+    private static int commonPrefix(String label, String key, int offset) {
+        int length = Math.min(label.length(), key.length() - offset);
+        int common = 0;
+        while (common < length && label.charAt(common) == key.charAt(offset + common)) {
+            common++;
+        }
+        return common;
+    }
+
+    /**
+     * A node of the trie. Its children are kept sorted by the first character of
+     * their labels.
+     */
+    private static class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private String label;
+        private Node[] children;
+        private List<Reservation> postings; // null unless a name ends here
+
+        Node(String label) {
+            this.label = label;
+            this.children = NO_CHILDREN;
+        }
+
+        int indexOf(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char key = children[middle].label.charAt(0);
+                if (key < first) {
+                    low = middle + 1;
+                } else if (key > first) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        Node child(char first) {
+            int index = indexOf(first);
+            return index < 0 ? null : children[index];
+        }
+
+        void addChild(Node child) {
+            int insertAt = -(indexOf(child.label.charAt(0)) + 1);
+            Node[] grown = Arrays.copyOf(children, children.length + 1);
+            System.arraycopy(children, insertAt, grown, insertAt + 1, children.length - insertAt);
+            grown[insertAt] = child;
+            children = grown;
+        }
+
+        void removeChild(Node child) {
+            int index = indexOf(child.label.charAt(0));
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, index);
+            System.arraycopy(children, index + 1, shrunk, index, children.length - index - 1);
+            children = shrunk;
+        }
+
+        void replaceChild(Node child, Node replacement) {
+            children[indexOf(child.label.charAt(0))] = replacement;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The HoldManager class places tentative holds on rooms and expires them once
+ * their time-to-live runs out. Expiry deadlines are kept on a hierarchical
+ * timing wheel advanced by a background thread, so outstanding holds cost
+ * nothing until they come due and no room is ever scanned for expired holds.
+ * 
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class HoldManager {
+    private static final int WHEEL_SIZE = 512;
+
+    private TimingWheel wheel;
+    private ScheduledExecutorService ticker;
+
+    /**
+     * Constructor for creating a new HoldManager that checks for expired holds
+     * once per tick.
+     *
+     * @param tickMillis the length of one tick in milliseconds
+     */
+    public HoldManager(long tickMillis) {
+        this.wheel = new TimingWheel(tickMillis, WHEEL_SIZE, System.currentTimeMillis());
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Places a hold on a room for the nights of a stay.
+     *
+     * @param room      the room to hold
+     * @param guestName the name of the guest
+     * @param checkIn   the check-in date
+     * @param checkOut  the check-out date
+     * @param ttlMillis how long the hold lasts, in milliseconds
+     * @return the hold, or null if the room is not available
+     */
+    public RoomHold placeHold(Room room, String guestName, int checkIn, int checkOut, long ttlMillis) {
+        RoomHold hold = room.placeHold(guestName, checkIn, checkOut, System.currentTimeMillis() + ttlMillis);
+        if (hold == null) {
+            return null;
+        }
+        TimingWheel.Timeout timeout = new TimingWheel.Timeout(hold.getExpiresAt(), () -> room.releaseHold(hold));
+        hold.setTimeout(timeout);
+        if (!wheel.schedule(timeout)) {
+            timeout.run(); // Already expired
+        }
+        return hold;
+    }
+
+    /**
+     * Confirms an active hold into a reservation for the same room and nights.
+     *
+     * @param hold  the hold to confirm
+     * @param hotel the hotel of the held room
+     * @return the reservation, or null if the hold has expired or was released
+     */
+    public Reservation confirm(RoomHold hold, Hotel hotel) {
+        if (System.currentTimeMillis() >= hold.getExpiresAt()) {
+            release(hold); // Expired but not yet reached by the wheel
+            return null;
+        }
+        Room room = hold.getRoom();
+        Reservation reservation = new Reservation(hold.getGuestName(), hold.getCheckIn(), hold.getCheckOut(),
+                room.getName(), hotel, room);
+        if (!room.confirmHold(hold, reservation)) {
+            return null;
+        }
+        hold.getTimeout().cancel();
+        return reservation;
+    }
+
+    /**
+     * Releases an active hold before it expires.
+     *
+     * @param hold the hold to release
+     * @return true if the hold was released, false if it was no longer active
+     */
+    public boolean release(RoomHold hold) {
+        hold.getTimeout().cancel();
+        return hold.getRoom().releaseHold(hold);
+    }
+
+    /**
+     * Advances the timing wheel to the current time and releases the holds that
+     * have expired.
+     */
+    private void tick() {
+        // The wheel has already dropped these timeouts, so each must run even if another fails
+        for (TimingWheel.Timeout timeout : wheel.advanceClock(System.currentTimeMillis())) {
+            try {
+                timeout.run();
+            } catch (RuntimeException ex) {
+                System.err.println("Hold expiry failed: " + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stops the background expiry thread.
+     */
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+}
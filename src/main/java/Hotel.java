@@ -1,34 +1,85 @@
 import java.util.List;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Represents a hotel with a collection of rooms and price modifiers based on
- * dates.
+ * dates. Reports read a {@link HotelSnapshot}, a consistent point-in-time view
+ * of the hotel taken without blocking bookings.
  * 
  * @author James Foo
  * @author Zami Diamante
  * @version 1.0
  */
 public class Hotel {
-    private String name;
-    private double basePrice;
-    private List<Room> rooms;
-    private Map<Integer, Double> datePriceModifiers;
+    /** Number of bookable nights in a month; check-out may fall on the day after. */
+    public static final int DAYS_IN_MONTH = 30;
+    /** Default maximum number of rooms in a hotel. */
+    public static final int DEFAULT_MAX_ROOMS = 50;
+    private static final int SNAPSHOT_ATTEMPTS = 4; // Optimistic attempts before locking the rooms
+
+    private volatile String name;
+    private Room[] slots; // rooms by slot, null marks a removed room
+    private int slotCount; // slots in use, including removed ones
+    private int roomCount;
+    private int slotEpoch; // incremented whenever compaction renumbers the slots
+    private long version; // incremented whenever rooms are added or removed or the hotel is renamed
+    private Map<String, Room> roomsByName;
+    private volatile int maxRooms;
+    private AtomicReference<PriceSnapshot> pricing;
+    private RoomInventory inventory;
+    private RoomAllocator allocator;
+    private Waitlist waitlist;
+    private List<RoomListener> roomListeners; // attached to every room of the hotel
+    private AtomicInteger activeGroupWrites; // group bookings currently changing several rooms
+    private AtomicLong groupWriteCount; // group bookings started so far
+    private AtomicLong modificationVersion; // increased by any change to the hotel or its rooms
+    private RoomListener changeTracker;
+    private ReservationArchive archive;
+    private volatile int closedBefore; // nights before this date are closed in every room, written under this
 
     /**
      * Constructs a Hotel with the specified name and base price.
-     * Initializes the room list and sets default price modifiers for each day of
-     * the month.
+     * Initializes the room list and publishes the first price snapshot, with the
+     * default price modifier for each day of the month.
      * 
      * @param name      the name of the hotel
      * @param basePrice the base price of rooms in the hotel
      */
     public Hotel(String name, double basePrice) {
         this.name = name;
-        this.basePrice = basePrice;
-        this.rooms = new ArrayList<Room>();
+        this.slots = new Room[16];
+        this.roomsByName = new ConcurrentHashMap<String, Room>();
+        this.maxRooms = DEFAULT_MAX_ROOMS;
+        this.inventory = new RoomInventory();
+        this.allocator = new RoomAllocator();
+        this.waitlist = new Waitlist(this);
+        this.roomListeners = new CopyOnWriteArrayList<RoomListener>();
+        this.activeGroupWrites = new AtomicInteger();
+        this.groupWriteCount = new AtomicLong();
+        this.modificationVersion = new AtomicLong();
+        this.archive = new ReservationArchive();
+        this.closedBefore = 1;
+        this.changeTracker = new RoomListener() {
+            @Override
+            public void nightsBooked(Room room, int checkIn, int checkOut) {
+            }
+
+            @Override
+            public void nightsReleased(Room room, int checkIn, int checkOut) {
+            }
+
+            @Override
+            public void roomChanged(Room room) {
+                modificationVersion.incrementAndGet();
+            }
+        };
         /*
          * // Adding default rooms // set to 10 instead of 1
          * for (int i = 1; i <= 10; i++) {
@@ -40,12 +91,8 @@ public class Hotel {
          * rooms.add(new RoomExecutive("Room " + i, basePrice));
          * }
          */
-        // Initialize datePriceModifiers map
-        this.datePriceModifiers = new HashMap<Integer, Double>();
-        // Set default price rates to 100% for each day of the month (1 to 30)
-        for (int date = 1; date <= 30; date++) {
-            datePriceModifiers.put(date, 1.0); // 100% of the base price
-        }
+        // Price rates default to 100% for each day of the month (1 to 30)
+        this.pricing = new AtomicReference<PriceSnapshot>(PriceSnapshot.initial(basePrice));
     }
 
     /**
@@ -62,8 +109,21 @@ public class Hotel {
      * 
      * @param name the new name of the hotel
      */
-    public void setName(String name) {
+    public synchronized void setName(String name) {
         this.name = name;
+        version++;
+        modificationVersion.incrementAndGet();
+    }
+
+    /**
+     * Gets the modification version of the hotel, which increases with every
+     * change to the hotel, its prices or any of its rooms. Anything computed from
+     * the hotel stays valid while the version is unchanged.
+     * 
+     * @return the modification version
+     */
+    public long getModificationVersion() {
+        return modificationVersion.get();
     }
 
     /**
@@ -72,34 +132,183 @@ public class Hotel {
      * @return the base price of the rooms
      */
     public double getBasePrice() {
-        return basePrice;
+        return pricing.get().getBasePrice();
     }
 
     /**
-     * Sets the base price of the rooms.
+     * Sets the base price of the rooms. Publishes a new price snapshot and
+     * reprices every room according to its room type.
      * 
      * @param basePrice the new base price for rooms
      */
-    public void setBasePrice(double basePrice) {
-        this.basePrice = basePrice;
+    public synchronized void setBasePrice(double basePrice) {
+        PriceSnapshot snapshot = pricing.updateAndGet(current -> current.withBasePrice(basePrice));
+        modificationVersion.incrementAndGet();
+        for (Room room : getRooms()) {
+            room.setPrice(snapshot.getRoomPrice(room.getRoomType()));
+        }
+    }
+
+    /**
+     * Gets the current price snapshot of the hotel. The snapshot is immutable,
+     * so every price read from it belongs to the same pricing version.
+     * 
+     * @return the current price snapshot
+     */
+    public PriceSnapshot getPriceSnapshot() {
+        return pricing.get();
+    }
+
+    /**
+     * Takes a consistent snapshot of the hotel. The room snapshots are collected
+     * twice without locking; if nothing changed in between and no group booking
+     * was under way, they all held at the same moment. Under heavy booking
+     * traffic the optimistic attempts may keep failing, and the rooms are then
+     * briefly locked to collect them.
+     * 
+     * @return the snapshot of the hotel
+     */
+    public HotelSnapshot snapshot() {
+        for (int attempt = 0; attempt < SNAPSHOT_ATTEMPTS; attempt++) {
+            long groupWrites = groupWriteCount.get();
+            long archiveMoves = archive.getSequence();
+            if (activeGroupWrites.get() > 0 || (archiveMoves & 1) != 0) {
+                continue; // A group booking or archiving run may have changed only some of its rooms so far
+            }
+            List<Room> rooms;
+            long structure;
+            String hotelName;
+            synchronized (this) {
+                rooms = getRooms();
+                structure = version;
+                hotelName = name;
+            }
+            PriceSnapshot prices = pricing.get();
+            List<RoomSnapshot> states = new ArrayList<RoomSnapshot>(rooms.size());
+            for (Room room : rooms) {
+                states.add(room.getSnapshot());
+            }
+            List<ColdSegment> archived = new ArrayList<ColdSegment>(archive.getSegments());
+            boolean unchanged = prices == pricing.get() && activeGroupWrites.get() == 0
+                    && groupWriteCount.get() == groupWrites && archive.getSequence() == archiveMoves;
+            for (int i = 0; unchanged && i < rooms.size(); i++) {
+                unchanged = rooms.get(i).getSnapshot() == states.get(i);
+            }
+            synchronized (this) {
+                if (unchanged && structure == version) {
+                    return new HotelSnapshot(structure, hotelName, prices, states, archived);
+                }
+            }
+        }
+        return lockedSnapshot();
+    }
+
+    /**
+     * Takes a snapshot with every room locked, in ascending slot order.
+     * 
+     * @return the snapshot of the hotel
+     */
+    private synchronized HotelSnapshot lockedSnapshot() {
+        List<Room> rooms = getRooms();
+        int locked = 0;
+        try {
+            for (Room room : rooms) {
+                room.lock();
+                locked++;
+            }
+            List<RoomSnapshot> states = new ArrayList<RoomSnapshot>(rooms.size());
+            for (Room room : rooms) {
+                states.add(room.getSnapshot());
+            }
+            // Stays move into the archive with every room locked, so none is half-way
+            return new HotelSnapshot(version, name, pricing.get(), states,
+                    new ArrayList<ColdSegment>(archive.getSegments()));
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                rooms.get(i).unlock();
+            }
+        }
     }
 
     /**
-     * Gets the list of rooms in the hotel.
+     * Gets the list of rooms in the hotel, in slot order.
      * 
-     * @return the list of rooms
+     * @return a copy of the list of rooms
      */
-    public List<Room> getRooms() {
+    public synchronized List<Room> getRooms() {
+        List<Room> rooms = new ArrayList<Room>(roomCount);
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slots[slot] != null) {
+                rooms.add(slots[slot]);
+            }
+        }
         return rooms;
     }
 
+    /**
+     * Gets the room in a slot. Slots are dense integers below
+     * {@link #getSlotCapacity()} that stay the same for a room until the slots
+     * are compacted, so they can index per-room arrays and bitmaps.
+     * 
+     * @param slot the slot of the room
+     * @return the room in the slot, or null if the slot is empty
+     */
+    public synchronized Room getRoomAt(int slot) {
+        return slot >= 0 && slot < slotCount ? slots[slot] : null;
+    }
+
+    /**
+     * Gets the number of slots in use, including those of removed rooms. Arrays
+     * indexed by slot need this many entries.
+     * 
+     * @return the slot capacity
+     */
+    public synchronized int getSlotCapacity() {
+        return slotCount;
+    }
+
+    /**
+     * Gets the slot epoch, which changes every time compaction renumbers the
+     * room slots. Arrays indexed by slot must be rebuilt when it changes.
+     * 
+     * @return the slot epoch
+     */
+    public synchronized int getSlotEpoch() {
+        return slotEpoch;
+    }
+
     /**
      * Gets the total number of rooms in the hotel.
      * 
      * @return the number of rooms
      */
-    public int getTotalRooms() {
-        return rooms.size();
+    public synchronized int getTotalRooms() {
+        return roomCount;
+    }
+
+    /**
+     * Gets the maximum number of rooms the hotel may have.
+     * 
+     * @return the maximum number of rooms
+     */
+    public int getMaxRooms() {
+        return maxRooms;
+    }
+
+    /**
+     * Sets the maximum number of rooms the hotel may have.
+     * 
+     * @param maxRooms the new maximum number of rooms
+     * @throws IllegalArgumentException if the maximum is below 1 or below the
+     *                                  current number of rooms
+     */
+    public synchronized void setMaxRooms(int maxRooms) {
+        if (maxRooms < Math.max(1, roomCount)) {
+            throw new IllegalArgumentException("Room limit must be at least 1 and at least the current "
+                    + roomCount + " rooms: " + maxRooms);
+        }
+        this.maxRooms = maxRooms;
+        modificationVersion.incrementAndGet();
     }
 
     /**
@@ -109,21 +318,61 @@ public class Hotel {
      * @return the room with the specified name, or null if no such room exists
      */
     public Room getRoomByName(String name) {
-        for (Room room : rooms) {
-            if (room.getName().equals(name)) {
-                return room;
-            }
+        if (name == null) {
+            return null;
         }
-        return null; // Room not found
+        return roomsByName.get(name); // null if the room is not found
     }
 
     /**
-     * Gets the map of date-based price modifiers.
+     * Gets the map of date-based price modifiers of the current price snapshot.
      * 
-     * @return the map of date-based price modifiers
+     * @return the read-only map of date-based price modifiers
      */
     public Map<Integer, Double> getDatePriceModifiers() {
-        return datePriceModifiers;
+        return pricing.get().getModifierMap();
+    }
+
+    /**
+     * Gets the per-room-type inventory of free rooms for each night.
+     * 
+     * @return the room inventory
+     */
+    public RoomInventory getInventory() {
+        return inventory;
+    }
+
+    /**
+     * Gets the waitlist of stays waiting for rooms of the hotel to free up.
+     * 
+     * @return the waitlist
+     */
+    public Waitlist getWaitlist() {
+        return waitlist;
+    }
+
+    /**
+     * Registers a listener on every room of the hotel, present and future.
+     * 
+     * @param listener the listener to add
+     */
+    public synchronized void addRoomListener(RoomListener listener) {
+        roomListeners.add(listener);
+        for (Room room : getRooms()) {
+            room.addRoomListener(listener);
+        }
+    }
+
+    /**
+     * Unregisters a listener added with {@link #addRoomListener(RoomListener)}.
+     * 
+     * @param listener the listener to remove
+     */
+    public synchronized void removeRoomListener(RoomListener listener) {
+        roomListeners.remove(listener);
+        for (Room room : getRooms()) {
+            room.removeRoomListener(listener);
+        }
     }
 
     /**
@@ -131,8 +380,167 @@ public class Hotel {
      * 
      * @param room the room to be added
      */
-    public void addRoom(Room room) {
-        rooms.add(room);
+    public synchronized void addRoom(Room room) {
+        room.closeBefore(closedBefore); // Past nights are closed in new rooms too
+        if (slotCount == slots.length) {
+            slots = Arrays.copyOf(slots, slotCount * 2);
+        }
+        slots[slotCount] = room;
+        room.setSlot(slotCount++);
+        roomCount++;
+        version++;
+        roomsByName.put(room.getName(), room);
+        inventory.roomAdded(room);
+        allocator.roomAdded(room);
+        room.addRoomListener(inventory); // Keep the free counts in step with bookings
+        room.addRoomListener(allocator);
+        room.addRoomListener(changeTracker);
+        room.addRoomListener(waitlist); // Freed nights go to waiting guests
+        for (RoomListener listener : roomListeners) {
+            room.addRoomListener(listener);
+        }
+        modificationVersion.incrementAndGet();
+    }
+
+    /**
+     * Gets the archive of the hotel's checked-out stays.
+     * 
+     * @return the reservation archive
+     */
+    public ReservationArchive getArchive() {
+        return archive;
+    }
+
+    /**
+     * Gets the first night still open. Nights before it can no longer be
+     * booked, and stays with nights before it can no longer be cancelled or
+     * moved off them.
+     * 
+     * @return the first open night, 1 if nothing has been closed
+     */
+    public int getClosedBefore() {
+        return closedBefore;
+    }
+
+    /**
+     * Moves the stays checked out by a date from the rooms into a new
+     * compressed segment of the archive, so that the rooms hold only current
+     * and future stays. The nights before the date are closed first: they can
+     * no longer be booked, stays with nights before it can no longer be
+     * cancelled or moved off them, and waiting entries checking in before it
+     * are expired. The segment is written without holding any room; once all
+     * the rooms are locked, the stays are listed again, and if they changed in
+     * between, the rooms are let go, the segment is deleted and written again.
+     * The stays then leave every room at once. Their nights stay booked, so the
+     * free room counts of past dates are kept.
+     * 
+     * @param today the current date; stays checked out on or before it are
+     *              archived
+     * @return the number of stays archived
+     * @throws java.io.UncheckedIOException if the segment cannot be written, in
+     *                                      which case the stays stay in the rooms
+     */
+    public int archiveCheckedOut(int today) {
+        synchronized (archive) { // One run at a time
+            int watermark = Math.min(today, DAYS_IN_MONTH + 1);
+            if (watermark <= archive.getWatermark()) {
+                return 0;
+            }
+            List<Room> rooms;
+            synchronized (this) {
+                closedBefore = Math.max(closedBefore, watermark);
+                rooms = getRooms();
+                for (Room room : rooms) {
+                    room.closeBefore(watermark);
+                }
+            }
+            waitlist.expireBefore(watermark);
+
+            while (true) {
+                List<Reservation> checkedOut = checkedOutBy(rooms, watermark);
+                ColdSegment segment = checkedOut.isEmpty() ? null : archive.write(toArchived(checkedOut));
+                int moved = -1;
+                int locked = 0;
+                try {
+                    for (Room room : rooms) {
+                        room.lock();
+                        locked++;
+                    }
+                    if (checkedOutBy(rooms, watermark).equals(checkedOut)) {
+                        moved = moveToArchive(rooms, watermark, segment);
+                    }
+                } finally {
+                    for (int i = locked - 1; i >= 0; i--) {
+                        rooms.get(i).unlock();
+                    }
+                    if (moved < 0) {
+                        archive.discard(segment); // Not published, write what leaves the rooms now
+                    }
+                }
+                if (moved >= 0) {
+                    modificationVersion.incrementAndGet();
+                    return moved;
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes the stays checked out by a date out of the rooms and publishes
+     * their segment, as one move that snapshots never see half done. Called
+     * with every room locked.
+     *
+     * @param rooms     the rooms, in slot order
+     * @param watermark the date
+     * @param segment   the segment of the stays, or null if there are none
+     * @return the number of stays moved
+     */
+    private int moveToArchive(List<Room> rooms, int watermark, ColdSegment segment) {
+        int moved = 0;
+        archive.beginMove();
+        try {
+            for (Room room : rooms) {
+                moved += room.archiveCheckedOut(watermark).size();
+            }
+            archive.publish(segment, watermark);
+        } finally {
+            archive.endMove();
+        }
+        return moved;
+    }
+
+    /**
+     * Lists the stays checked out by a date, room by room.
+     *
+     * @param rooms the rooms, in slot order
+     * @param date  the date
+     * @return the stays, by room and then by check-in date
+     */
+    private static List<Reservation> checkedOutBy(List<Room> rooms, int date) {
+        List<Reservation> stays = new ArrayList<Reservation>();
+        for (Room room : rooms) {
+            for (Reservation reservation : room.getReservations()) {
+                if (reservation.getCheckOut() > date) {
+                    break; // By check-in date, so every later stay is still on
+                }
+                stays.add(reservation);
+            }
+        }
+        return stays;
+    }
+
+    /**
+     * Copies stays into their archived form.
+     *
+     * @param stays the stays
+     * @return the archived stays, in the same order
+     */
+    private static List<ArchivedReservation> toArchived(List<Reservation> stays) {
+        List<ArchivedReservation> archived = new ArrayList<ArchivedReservation>(stays.size());
+        for (Reservation reservation : stays) {
+            archived.add(new ArchivedReservation(reservation));
+        }
+        return archived;
     }
 
     /**
@@ -140,8 +548,237 @@ public class Hotel {
      * 
      * @param room the room to be removed
      */
-    public void removeRoom(Room room) {
-        rooms.remove(room);
+    public synchronized void removeRoom(Room room) {
+        int slot = room.getSlot();
+        if (slot >= 0 && slot < slotCount && slots[slot] == room) {
+            slots[slot] = null; // Leave a tombstone so the other slots stay put
+            room.setSlot(-1);
+            roomCount--;
+            version++;
+            roomsByName.remove(room.getName());
+            if (slotCount > 16 && roomCount < slotCount / 2) {
+                compactSlots();
+            }
+            room.removeRoomListener(inventory);
+            room.removeRoomListener(allocator);
+            room.removeRoomListener(changeTracker);
+            room.removeRoomListener(waitlist);
+            for (RoomListener listener : roomListeners) {
+                room.removeRoomListener(listener);
+            }
+            inventory.roomRemoved(room);
+            allocator.roomRemoved(room);
+            modificationVersion.incrementAndGet();
+        }
+    }
+
+    /**
+     * Moves the remaining rooms down over the tombstones of removed rooms,
+     * keeping their order, and starts a new slot epoch.
+     */
+    private void compactSlots() {
+        int next = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            Room room = slots[slot];
+            if (room != null) {
+                slots[next] = room;
+                room.setSlot(next++);
+            }
+        }
+        Arrays.fill(slots, next, slotCount, null);
+        slotCount = next;
+        slotEpoch++;
+    }
+
+    /**
+     * Picks a free room of a type for a stay, leaving the least fragmented
+     * availability behind. The room is not booked.
+     * 
+     * @param roomType the room type ("Standard", "Deluxe" or "Executive")
+     * @param checkIn  the check-in date
+     * @param checkOut the check-out date
+     * @return the assigned room, or null if no room of the type is free
+     */
+    public Room assignRoom(String roomType, int checkIn, int checkOut) {
+        if (checkIn < closedBefore || !inventory.hasFreeNights(roomType, checkIn, checkOut)) {
+            return null; // Past nights, or some night has no free room of this type at all
+        }
+        return allocator.findBestFit(roomType, checkIn, checkOut);
+    }
+
+    /**
+     * Books a stay in a room of the given type picked by the hotel. If the
+     * picked room is taken before the booking lands, another room is picked.
+     * 
+     * @param guestName the name of the guest
+     * @param roomType  the room type ("Standard", "Deluxe" or "Executive")
+     * @param checkIn   the check-in date
+     * @param checkOut  the check-out date
+     * @return the reservation, or null if no room of the type is free
+     */
+    public Reservation bookAutoAssigned(String guestName, String roomType, int checkIn, int checkOut) {
+        Room room = assignRoom(roomType, checkIn, checkOut);
+        while (room != null) {
+            Reservation reservation = new Reservation(guestName, checkIn, checkOut, room.getName(), this, room);
+            if (room.addReservation(reservation)) {
+                return reservation;
+            }
+            room = assignRoom(roomType, checkIn, checkOut); // Lost the room, pick again
+        }
+        return null;
+    }
+
+    /**
+     * Books the same stay in every room of a list, all or nothing. The rooms are
+     * locked in ascending slot order, so concurrent group bookings cannot
+     * deadlock, and nothing is booked unless every room is free.
+     * 
+     * @param guestName the name of the guest holding the group booking
+     * @param rooms     the rooms to book, all belonging to this hotel
+     * @param checkIn   the check-in date
+     * @param checkOut  the check-out date
+     * @return the reservations in the order of the given rooms, or null if any
+     *         room is not free or not in this hotel
+     */
+    public List<Reservation> bookGroup(String guestName, List<Room> rooms, int checkIn, int checkOut) {
+        List<Room> ordered = new ArrayList<Room>(rooms);
+        ordered.sort((a, b) -> Integer.compare(a.getSlot(), b.getSlot()));
+        for (int i = 0; i < ordered.size(); i++) {
+            Room room = ordered.get(i);
+            if (getRoomAt(room.getSlot()) != room || (i > 0 && ordered.get(i - 1) == room)) {
+                return null; // Not a room of this hotel, or listed twice
+            }
+        }
+
+        int locked = 0;
+        boolean writing = false;
+        try {
+            for (Room room : ordered) {
+                room.lock();
+                locked++;
+            }
+            for (Room room : ordered) {
+                if (!room.isAvailable(checkIn, checkOut)) {
+                    return null; // Conflict, nothing has been booked yet
+                }
+            }
+            activeGroupWrites.incrementAndGet(); // Keep snapshots from seeing half of the group
+            groupWriteCount.incrementAndGet();
+            writing = true;
+            List<Reservation> reservations = new ArrayList<Reservation>();
+            for (Room room : rooms) {
+                Reservation reservation = new Reservation(guestName, checkIn, checkOut, room.getName(), this, room);
+                if (!room.addReservation(reservation)) {
+                    // Cannot happen while the locks are held, but never leave a partial booking
+                    for (int i = 0; i < reservations.size(); i++) {
+                        rooms.get(i).removeReservation(reservations.get(i));
+                    }
+                    return null;
+                }
+                reservations.add(reservation);
+            }
+            return reservations;
+        } finally {
+            if (writing) {
+                activeGroupWrites.decrementAndGet();
+            }
+            for (int i = locked - 1; i >= 0; i--) {
+                ordered.get(i).unlock();
+            }
+        }
+    }
+
+    /**
+     * Books the same stay in a number of rooms of one type, all or nothing. The
+     * hotel picks the best-fitting rooms; if another booking takes one of them
+     * first, the rooms are picked again.
+     * 
+     * @param guestName the name of the guest holding the group booking
+     * @param roomType  the room type ("Standard", "Deluxe" or "Executive")
+     * @param count     the number of rooms to book
+     * @param checkIn   the check-in date
+     * @param checkOut  the check-out date
+     * @return the reservations, or null if not enough rooms of the type are free
+     */
+    public List<Reservation> bookGroup(String guestName, String roomType, int count, int checkIn, int checkOut) {
+        if (count < 1) {
+            return null;
+        }
+        for (int attempt = 0; attempt < 3; attempt++) {
+            for (int date = checkIn; date < checkOut; date++) {
+                if (inventory.getFreeCount(roomType, date) < count) {
+                    return null; // Some night has fewer free rooms than the group needs
+                }
+            }
+            List<Room> rooms = allocator.findBestFits(roomType, checkIn, checkOut, count);
+            if (rooms.size() < count) {
+                return null;
+            }
+            List<Reservation> reservations = bookGroup(guestName, rooms, checkIn, checkOut);
+            if (reservations != null) {
+                return reservations;
+            }
+        }
+        return null; // Kept losing rooms to concurrent bookings
+    }
+
+    /**
+     * Moves a reservation to other nights, another room of this hotel, or both,
+     * in one step. The stay is repriced at the current prices and keeps its
+     * discount code if the code is still valid for the new nights. If the move
+     * cannot be made, the reservation is left as it was.
+     *
+     * @param reservation the reservation to modify
+     * @param room        the room to move to, which may be the current room
+     * @param checkIn     the new check-in date
+     * @param checkOut    the new check-out date
+     * @return the new reservation, or null if the reservation is no longer
+     *         booked, the room is not in this hotel, a new night is taken, or a
+     *         past night would change
+     */
+    public Reservation modifyReservation(Reservation reservation, Room room, int checkIn, int checkOut) {
+        Room current = reservation.getRoom();
+        if (checkIn < 1 || checkOut > DAYS_IN_MONTH + 1 || checkIn >= checkOut
+                || getRoomAt(room.getSlot()) != room || getRoomAt(current.getSlot()) != current) {
+            return null;
+        }
+        Reservation replacement = new Reservation(reservation.getGuestName(), checkIn, checkOut, room.getName(), this,
+                room);
+        replacement.applyDiscountCode(reservation.getDiscountCode());
+        if (room == current) {
+            // Only the nights the new stay adds need checking
+            return room.replaceReservation(reservation, replacement) ? replacement : null;
+        } else if (reservation.getCheckIn() < closedBefore) {
+            return null; // Its past nights cannot move to another room
+        }
+
+        Room first = current.getSlot() < room.getSlot() ? current : room;
+        Room second = first == current ? room : current;
+        boolean writing = false;
+        first.lock();
+        try {
+            second.lock();
+            try {
+                if (!room.isAvailable(checkIn, checkOut)) {
+                    return null;
+                }
+                activeGroupWrites.incrementAndGet(); // Keep snapshots from seeing the stay in both rooms or neither
+                groupWriteCount.incrementAndGet();
+                writing = true;
+                if (!current.removeReservation(reservation)) {
+                    return null; // Cancelled meanwhile
+                }
+                room.addReservation(replacement); // Cannot fail while the locks are held
+                return replacement;
+            } finally {
+                if (writing) {
+                    activeGroupWrites.decrementAndGet();
+                }
+                second.unlock();
+            }
+        } finally {
+            first.unlock();
+        }
     }
 
     /**
@@ -153,7 +790,7 @@ public class Hotel {
     public boolean removeRoomByName(String roomName) {
         Room roomToRemove = getRoomByName(roomName);
         if (roomToRemove != null && isRoomRemovable(roomToRemove)) {
-            rooms.remove(roomToRemove);
+            removeRoom(roomToRemove);
             return true;
         }
         return false; // Room not found or not removable
@@ -176,8 +813,8 @@ public class Hotel {
      * @return true if at least one room has no reservations, false otherwise
      */
     public boolean isPriceUpdateable() {
-        for (Room room : rooms) {
-            if (room.getReservations().isEmpty()) {
+        for (Room room : getRooms()) {
+            if (room.isEmpty()) {
                 return true; // At least one room is available for price updates
             }
         }
@@ -190,29 +827,46 @@ public class Hotel {
      * @return the total estimated earnings
      */
     public double getEstimatedEarnings() {
-        double totalEarnings = 0.0;
-        for (Room room : rooms) {
-            for (Reservation reservation : room.getReservations()) {
-                totalEarnings += reservation.getTotalCost(); // Sum total cost of all reservations
-            }
-        }
-        return totalEarnings;
+        return snapshot().getEstimatedEarnings(); // Sum over one consistent view of the rooms
     }
 
     /**
-     * Gets the number of available rooms for a given date.
+     * Gets the number of available rooms for a given date. Dates within the month
+     * are answered from the room inventory without looking at the rooms.
      * 
      * @param date the date for which to check room availability
      * @return the number of available rooms
      */
     public int getAvailableRooms(int date) {
-        int availableRooms = 0;
-        for (Room room : rooms) {
-            if (room.isAvailable(date, date + 1)) {
-                availableRooms++; // Increment count for available rooms
-            }
+        if (date >= 1 && date <= DAYS_IN_MONTH) {
+            return inventory.getFreeCount(date);
         }
-        return availableRooms;
+        return snapshot().getAvailableRooms(date);
+    }
+
+    /**
+     * Gets the number of available rooms of a room type for a given date.
+     * 
+     * @param roomType the room type ("Standard", "Deluxe" or "Executive")
+     * @param date     the date for which to check room availability
+     * @return the number of available rooms of the type
+     */
+    public int getAvailableRooms(String roomType, int date) {
+        return inventory.getFreeCount(roomType, date);
+    }
+
+    /**
+     * Checks whether a room of a type could be free for a stay, from the room
+     * inventory alone. A false result means no room of the type is free for the
+     * whole stay.
+     * 
+     * @param roomType the room type ("Standard", "Deluxe" or "Executive")
+     * @param checkIn  the check-in date
+     * @param checkOut the check-out date
+     * @return true if every night of the stay has a free room of the type
+     */
+    public boolean hasAvailableRoomType(String roomType, int checkIn, int checkOut) {
+        return checkIn >= closedBefore && inventory.hasFreeNights(roomType, checkIn, checkOut);
     }
 
     /**
@@ -232,14 +886,38 @@ public class Hotel {
      * @param priceRate the price modifier (rate) for the given date
      */
     public void setDatePriceModifier(int date, double priceRate) {
-        if (date >= 1 && date <= 30 && priceRate >= 0.5 && priceRate <= 1.5) {
-            datePriceModifiers.put(date, priceRate); // Valid date and price rate, update the modifier
+        if (date >= 1 && date <= DAYS_IN_MONTH && priceRate >= 0.5 && priceRate <= 1.5) {
+            // Valid date and price rate, publish a snapshot with the new modifier
+            pricing.updateAndGet(current -> current.withModifier(date, priceRate));
+            modificationVersion.incrementAndGet();
         } else {
             // Handle invalid date or price rate
             System.err.println("Invalid date or price rate.");
         }
     }
 
+    /**
+     * Sets the price modifiers of several dates at once, publishing a single
+     * price snapshot.
+     * 
+     * @param priceRates the new price modifier of each date to change
+     * @return true if the modifiers were set, false if a date or rate is
+     *         invalid, in which case none is set
+     */
+    public boolean setDatePriceModifiers(Map<Integer, Double> priceRates) {
+        for (Map.Entry<Integer, Double> rate : priceRates.entrySet()) {
+            if (rate.getKey() < 1 || rate.getKey() > DAYS_IN_MONTH || rate.getValue() < 0.5
+                    || rate.getValue() > 1.5) {
+                return false;
+            }
+        }
+        if (!priceRates.isEmpty()) {
+            pricing.updateAndGet(current -> current.withModifiers(priceRates));
+            modificationVersion.incrementAndGet();
+        }
+        return true;
+    }
+
     /**
      * Retrieves the price modifier for a specific date.
      * 
@@ -247,12 +925,7 @@ public class Hotel {
      * @return the price modifier for the given date, or 1.0 if no modifier exists
      */
     public double getPriceModifierForDate(int date) {
-        if (datePriceModifiers.containsKey(date)) {
-            return datePriceModifiers.get(date); // Return existing modifier
-        } else {
-            // No modifier exists for this date, return default value
-            return 1.0; // 100% (no change)
-        }
+        return pricing.get().getModifier(date);
     }
 
     /**
@@ -262,11 +935,6 @@ public class Hotel {
      * @return true if a room with the specified name exists, false otherwise
      */
     public boolean checkDuplicateRoomName(String roomName) {
-        for (Room room : rooms) {
-            if (room.getName().equals(roomName)) {
-                return true; // Duplicate room name found
-            }
-        }
-        return false; // No duplicate found
+        return getRoomByName(roomName) != null;
     }
 }
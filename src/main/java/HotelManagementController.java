@@ -1,8 +1,13 @@
 import javax.swing.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Controller class for managing hotel operations.
@@ -13,9 +18,25 @@ import java.util.List;
  * @version 1.0
  */
 public class HotelManagementController {
+    /** How long a room stays held while the guest completes a booking. */
+    private static final long HOLD_TTL_MILLIS = 5 * 60 * 1000;
+    /** Estimated memory the cached listings may take. */
+    private static final long RENDER_CACHE_BYTES = 4 * 1024 * 1024;
+    /** Number of price quotes kept before outdated ones are dropped. */
+    private static final int QUOTE_CACHE_ENTRIES = 10000;
+    /** Number of reservations shown for a guest name search. */
+    private static final int GUEST_MATCH_LIMIT = 50;
+    /** How often automatic pricing looks at new bookings, in milliseconds. */
+    private static final long PRICING_TICK_MILLIS = 1000;
 
     private HotelManagementView view;
     private List<Hotel> hotels;
+    private HoldManager holdManager;
+    private RenderCache renderCache;
+    private QuoteService quoteService;
+    private GuestIndex guestIndex;
+    private AnalyticsEngine analytics;
+    private DynamicPricing dynamicPricing;
 
     /**
      * Constructor for HotelManagementController.
@@ -26,11 +47,21 @@ public class HotelManagementController {
     public HotelManagementController(HotelManagementView view) {
         this.view = view;
         this.hotels = new ArrayList<Hotel>();
+        this.holdManager = new HoldManager(1000);
+        this.renderCache = new RenderCache(RENDER_CACHE_BYTES);
+        this.quoteService = new QuoteService(QUOTE_CACHE_ENTRIES);
+        this.guestIndex = new GuestIndex();
+        this.analytics = new AnalyticsEngine();
+        this.dynamicPricing = new DynamicPricing(PRICING_TICK_MILLIS);
         this.view.setCreateHotelButtonListener(new CreateHotelListener());
         this.view.setRemoveHotelButtonListener(new RemoveHotelListener());
         this.view.setViewHotelButtonListener(new ViewHotelListener());
         this.view.setManageHotelButtonListener(new ManageHotelListener());
         this.view.setSimulateBookingButtonListener(new SimulateBookingListener());
+        this.view.setSearchRoomsButtonListener(new SearchRoomsListener());
+        this.view.setImportButtonListener(new ImportListener());
+        this.view.setExportButtonListener(new ExportListener());
+        this.view.setReportButtonListener(new ReportListener());
         displayHotelOptions();
     }
 
@@ -81,6 +112,7 @@ public class HotelManagementController {
             Hotel newHotel = new Hotel(name, basePrice);
 
             hotels.add(newHotel);
+            guestIndex.addHotel(newHotel);
             view.showMessage("Hotel successfully added.");
 
             // addRoom(newHotel);
@@ -115,6 +147,10 @@ public class HotelManagementController {
             for (Hotel hotel : hotels) {
                 if (hotel.getName().equals(name)) {
                     hotels.remove(hotel);
+                    renderCache.invalidate(hotel);
+                    quoteService.invalidate(hotel);
+                    guestIndex.removeHotel(hotel);
+                    dynamicPricing.removeHotel(hotel);
                     view.showMessage(name + " successfully removed.");
                     return;
                 }
@@ -195,11 +231,15 @@ public class HotelManagementController {
             String hotelName = view.getUserInput("Enter Hotel Name:");
             // Display rooms of the selected hotel
             displayRooms(hotelName);
-            // Get room name from the user
-            String roomName = view.getUserInput("Enter Room Name:");
+            // Get room name from the user, a blank name lets the hotel pick the room
+            String roomName = view.getUserInput("Enter Room Name (or press Enter to auto-assign):");
             // Find the hotel and room
             for (Hotel hotel : hotels) {
                 if (hotel.getName().equals(hotelName)) {
+                    if (roomName != null && roomName.isEmpty()) {
+                        autoAssignBooking(hotel);
+                        return;
+                    }
                     Room selectedRoom = hotel.getRoomByName(roomName);
                     if (selectedRoom != null) {
                         // Display available dates for the selected room
@@ -217,34 +257,21 @@ public class HotelManagementController {
                         }
                         // Check availability and book the room
                         if (selectedRoom.isAvailable(checkIn, checkOut)) {
-                            // Ask for discount code
-                            String discountCode = view.getUserInput("Enter discount code (or press Enter to skip):");
-
-                            // Create a reservation and add it to the room
-                            Reservation reservation = new Reservation(guestName, checkIn, checkOut, roomName, hotel,
-                                    selectedRoom);
-                            double totalPrice = reservation.getTotalCost();
-                            if (!discountCode.isEmpty()) {
-                                if (reservation.isValidDiscountCode(discountCode)) {
-                                    totalPrice = reservation.calculateDiscountedPrice(discountCode);
-                                } else {
-                                    if (discountCode.equals("STAY4_GET1"))
-                                        view.showMessage("Discount code unapplicable: Not enough days for discount.");
-                                    if (discountCode.equals("PAYDAY"))
-                                        view.showMessage(
-                                                "Discount code unapplicable: Reservation does not span the 15th or 30th.");
-                                    view.showMessage("No valid discount applied.");
-                                }
+                            completeBooking(hotel, selectedRoom, guestName, checkIn, checkOut);
+                            return;
+                        } else {
+                            // Offer the nearest free window of the same length as an alternative
+                            int nights = checkOut - checkIn;
+                            int alternative = selectedRoom.findNextFreeWindow(nights, checkIn);
+                            if (alternative == -1) {
+                                alternative = selectedRoom.findNextFreeWindow(nights, 1);
                             }
-                            if (selectedRoom.addReservation(reservation)) {
-                                view.showMessage("Booking Successful!" + "\n" + "Total Price: " + totalPrice);
-                                return; // Exit the loop after successful booking
-                            } else {
-                                view.showMessage("Selected Room " + roomName + " encountered an error.");
-                                return; // Exit the loop if the room is not available
+                            String message = "Selected Room " + roomName + " is not available for those dates.";
+                            if (alternative != -1) {
+                                message += "\nNext available: " + alternative + " to " + (alternative + nights);
                             }
-                        } else {
-                            view.showMessage("Selected Room " + roomName + " is not available for those dates.");
+                            view.showMessage(message);
+                            offerWaitlist(hotel, selectedRoom.getRoomType(), guestName, checkIn, checkOut);
                             return;
                         }
                     } else {
@@ -257,21 +284,329 @@ public class HotelManagementController {
         }
     }
 
+    /**
+     * Books a stay in a room picked by the hotel. Asks for the room type, guest
+     * name and dates, then lets the hotel assign the best-fitting free room.
+     * 
+     * @param hotel the hotel to book in
+     */
+    private void autoAssignBooking(Hotel hotel) {
+        String roomType = view.getUserInput("Enter room type (Standard, Deluxe, Executive):");
+        if (roomType == null) {
+            view.showMessage("Operation cancelled.");
+            return;
+        }
+        while (!roomType.equalsIgnoreCase("Standard") && !roomType.equalsIgnoreCase("Deluxe")
+                && !roomType.equalsIgnoreCase("Executive")) {
+            roomType = view.getUserInput("Invalid room type. Enter Standard, Deluxe, or Executive:");
+        }
+        // Normalize to the capitalized type name used by the rooms
+        roomType = roomType.substring(0, 1).toUpperCase() + roomType.substring(1).toLowerCase();
+
+        String guestName = view.getUserInput("Enter guest name:");
+        int checkIn = Integer.parseInt(view.getUserInput("Enter check-in date:"));
+        int checkOut = Integer.parseInt(view.getUserInput("Enter check-out date:"));
+        if (checkIn < 1 || checkIn > 30 || checkOut < 2 || checkOut > 31 || checkIn >= checkOut) {
+            view.showMessage("Invalid date range.");
+            return;
+        }
+        Room assignedRoom = hotel.assignRoom(roomType, checkIn, checkOut);
+        if (assignedRoom == null) {
+            view.showMessage("No " + roomType + " room is available for those dates.");
+            offerWaitlist(hotel, roomType, guestName, checkIn, checkOut);
+            return;
+        }
+        view.showMessage("Assigned Room: " + assignedRoom.getName());
+        completeBooking(hotel, assignedRoom, guestName, checkIn, checkOut);
+    }
+
+    /**
+     * Offers to put a stay that could not be booked on the hotel's waitlist. The
+     * guest is booked automatically once a room of the type frees up.
+     * 
+     * @param hotel     the hotel
+     * @param roomType  the room type wanted
+     * @param guestName the name of the guest
+     * @param checkIn   the check-in date
+     * @param checkOut  the check-out date
+     */
+    private void offerWaitlist(Hotel hotel, String roomType, String guestName, int checkIn, int checkOut) {
+        String answer = view.getUserInput("Join the waitlist for a " + roomType + " room? (yes/no)");
+        if (answer == null || !answer.trim().equalsIgnoreCase("yes")) {
+            return;
+        }
+        Waitlist waitlist = hotel.getWaitlist();
+        waitlist.setMatchListener(entry -> SwingUtilities.invokeLater(() -> view.showMessage(
+                "Waitlisted guest " + entry.getGuestName()
+                        + (entry.getState() == WaitlistEntry.BOOKED
+                                ? " was booked into Room " + entry.getReservation().getRoomName()
+                                : " was offered a hold on Room " + entry.getHold().getRoom().getName())
+                        + " at " + hotel.getName() + ".")));
+        if (waitlist.add(guestName, roomType, checkIn, checkOut, 0, false) == null) {
+            view.showMessage("These dates can no longer be waitlisted.");
+            return;
+        }
+        view.showMessage(guestName + " was added to the waitlist.");
+    }
+
+    /**
+     * Completes a booking in a room found to be available. The nights are held
+     * while the guest is asked for a discount code, then the hold is confirmed
+     * into a reservation.
+     * 
+     * @param hotel        the hotel of the room
+     * @param selectedRoom the room to book
+     * @param guestName    the name of the guest
+     * @param checkIn      the check-in date
+     * @param checkOut     the check-out date
+     */
+    private void completeBooking(Hotel hotel, Room selectedRoom, String guestName, int checkIn, int checkOut) {
+        String roomName = selectedRoom.getName();
+        // Hold the nights so nobody else can book them during checkout
+        RoomHold hold = holdManager.placeHold(selectedRoom, guestName, checkIn, checkOut, HOLD_TTL_MILLIS);
+        if (hold == null) {
+            view.showMessage("Selected Room " + roomName + " is not available for those dates.");
+            return;
+        }
+        // Ask for discount code, showing the price of the stay
+        Quote quote = quoteService.quote(hotel, selectedRoom.getRoomType(), checkIn, checkOut, "");
+        String discountCode = view.getUserInput("Total Price: " + quote.getTotalCost()
+                + "\nEnter discount code (or press Enter to skip):");
+        if (discountCode == null) {
+            holdManager.release(hold);
+            view.showMessage("Operation cancelled.");
+            return;
+        }
+
+        // Turn the hold into a reservation
+        Reservation reservation = holdManager.confirm(hold, hotel);
+        if (reservation == null) {
+            view.showMessage("The hold on Room " + roomName + " expired. Please book again.");
+            return;
+        }
+        double totalPrice = reservation.getTotalCost();
+        if (!discountCode.isEmpty()) {
+            quote = quoteService.quote(hotel, selectedRoom.getRoomType(), checkIn, checkOut, discountCode);
+            if (quote.getPriceVersion() != reservation.getPriceVersion()) {
+                // Prices changed since the reservation was made, price it as booked
+                totalPrice = reservation.calculateDiscountedPrice(discountCode);
+            } else if (quote.isDiscountValid()) {
+                totalPrice = quote.getDiscountedPrice();
+            }
+            reservation.applyDiscountCode(discountCode); // Kept for reporting when valid
+            if (!quote.isDiscountValid()) {
+                if (discountCode.equals("STAY4_GET1"))
+                    view.showMessage("Discount code unapplicable: Not enough days for discount.");
+                if (discountCode.equals("PAYDAY"))
+                    view.showMessage(
+                            "Discount code unapplicable: Reservation does not span the 15th or 30th.");
+                view.showMessage("No valid discount applied.");
+            }
+        }
+        view.showMessage("Booking Successful!" + "\n" + "Total Price: " + totalPrice);
+    }
+
+    /**
+     * Listener class for searching free rooms across all hotels.
+     */
+    class SearchRoomsListener implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            if (hotels.isEmpty()) {
+                view.showMessage("No hotels to search.");
+                return;
+            }
+            int checkIn;
+            int checkOut;
+            double maxPrice;
+            try {
+                checkIn = Integer.parseInt(view.getUserInput("Enter check-in date:"));
+                checkOut = Integer.parseInt(view.getUserInput("Enter check-out date:"));
+                maxPrice = Double.parseDouble(view.getUserInput("Enter maximum total price:"));
+            } catch (NumberFormatException | NullPointerException ex) {
+                view.showMessage("Invalid search input.");
+                return;
+            }
+            if (checkIn < 1 || checkIn > 30 || checkOut < 2 || checkOut > 31 || checkIn >= checkOut) {
+                view.showMessage("Invalid date range.");
+                return;
+            }
+            String roomType = view.getUserInput("Enter room type (Standard, Deluxe, Executive) or leave blank for any:");
+            if (roomType != null && roomType.trim().isEmpty()) {
+                roomType = null;
+            }
+
+            List<RoomMatch> matches = searchAvailability(checkIn, checkOut, maxPrice, roomType, 20);
+            StringBuilder details = new StringBuilder();
+            details.append("Rooms free from ").append(checkIn).append(" to ").append(checkOut).append(":\n");
+            if (matches.isEmpty()) {
+                details.append("No matching rooms found.\n");
+            }
+            for (RoomMatch match : matches) {
+                details.append(match.getHotel().getName()).append(" | ").append(match.getRoom().getName())
+                        .append(" | ").append(match.getRoom().getRoomType())
+                        .append(" | Total Price: ").append(match.getTotalPrice()).append("\n");
+            }
+            view.displayHotelDetails(details.toString());
+        }
+    }
+
+    /**
+     * Listener class for importing hotels from a CSV or JSON file.
+     */
+    class ImportListener implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            String fileName = view.getUserInput("Enter file to import (.csv, or .json for one JSON record per line):");
+            if (fileName == null || fileName.isEmpty()) {
+                view.showMessage("Operation cancelled.");
+                return;
+            }
+            try {
+                Path rejects = Paths.get(fileName + ".rejects");
+                int[] counts = importPortfolio(Paths.get(fileName), rejects);
+                String message = counts[0] + " records imported, " + counts[1] + " rejected.";
+                if (counts[1] > 0) {
+                    message += "\nRejected records were written to " + rejects;
+                }
+                view.showMessage(message);
+            } catch (IOException ex) {
+                view.showMessage("Import failed: " + ex.getMessage());
+            }
+            displayHotelOptions();
+        }
+    }
+
+    /**
+     * Listener class for exporting all hotels to a CSV or JSON file.
+     */
+    class ExportListener implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            String fileName = view.getUserInput("Enter file to export to (.csv, or .json for one JSON record per line):");
+            if (fileName == null || fileName.isEmpty()) {
+                view.showMessage("Operation cancelled.");
+                return;
+            }
+            try {
+                int records = exportPortfolio(Paths.get(fileName));
+                view.showMessage(records + " records exported.");
+            } catch (IOException ex) {
+                view.showMessage("Export failed: " + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Listener class for reporting occupancy and revenue of all hotels.
+     */
+    class ReportListener implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            if (hotels.isEmpty()) {
+                view.showMessage("No hotels to report on.");
+                return;
+            }
+            List<Hotel> portfolio = new ArrayList<Hotel>(hotels);
+            view.displayInfo("Occupancy and revenue report:");
+            // Add up the hotels in the background, showing each report as it completes
+            new Thread(() -> {
+                OccupancyReport total = runReport(portfolio,
+                        report -> SwingUtilities.invokeLater(() -> view.displayInfo(report.toString())));
+                SwingUtilities.invokeLater(() -> view.displayInfo(total.toString()));
+            }, "occupancy-report").start();
+        }
+    }
+
+    /**
+     * Computes the month's occupancy and revenue report of each hotel and of
+     * all of them together, in parallel.
+     * 
+     * @param portfolio the hotels to report on
+     * @param sink      called with each hotel's report as soon as it is
+     *                  complete, possibly from several threads at once
+     * @return the report of all the hotels together
+     */
+    public OccupancyReport runReport(List<Hotel> portfolio, Consumer<OccupancyReport> sink) {
+        return analytics.run(portfolio, sink);
+    }
+
+    /**
+     * Imports hotels, rooms, price modifiers and reservations from a file. Each
+     * line holds one record, either as CSV or as a JSON object.
+     * 
+     * @param path        the file to import
+     * @param rejectsPath the file to write rejected records to
+     * @return the number of records imported and rejected, as { imported,
+     *         rejected }
+     * @throws IOException if a file cannot be read or written
+     */
+    public int[] importPortfolio(Path path, Path rejectsPath) throws IOException {
+        int[] counts = new PortfolioIO(hotels).importFrom(path, rejectsPath);
+        for (Hotel hotel : hotels) {
+            guestIndex.addHotel(hotel); // Indexes the imported hotels, the others are already registered
+        }
+        return counts;
+    }
+
+    /**
+     * Exports every hotel with its rooms, price modifiers and reservations.
+     * Files ending in .json, .jsonl or .ndjson are written as one JSON record per
+     * line; other files are written as CSV.
+     * 
+     * @param path the file to write
+     * @return the number of records written
+     * @throws IOException if the file cannot be written
+     */
+    public int exportPortfolio(Path path) throws IOException {
+        String fileName = path.getFileName().toString().toLowerCase();
+        boolean json = fileName.endsWith(".json") || fileName.endsWith(".jsonl") || fileName.endsWith(".ndjson");
+        return new PortfolioIO(hotels).exportTo(path, json);
+    }
+
+    /**
+     * Searches every registered hotel in parallel for rooms that are free for
+     * the given nights and within the price limit.
+     * 
+     * @param checkIn  the check-in date
+     * @param checkOut the check-out date
+     * @param maxPrice the highest acceptable total price of the stay
+     * @param roomType the room type to look for, or null for any type
+     * @param limit    the maximum number of matches to return
+     * @return the cheapest matches, sorted by total price
+     */
+    public List<RoomMatch> searchAvailability(int checkIn, int checkOut, double maxPrice, String roomType,
+            int limit) {
+        return new AvailabilitySearch(checkIn, checkOut, maxPrice, roomType, limit).search(hotels);
+    }
+
     /**
      * Displays details of a specific hotel.
      * 
      * @param hotel the hotel to display details for
      */
     private void displayHotelDetails(Hotel hotel) {
+        view.displayHotelDetails(renderCache.get("details", hotel, hotel.getModificationVersion(),
+                () -> renderHotelDetails(hotel)));
+    }
+
+    /**
+     * Renders the details of a specific hotel.
+     * 
+     * @param hotel the hotel to render
+     * @return the details of the hotel
+     */
+    private String renderHotelDetails(Hotel hotel) {
+        HotelSnapshot snapshot = hotel.snapshot(); // Every figure below comes from the same moment
         StringBuilder details = new StringBuilder();
-        details.append("Hotel Name: ").append(hotel.getName()).append("\n");
-        details.append("Base Price: ").append(hotel.getBasePrice()).append("\n");
-        details.append("Estimated Earnings: ").append(hotel.getEstimatedEarnings()).append("\n");
+        details.append("Hotel Name: ").append(snapshot.getName()).append("\n");
+        details.append("Base Price: ").append(snapshot.getPriceSnapshot().getBasePrice()).append("\n");
+        details.append("Estimated Earnings: ").append(snapshot.getEstimatedEarnings()).append("\n");
         details.append("Rooms:\n");
-        for (Room room : hotel.getRooms()) {
+        for (RoomSnapshot room : snapshot.getRooms()) {
             details.append("  ").append(room.getName()).append(" - Earnings: ").append(room.getEarnings()).append("\n");
         }
-        view.displayHotelDetails(details.toString());
+        return details.toString();
     }
 
     /**
@@ -283,7 +618,8 @@ public class HotelManagementController {
      */
     private void manageHotel(Hotel hotel) {
         String[] options = { "Change Name", "Change Base Price", "Add Room", "Remove Room", "Remove Reservation",
-                "Remove Hotel", "Date Price Modifier" };
+                "Modify Reservation", "Remove Hotel", "Date Price Modifier", "Change Room Limit", "Automatic Pricing",
+                "Archive Past Stays" };
 
         JPanel panel = new JPanel();
         panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
@@ -329,10 +665,8 @@ public class HotelManagementController {
                     return;
                 }
                 if (hotel.isPriceUpdateable()) {
+                    // Publishes a new price snapshot and reprices the rooms by room type
                     hotel.setBasePrice(newBasePrice);
-                    for (Room room : hotel.getRooms()) {
-                        room.setPrice(newBasePrice);
-                    }
                     view.showMessage("Base price updated.");
                 } else {
                     view.showMessage("Cannot update base price. Some rooms are occupied.");
@@ -368,8 +702,16 @@ public class HotelManagementController {
                     view.showMessage("Reservation for " + guestName + " not found.");
                 }
                 break;
+            case "Modify Reservation":
+                displayRooms(hotel.getName());
+                modifyReservation(hotel);
+                break;
             case "Remove Hotel":
                 hotels.remove(hotel);
+                renderCache.invalidate(hotel);
+                quoteService.invalidate(hotel);
+                guestIndex.removeHotel(hotel);
+                dynamicPricing.removeHotel(hotel);
                 view.showMessage("Hotel " + hotel.getName() + " removed.");
                 break;
             case "Date Price Modifier":
@@ -379,10 +721,101 @@ public class HotelManagementController {
                 view.showMessage("Date price modifier updated.");
                 displayHotelOptions();
                 break;
+            case "Change Room Limit":
+                int maxRooms;
+                try {
+                    maxRooms = Integer.parseInt(view.getUserInput(
+                            "Enter maximum number of rooms (currently " + hotel.getMaxRooms() + "):"));
+                } catch (NumberFormatException ex) {
+                    view.showMessage("Invalid room limit.");
+                    return;
+                }
+                if (maxRooms < 1) {
+                    view.showMessage("Room limit must be at least 1.");
+                } else if (maxRooms < hotel.getTotalRooms()) {
+                    view.showMessage("Room limit cannot be below the current number of rooms.");
+                } else {
+                    hotel.setMaxRooms(maxRooms);
+                    view.showMessage("Room limit updated.");
+                }
+                break;
+            case "Automatic Pricing":
+                if (dynamicPricing.isManaged(hotel)) {
+                    dynamicPricing.removeHotel(hotel);
+                    view.showMessage("Automatic pricing turned off. Date price modifiers stay as they are.");
+                } else {
+                    dynamicPricing.addHotel(hotel);
+                    view.showMessage("Automatic pricing turned on. Date price modifiers now follow occupancy.");
+                }
+                break;
+            case "Archive Past Stays":
+                int today;
+                try {
+                    today = Integer.parseInt(view.getUserInput("Enter today's date (nights before it are closed):"));
+                } catch (NumberFormatException ex) {
+                    view.showMessage("Invalid date.");
+                    return;
+                }
+                try {
+                    int archived = hotel.archiveCheckedOut(today);
+                    view.showMessage(archived + " checked-out stays archived. " + hotel.getArchive().size()
+                            + " stays in the archive.");
+                } catch (UncheckedIOException ex) {
+                    view.showMessage("Archive could not be written: " + ex.getCause().getMessage());
+                }
+                break;
         }
         displayHotelOptions();
     }
 
+    /**
+     * Asks for a reservation and its new dates and room, and moves the
+     * reservation in one step. The old stay is kept if the move fails.
+     *
+     * @param hotel the hotel of the reservation
+     */
+    private void modifyReservation(Hotel hotel) {
+        Room room = hotel.getRoomByName(view.getUserInput("Enter room name:"));
+        if (room == null) {
+            view.showMessage("Room not found in this hotel.");
+            return;
+        }
+        String guestName = view.getUserInput("Enter guest name:");
+        Reservation reservation = null;
+        for (Reservation candidate : room.getReservations()) {
+            if (candidate.getGuestName().equals(guestName)) {
+                reservation = candidate;
+            }
+        }
+        if (reservation == null) {
+            view.showMessage("Reservation for " + guestName + " not found.");
+            return;
+        }
+        int checkIn;
+        int checkOut;
+        try {
+            checkIn = Integer.parseInt(view.getUserInput("Enter new check-in date (1-30):"));
+            checkOut = Integer.parseInt(view.getUserInput("Enter new check-out date (2-31):"));
+        } catch (NumberFormatException ex) {
+            view.showMessage("Invalid date.");
+            return;
+        }
+        String newRoomName = view.getUserInput("Enter new room name (leave blank to keep " + room.getName() + "):");
+        Room target = newRoomName == null || newRoomName.trim().isEmpty() ? room
+                : hotel.getRoomByName(newRoomName.trim());
+        if (target == null) {
+            view.showMessage("Room " + newRoomName + " not found in this hotel.");
+            return;
+        }
+        Reservation modified = hotel.modifyReservation(reservation, target, checkIn, checkOut);
+        if (modified == null) {
+            view.showMessage("Reservation could not be modified. The new nights are not available.");
+        } else {
+            view.showMessage("Reservation moved to Room " + modified.getRoomName() + ", nights " + checkIn + " to "
+                    + (checkOut - 1) + ". New total: " + modified.getTotalCost());
+        }
+    }
+
     /**
      * Displays options for viewing hotel information such as checking availability
      * on a specific date,
@@ -392,7 +825,8 @@ public class HotelManagementController {
      */
     private void viewHotel(Hotel hotel) {
         displayHotelDetails(hotel);
-        String[] options = { "Check Availability on a Specific Date", "View Room Details", "View Reservation Details" };
+        String[] options = { "Check Availability on a Specific Date", "View Room Details", "View Reservation Details",
+                "Find Guest in All Hotels" };
 
         JPanel panel = new JPanel();
         panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
@@ -435,6 +869,12 @@ public class HotelManagementController {
                 String guestName = view.getUserInput("Enter guest name:");
                 displayReservationDetails(hotel, guestName);
                 break;
+            case "Find Guest in All Hotels":
+                String prefix = view.getUserInput("Enter the start of the guest name:");
+                if (prefix != null) {
+                    displayGuestMatches(prefix);
+                }
+                break;
         }
     }
 
@@ -444,7 +884,7 @@ public class HotelManagementController {
      * @param hotel the hotel to which the room will be added
      */
     private void addRoom(Hotel hotel) {
-        if (hotel.getTotalRooms() >= 50) {
+        if (hotel.getTotalRooms() >= hotel.getMaxRooms()) {
             view.showMessage("Maximum number of rooms reached.");
         } else {
             displayRooms(hotel.getName());
@@ -463,14 +903,7 @@ public class HotelManagementController {
             }
 
             // Create the new room object based on the type
-            Room newRoom;
-            if (roomType.equalsIgnoreCase("Standard")) {
-                newRoom = new Room(roomName, hotel.getBasePrice());
-            } else if (roomType.equalsIgnoreCase("Deluxe")) {
-                newRoom = new RoomDeluxe(roomName, hotel.getBasePrice());
-            } else {
-                newRoom = new RoomExecutive(roomName, hotel.getBasePrice());
-            }
+            Room newRoom = Room.create(roomName, roomType, hotel.getBasePrice());
 
             // Add the new room to the hotel
             hotel.addRoom(newRoom);
@@ -488,7 +921,8 @@ public class HotelManagementController {
             details.append("No hotels currently registered.\n");
         } else {
             for (Hotel hotel : hotels) {
-                details.append(hotel.getName()).append(" | Rooms: ").append(hotel.getRooms().size()).append("\n");
+                details.append(renderCache.get("option", hotel, hotel.getModificationVersion(),
+                        () -> hotel.getName() + " | Rooms: " + hotel.getTotalRooms() + "\n"));
             }
         }
         view.displayHotelDetails(details.toString());
@@ -504,23 +938,47 @@ public class HotelManagementController {
         details.append("Viewing rooms of hotel ").append(hotelName).append(":\n");
         for (Hotel hotel : hotels) {
             if (hotel.getName().equals(hotelName)) {
-                for (Room room : hotel.getRooms()) {
-                    details.append(String.format("%-7s | ", room.getName()));
-                    if (hotel.getRooms().indexOf(room) % 5 == 4) {
-                        details.append("\n");
-                    }
-                }
+                details.append(renderCache.get("rooms", hotel, hotel.getModificationVersion(),
+                        () -> renderRoomGrid(hotel)));
             }
         }
         view.displayHotelDetails(details.toString());
     }
 
+    /**
+     * Renders the names of the rooms of a hotel, five to a line.
+     * 
+     * @param hotel the hotel whose rooms are rendered
+     * @return the room names
+     */
+    private String renderRoomGrid(Hotel hotel) {
+        StringBuilder grid = new StringBuilder();
+        int index = 0;
+        for (Room room : hotel.getRooms()) {
+            grid.append(String.format("%-7s | ", room.getName()));
+            if (index++ % 5 == 4) {
+                grid.append("\n");
+            }
+        }
+        return grid.toString();
+    }
+
     /**
      * Displays the available dates for a specific room.
      * 
      * @param room the room whose availability is to be displayed
      */
     private void displayAvailableDates(Room room) {
+        view.displayInfo(renderCache.get("dates", room, room.getVersion(), () -> renderAvailableDates(room)));
+    }
+
+    /**
+     * Renders the available dates of a specific room.
+     * 
+     * @param room the room whose availability is rendered
+     * @return the available dates of the room
+     */
+    private String renderAvailableDates(Room room) {
         StringBuilder dates = new StringBuilder();
         dates.append("Available Dates for ").append(room.getName()).append(":\n");
         for (int date = 1; date <= 30; date++) {
@@ -532,7 +990,7 @@ public class HotelManagementController {
         if (dates.lastIndexOf(", ") == dates.length() - 2) {
             dates.delete(dates.length() - 2, dates.length());
         }
-        view.displayInfo(dates.toString());
+        return dates.toString();
     }
 
     /**
@@ -563,6 +1021,15 @@ public class HotelManagementController {
         }
     }
 
+    /**
+     * Gets the hit-rate metrics of the cache of rendered listings.
+     * 
+     * @return a summary of the cache size, hits, misses and evictions
+     */
+    public String getRenderCacheStats() {
+        return renderCache.toString();
+    }
+
     /**
      * Displays the details of a reservation made by a specific guest.
      * 
@@ -571,23 +1038,56 @@ public class HotelManagementController {
      *                  displayed
      */
     private void displayReservationDetails(Hotel hotel, String guestName) {
-        for (Room room : hotel.getRooms()) {
-            for (Reservation reservation : room.getReservations()) {
-                if (reservation.getGuestName().equals(guestName)) {
-                    StringBuilder details = new StringBuilder();
-                    details.append("Guest Name: ").append(reservation.getGuestName()).append("\n");
-                    details.append("Room Name: ").append(reservation.getRoomName()).append("\n");
-                    details.append("Check-in: ").append(reservation.getCheckIn()).append("\n");
-                    details.append("Check-out: ").append(reservation.getCheckOut()).append("\n");
-                    details.append("Total Price: ").append(reservation.getTotalCost()).append("\n");
-                    view.displayInfo(details.toString());
-                    return; // Found the reservation, no need to search further
-                }
+        List<Reservation> found = guestName == null ? new ArrayList<Reservation>() : guestIndex.findExact(guestName);
+        for (Reservation reservation : found) {
+            if (reservation.getHotel() == hotel) {
+                StringBuilder details = new StringBuilder();
+                details.append("Guest Name: ").append(reservation.getGuestName()).append("\n");
+                details.append("Room Name: ").append(reservation.getRoomName()).append("\n");
+                details.append("Check-in: ").append(reservation.getCheckIn()).append("\n");
+                details.append("Check-out: ").append(reservation.getCheckOut()).append("\n");
+                details.append("Total Price: ").append(reservation.getTotalCost()).append("\n");
+                view.displayInfo(details.toString());
+                return; // Found the reservation, no need to search further
             }
         }
+        List<ArchivedReservation> past = guestName == null ? new ArrayList<ArchivedReservation>()
+                : hotel.getArchive().findByGuest(guestName);
+        if (!past.isEmpty()) {
+            ArchivedReservation stay = past.get(past.size() - 1); // The latest stay
+            StringBuilder details = new StringBuilder();
+            details.append("Guest Name: ").append(stay.getGuestName()).append(" (checked out)\n");
+            details.append("Room Name: ").append(stay.getRoomName()).append("\n");
+            details.append("Check-in: ").append(stay.getCheckIn()).append("\n");
+            details.append("Check-out: ").append(stay.getCheckOut()).append("\n");
+            details.append("Total Price: ").append(stay.getTotalCost()).append("\n");
+            view.displayInfo(details.toString());
+            return;
+        }
         view.showMessage("Reservation not found for guest: " + guestName);
     }
 
+    /**
+     * Displays the reservations of guests whose names start with a prefix, in
+     * every hotel.
+     * 
+     * @param prefix the start of the guest name, in any case
+     */
+    private void displayGuestMatches(String prefix) {
+        List<Reservation> matches = guestIndex.findByPrefix(prefix, GUEST_MATCH_LIMIT);
+        if (matches.isEmpty()) {
+            view.showMessage("No guest found starting with: " + prefix);
+            return;
+        }
+        StringBuilder details = new StringBuilder();
+        for (Reservation reservation : matches) {
+            details.append(reservation.getGuestName()).append(" | ").append(reservation.getHotel().getName())
+                    .append(" | Room ").append(reservation.getRoomName()).append(" | ")
+                    .append(reservation.getCheckIn()).append(" to ").append(reservation.getCheckOut()).append("\n");
+        }
+        view.displayInfo(details.toString());
+    }
+
     /**
      * Checks the availability of rooms in a specified hotel on a specific date.
      * 
@@ -604,15 +1104,9 @@ public class HotelManagementController {
             view.showMessage("Invalid date. Please enter a date between 1 and 30.");
             return;
         }
-        int availableRooms = 0;
-        int bookedRooms = 0;
-        for (Room room : hotel.getRooms()) {
-            if (room.isAvailable(date, date + 1)) {
-                availableRooms++;
-            } else {
-                bookedRooms++;
-            }
-        }
+        HotelSnapshot snapshot = hotel.snapshot(); // Available and booked add up to the total
+        int availableRooms = snapshot.getAvailableRooms(date);
+        int bookedRooms = snapshot.getBookedRooms(date);
 
         view.displayInfo("\n");
         view.displayInfo("Available Rooms: " + availableRooms);
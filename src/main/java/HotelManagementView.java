@@ -53,6 +53,18 @@ public class HotelManagementView {
 
         JButton btnSimulateBooking = new JButton("Booking");
         panel.add(btnSimulateBooking);
+
+        JButton btnSearchRooms = new JButton("Search Rooms");
+        panel.add(btnSearchRooms);
+
+        JButton btnImport = new JButton("Import");
+        panel.add(btnImport);
+
+        JButton btnExport = new JButton("Export");
+        panel.add(btnExport);
+
+        JButton btnReport = new JButton("Report");
+        panel.add(btnReport);
     }
 
     /**
@@ -105,6 +117,46 @@ public class HotelManagementView {
         btnSimulateBooking.addActionListener(actionListener);
     }
 
+    /**
+     * Sets the action listener for the "Search Rooms" button.
+     *
+     * @param actionListener the ActionListener to be set
+     */
+    public void setSearchRoomsButtonListener(ActionListener actionListener) {
+        JButton btnSearchRooms = (JButton) panel.getComponent(5);
+        btnSearchRooms.addActionListener(actionListener);
+    }
+
+    /**
+     * Sets the action listener for the "Import" button.
+     *
+     * @param actionListener the ActionListener to be set
+     */
+    public void setImportButtonListener(ActionListener actionListener) {
+        JButton btnImport = (JButton) panel.getComponent(6);
+        btnImport.addActionListener(actionListener);
+    }
+
+    /**
+     * Sets the action listener for the "Export" button.
+     *
+     * @param actionListener the ActionListener to be set
+     */
+    public void setExportButtonListener(ActionListener actionListener) {
+        JButton btnExport = (JButton) panel.getComponent(7);
+        btnExport.addActionListener(actionListener);
+    }
+
+    /**
+     * Sets the action listener for the "Report" button.
+     *
+     * @param actionListener the ActionListener to be set
+     */
+    public void setReportButtonListener(ActionListener actionListener) {
+        JButton btnReport = (JButton) panel.getComponent(8);
+        btnReport.addActionListener(actionListener);
+    }
+
     /**
      * Displays a message to the user in a dialog box.
      *
@@ -0,0 +1,151 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The HotelSnapshot class is an immutable, consistent view of a whole hotel at
+ * one point in time: its name, its price snapshot and the snapshot of every
+ * room, and the archive segments of its checked-out stays. Reports computed
+ * from one HotelSnapshot always agree with each other,
+ * however long they take, while bookings carry on against the live hotel.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class HotelSnapshot {
+    private long version;
+    private String name;
+    private PriceSnapshot pricing;
+    private List<RoomSnapshot> rooms;
+    private List<ColdSegment> archived;
+
+    /**
+     * Constructor for creating a new HotelSnapshot.
+     *
+     * @param version the structure version of the hotel when the snapshot was
+     *                taken
+     * @param name    the name of the hotel
+     * @param pricing the price snapshot of the hotel
+     * @param rooms    the snapshots of the rooms, in slot order
+     * @param archived the segments of the archive, oldest first
+     */
+    public HotelSnapshot(long version, String name, PriceSnapshot pricing, List<RoomSnapshot> rooms,
+            List<ColdSegment> archived) {
+        this.version = version;
+        this.name = name;
+        this.pricing = pricing;
+        this.rooms = Collections.unmodifiableList(rooms);
+        this.archived = Collections.unmodifiableList(archived);
+    }
+
+    /**
+     * Gets the structure version of the hotel, which changes when rooms are added
+     * or removed or the hotel is renamed.
+     *
+     * @return the structure version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the name of the hotel.
+     *
+     * @return the name of the hotel
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the price snapshot of the hotel.
+     *
+     * @return the price snapshot
+     */
+    public PriceSnapshot getPriceSnapshot() {
+        return pricing;
+    }
+
+    /**
+     * Gets the snapshots of the rooms, in slot order.
+     *
+     * @return the read-only list of room snapshots
+     */
+    public List<RoomSnapshot> getRooms() {
+        return rooms;
+    }
+
+    /**
+     * Gets the segments of the archive, oldest first.
+     *
+     * @return the read-only list of segments
+     */
+    public List<ColdSegment> getArchivedSegments() {
+        return archived;
+    }
+
+    /**
+     * Reads the archived stays of the hotel, decompressing every segment.
+     *
+     * @return the archived stays, oldest segment first
+     */
+    public List<ArchivedReservation> getArchivedReservations() {
+        List<ArchivedReservation> stays = new ArrayList<ArchivedReservation>();
+        for (ColdSegment segment : archived) {
+            stays.addAll(segment.read());
+        }
+        return stays;
+    }
+
+    /**
+     * Gets the total number of rooms in the hotel.
+     *
+     * @return the number of rooms
+     */
+    public int getTotalRooms() {
+        return rooms.size();
+    }
+
+    /**
+     * Calculates the estimated earnings from all reservations in the hotel.
+     *
+     * @return the total estimated earnings
+     */
+    public double getEstimatedEarnings() {
+        double totalEarnings = 0.0;
+        for (RoomSnapshot room : rooms) {
+            totalEarnings += room.getEarnings();
+        }
+        for (ColdSegment segment : archived) {
+            totalEarnings += segment.getRevenue(); // From the segment's totals, nothing is decompressed
+        }
+        return totalEarnings;
+    }
+
+    /**
+     * Gets the number of available rooms for a given date.
+     *
+     * @param date the date for which to check room availability
+     * @return the number of available rooms
+     */
+    public int getAvailableRooms(int date) {
+        int availableRooms = 0;
+        for (RoomSnapshot room : rooms) {
+            if (room.isAvailable(date)) {
+                availableRooms++;
+            }
+        }
+        return availableRooms;
+    }
+
+    /**
+     * Gets the number of booked rooms for a given date.
+     *
+     * @param date the date for which to check room bookings
+     * @return the number of booked rooms
+     */
+    public int getBookedRooms(int date) {
+        return getTotalRooms() - getAvailableRooms(date);
+    }
+}
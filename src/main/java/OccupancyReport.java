@@ -0,0 +1,224 @@
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The OccupancyReport class holds the month's occupancy and revenue figures of
+ * a hotel, or of a whole portfolio of hotels. For every night it gives the
+ * room nights sold and the revenue earned, from which the occupancy rate, the
+ * average daily rate (revenue per room night sold) and the RevPAR (revenue
+ * per available room) follow. Revenue is also broken down by room type and by
+ * discount code.
+ *
+ * <p>
+ * Revenue is what guests pay after discounts. A stay's revenue is spread over
+ * its nights in proportion to the hotel's date price modifiers.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class OccupancyReport {
+    private String name;
+    private int rooms;
+    private int[] nightsSold;
+    private double[] revenue;
+    private Map<String, Double> revenueByRoomType;
+    private Map<String, Double> revenueByDiscountCode;
+
+    /**
+     * Constructor for creating an OccupancyReport. The arrays are indexed by
+     * date and are not copied.
+     *
+     * @param name                  the name of the hotel, or of the portfolio
+     * @param rooms                 the number of rooms available each night
+     * @param nightsSold            the room nights sold on each date
+     * @param revenue               the revenue earned on each date
+     * @param revenueByRoomType     the month's revenue of each room type
+     * @param revenueByDiscountCode the month's revenue of each discount code,
+     *                              with stays without a code under an empty
+     *                              string
+     */
+    OccupancyReport(String name, int rooms, int[] nightsSold, double[] revenue,
+            Map<String, Double> revenueByRoomType, Map<String, Double> revenueByDiscountCode) {
+        this.name = name;
+        this.rooms = rooms;
+        this.nightsSold = nightsSold;
+        this.revenue = revenue;
+        this.revenueByRoomType = Collections.unmodifiableMap(new LinkedHashMap<String, Double>(revenueByRoomType));
+        this.revenueByDiscountCode = Collections
+                .unmodifiableMap(new LinkedHashMap<String, Double>(revenueByDiscountCode));
+    }
+
+    /**
+     * Gets the name of the hotel, or of the portfolio.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of rooms available each night.
+     *
+     * @return the number of rooms
+     */
+    public int getRooms() {
+        return rooms;
+    }
+
+    /**
+     * Gets the number of room nights sold on a date.
+     *
+     * @param date the date
+     * @return the room nights sold
+     */
+    public int getNightsSold(int date) {
+        return nightsSold[date];
+    }
+
+    /**
+     * Gets the revenue earned on a date.
+     *
+     * @param date the date
+     * @return the revenue
+     */
+    public double getRevenue(int date) {
+        return revenue[date];
+    }
+
+    /**
+     * Gets the share of rooms sold on a date.
+     *
+     * @param date the date
+     * @return the occupancy rate, from 0 to 1
+     */
+    public double getOccupancy(int date) {
+        return rooms == 0 ? 0 : (double) nightsSold[date] / rooms;
+    }
+
+    /**
+     * Gets the average daily rate on a date: the revenue per room night sold.
+     *
+     * @param date the date
+     * @return the average daily rate, or 0 if no room was sold
+     */
+    public double getAverageDailyRate(int date) {
+        return nightsSold[date] == 0 ? 0 : revenue[date] / nightsSold[date];
+    }
+
+    /**
+     * Gets the revenue per available room on a date.
+     *
+     * @param date the date
+     * @return the RevPAR
+     */
+    public double getRevPar(int date) {
+        return rooms == 0 ? 0 : revenue[date] / rooms;
+    }
+
+    /**
+     * Gets the number of room nights sold over the month.
+     *
+     * @return the room nights sold
+     */
+    public long getNightsSold() {
+        long total = 0;
+        for (int date = 1; date <= Hotel.DAYS_IN_MONTH; date++) {
+            total += nightsSold[date];
+        }
+        return total;
+    }
+
+    /**
+     * Gets the revenue earned over the month.
+     *
+     * @return the revenue
+     */
+    public double getRevenue() {
+        double total = 0;
+        for (int date = 1; date <= Hotel.DAYS_IN_MONTH; date++) {
+            total += revenue[date];
+        }
+        return total;
+    }
+
+    /**
+     * Gets the share of room nights sold over the month.
+     *
+     * @return the occupancy rate, from 0 to 1
+     */
+    public double getOccupancy() {
+        return rooms == 0 ? 0 : (double) getNightsSold() / ((long) rooms * Hotel.DAYS_IN_MONTH);
+    }
+
+    /**
+     * Gets the average daily rate over the month.
+     *
+     * @return the average daily rate, or 0 if no room was sold
+     */
+    public double getAverageDailyRate() {
+        long sold = getNightsSold();
+        return sold == 0 ? 0 : getRevenue() / sold;
+    }
+
+    /**
+     * Gets the revenue per available room night over the month.
+     *
+     * @return the RevPAR
+     */
+    public double getRevPar() {
+        return rooms == 0 ? 0 : getRevenue() / ((long) rooms * Hotel.DAYS_IN_MONTH);
+    }
+
+    /**
+     * Gets the month's revenue of each room type.
+     *
+     * @return the revenue by room type
+     */
+    public Map<String, Double> getRevenueByRoomType() {
+        return revenueByRoomType;
+    }
+
+    /**
+     * Gets the month's revenue of each discount code. Stays booked without a
+     * code are under an empty string.
+     *
+     * @return the revenue by discount code
+     */
+    public Map<String, Double> getRevenueByDiscountCode() {
+        return revenueByDiscountCode;
+    }
+
+    /**
+     * Formats the report as text: the month's figures, the breakdowns and one
+     * line per night.
+     *
+     * @return the report
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append(name).append(": ").append(rooms).append(" rooms, occupancy ")
+                .append(String.format("%.1f%%", getOccupancy() * 100)).append(", ADR ")
+                .append(String.format("%.2f", getAverageDailyRate())).append(", RevPAR ")
+                .append(String.format("%.2f", getRevPar())).append(", revenue ")
+                .append(String.format("%.2f", getRevenue())).append("\n");
+        text.append("  By room type:");
+        for (Map.Entry<String, Double> type : revenueByRoomType.entrySet()) {
+            text.append(" ").append(type.getKey()).append(" ").append(String.format("%.2f", type.getValue()));
+        }
+        text.append("\n  By discount code:");
+        for (Map.Entry<String, Double> code : revenueByDiscountCode.entrySet()) {
+            text.append(" ").append(code.getKey().isEmpty() ? "(none)" : code.getKey()).append(" ")
+                    .append(String.format("%.2f", code.getValue()));
+        }
+        text.append("\n");
+        for (int date = 1; date <= Hotel.DAYS_IN_MONTH; date++) {
+            text.append(String.format("  Day %2d: occupancy %5.1f%%, ADR %9.2f, RevPAR %9.2f\n", date,
+                    getOccupancy(date) * 100, getAverageDailyRate(date), getRevPar(date)));
+        }
+        return text.toString();
+    }
+}
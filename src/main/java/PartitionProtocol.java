@@ -0,0 +1,91 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * The PartitionProtocol class holds the binary protocol spoken between a
+ * {@link PartitionRouter} and its {@link PartitionServer} processes.
+ *
+ * <p>
+ * A request is an opcode byte followed by its arguments; the reply is a status
+ * byte followed, when the status is OK, by the operation's result. Strings are
+ * written as modified UTF-8 with a two-byte length, dates as single bytes,
+ * prices as doubles and counts as ints. Requests on one connection are
+ * answered in order, one at a time. An ERROR reply is the last one on its
+ * connection: the server closes it, and the router drops it.
+ *
+ * <pre>
+ * PING                                                  -&gt;
+ * CREATE_HOTEL   name basePrice maxRooms                -&gt;
+ * REMOVE_HOTEL   hotel                                  -&gt;
+ * ADD_ROOM       hotel room type                        -&gt;
+ * SET_BASE_PRICE hotel basePrice                        -&gt;
+ * SET_MODIFIER   hotel date rate                        -&gt;
+ * BOOK           hotel room type guest checkIn checkOut -&gt; offer
+ * CANCEL         hotel room guest                       -&gt;
+ * AVAILABILITY   hotel date                             -&gt; available booked
+ * EARNINGS       hotel                                  -&gt; earnings
+ * LIST_HOTELS                                           -&gt; count name*
+ * SEARCH         checkIn checkOut maxPrice type limit   -&gt; count offer*
+ * </pre>
+ *
+ * An offer is hotel, room, type and price. An empty room or type means any.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public final class PartitionProtocol {
+    /** Line a partition process prints once it listens, followed by its port. */
+    public static final String READY = "PARTITION READY ";
+
+    static final byte PING = 0;
+    static final byte CREATE_HOTEL = 1;
+    static final byte REMOVE_HOTEL = 2;
+    static final byte ADD_ROOM = 3;
+    static final byte SET_BASE_PRICE = 4;
+    static final byte SET_MODIFIER = 5;
+    static final byte BOOK = 6;
+    static final byte CANCEL = 7;
+    static final byte AVAILABILITY = 8;
+    static final byte EARNINGS = 9;
+    static final byte LIST_HOTELS = 10;
+    static final byte SEARCH = 11;
+
+    /** The request succeeded. */
+    static final byte OK = 0;
+    /** The hotel, room or reservation does not exist. */
+    static final byte NOT_FOUND = 1;
+    /** The request was understood but refused, such as a room already booked. */
+    static final byte REJECTED = 2;
+    /** The request failed; a message follows. */
+    static final byte ERROR = 3;
+
+    private PartitionProtocol() {
+    }
+
+    /**
+     * Writes a room offer.
+     *
+     * @param out   the stream
+     * @param offer the offer
+     * @throws IOException if the stream fails
+     */
+    static void writeOffer(DataOutputStream out, RoomOffer offer) throws IOException {
+        out.writeUTF(offer.getHotelName());
+        out.writeUTF(offer.getRoomName());
+        out.writeUTF(offer.getRoomType());
+        out.writeDouble(offer.getTotalPrice());
+    }
+
+    /**
+     * Reads a room offer.
+     *
+     * @param in the stream
+     * @return the offer
+     * @throws IOException if the stream fails
+     */
+    static RoomOffer readOffer(DataInputStream in) throws IOException {
+        return new RoomOffer(in.readUTF(), in.readUTF(), in.readUTF(), in.readDouble());
+    }
+}
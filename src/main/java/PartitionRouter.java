@@ -0,0 +1,517 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The PartitionRouter class spreads hotels over several engine processes on
+ * the same machine, each a {@link PartitionServer} owning the hotels whose
+ * names hash to it. Calls about one hotel are forwarded to its partition over
+ * loopback TCP in the {@link PartitionProtocol}; calls about every hotel, such
+ * as searches and listings, are sent to all partitions at once and their
+ * replies merged.
+ *
+ * <p>
+ * Each partition is reached through a pool of connections, one per calling
+ * thread at a time, so calls from many threads proceed in parallel. A broken
+ * connection is dropped and the call fails with an UncheckedIOException; a
+ * connection that brought back an error is dropped as well. The next call
+ * opens a new connection.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class PartitionRouter implements Closeable {
+    private Partition[] partitions;
+    private List<Process> processes;
+    private ExecutorService fanOut;
+
+    /**
+     * Constructor for creating a PartitionRouter over partition servers that
+     * are already listening on loopback ports.
+     *
+     * @param ports the port of each partition, in partition order
+     */
+    public PartitionRouter(int[] ports) {
+        this.partitions = new Partition[ports.length];
+        for (int i = 0; i < ports.length; i++) {
+            partitions[i] = new Partition(ports[i]);
+        }
+        this.processes = new ArrayList<Process>();
+        this.fanOut = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "partition-fan-out");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts a number of partition processes, each a JVM running
+     * {@link PartitionServer} with this process's class path, and routes to
+     * them. The processes exit when the router is closed or this process
+     * exits.
+     *
+     * @param count the number of partitions
+     * @return the router
+     * @throws IOException if a process cannot be started or does not report
+     *                     its port
+     */
+    public static PartitionRouter launch(int count) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        String classPath = System.getProperty("java.class.path");
+        List<Process> started = new ArrayList<Process>();
+        int[] ports = new int[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                ProcessBuilder builder = new ProcessBuilder(java, "-cp", classPath, PartitionServer.class.getName());
+                builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+                started.add(builder.start());
+            }
+            for (int i = 0; i < count; i++) {
+                ports[i] = readPort(started.get(i));
+            }
+        } catch (IOException ex) {
+            for (Process process : started) {
+                process.destroy();
+            }
+            throw ex;
+        }
+        PartitionRouter router = new PartitionRouter(ports);
+        router.processes.addAll(started);
+        return router;
+    }
+
+    /**
+     * Waits for a partition process to report the port it listens on.
+     *
+     * @param process the process
+     * @return the port
+     * @throws IOException if the process exits or prints something else
+     */
+    private static int readPort(Process process) throws IOException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        String line = reader.readLine();
+        if (line == null || !line.startsWith(PartitionProtocol.READY)) {
+            throw new IOException("Partition process did not start: " + line);
+        }
+        return Integer.parseInt(line.substring(PartitionProtocol.READY.length()).trim());
+    }
+
+    /**
+     * Gets the number of partitions.
+     *
+     * @return the number of partitions
+     */
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    /**
+     * Gets the partition that owns a hotel.
+     *
+     * @param hotelName the name of the hotel
+     * @return the index of the partition
+     */
+    public int partitionOf(String hotelName) {
+        return Math.floorMod(hotelName.hashCode(), partitions.length);
+    }
+
+    /**
+     * Creates a hotel in its partition.
+     *
+     * @param name      the name of the hotel
+     * @param basePrice the base price of its rooms, at least 100
+     * @param maxRooms  the maximum number of rooms
+     * @return true if the hotel was created, false if the name is taken or the
+     *         values are invalid
+     */
+    public boolean createHotel(String name, double basePrice, int maxRooms) {
+        return route(name).call(out -> {
+            out.writeByte(PartitionProtocol.CREATE_HOTEL);
+            out.writeUTF(name);
+            out.writeDouble(basePrice);
+            out.writeInt(maxRooms);
+        }, PartitionRouter::isOk);
+    }
+
+    /**
+     * Removes a hotel.
+     *
+     * @param name the name of the hotel
+     * @return true if the hotel was removed, false if it does not exist
+     */
+    public boolean removeHotel(String name) {
+        return route(name).call(out -> {
+            out.writeByte(PartitionProtocol.REMOVE_HOTEL);
+            out.writeUTF(name);
+        }, PartitionRouter::isOk);
+    }
+
+    /**
+     * Adds a room to a hotel.
+     *
+     * @param hotelName the name of the hotel
+     * @param roomName  the name of the room
+     * @param roomType  Standard, Deluxe or Executive
+     * @return true if the room was added, false if the hotel does not exist,
+     *         the name is taken, the type is invalid or the hotel is full
+     */
+    public boolean addRoom(String hotelName, String roomName, String roomType) {
+        return route(hotelName).call(out -> {
+            out.writeByte(PartitionProtocol.ADD_ROOM);
+            out.writeUTF(hotelName);
+            out.writeUTF(roomName);
+            out.writeUTF(roomType);
+        }, PartitionRouter::isOk);
+    }
+
+    /**
+     * Changes the base price of a hotel.
+     *
+     * @param hotelName the name of the hotel
+     * @param basePrice the new base price, at least 100
+     * @return true if the price was changed, false if the hotel does not exist,
+     *         the price is invalid or every room is booked
+     */
+    public boolean setBasePrice(String hotelName, double basePrice) {
+        return route(hotelName).call(out -> {
+            out.writeByte(PartitionProtocol.SET_BASE_PRICE);
+            out.writeUTF(hotelName);
+            out.writeDouble(basePrice);
+        }, PartitionRouter::isOk);
+    }
+
+    /**
+     * Sets the price modifier of a date in a hotel.
+     *
+     * @param hotelName the name of the hotel
+     * @param date      the date
+     * @param priceRate the modifier, from 0.5 to 1.5
+     * @return true if the modifier was set, false if the hotel does not exist
+     *         or the values are invalid
+     */
+    public boolean setDatePriceModifier(String hotelName, int date, double priceRate) {
+        return route(hotelName).call(out -> {
+            out.writeByte(PartitionProtocol.SET_MODIFIER);
+            out.writeUTF(hotelName);
+            out.writeByte(date);
+            out.writeDouble(priceRate);
+        }, PartitionRouter::isOk);
+    }
+
+    /**
+     * Books a room of a hotel.
+     *
+     * @param hotelName the name of the hotel
+     * @param roomName  the name of the room, or null for any free room of the
+     *                  type
+     * @param roomType  the room type, used when no room is named
+     * @param guestName the name of the guest
+     * @param checkIn   the check-in date
+     * @param checkOut  the check-out date
+     * @return the room booked and the price of the stay, or null if the hotel
+     *         or room does not exist or no room is free
+     */
+    public RoomOffer book(String hotelName, String roomName, String roomType, String guestName, int checkIn,
+            int checkOut) {
+        return route(hotelName).call(out -> {
+            out.writeByte(PartitionProtocol.BOOK);
+            out.writeUTF(hotelName);
+            out.writeUTF(roomName == null ? "" : roomName);
+            out.writeUTF(roomType == null ? "" : roomType);
+            out.writeUTF(guestName);
+            out.writeByte(checkIn);
+            out.writeByte(checkOut);
+        }, (status, in) -> status == PartitionProtocol.OK ? PartitionProtocol.readOffer(in) : null);
+    }
+
+    /**
+     * Cancels the reservations of a guest in a room.
+     *
+     * @param hotelName the name of the hotel
+     * @param roomName  the name of the room
+     * @param guestName the name of the guest
+     * @return true if a reservation was cancelled
+     */
+    public boolean cancel(String hotelName, String roomName, String guestName) {
+        return route(hotelName).call(out -> {
+            out.writeByte(PartitionProtocol.CANCEL);
+            out.writeUTF(hotelName);
+            out.writeUTF(roomName);
+            out.writeUTF(guestName);
+        }, PartitionRouter::isOk);
+    }
+
+    /**
+     * Counts the free and booked rooms of a hotel on a date.
+     *
+     * @param hotelName the name of the hotel
+     * @param date      the date
+     * @return the number of free and booked rooms, as { available, booked }, or
+     *         null if the hotel does not exist
+     */
+    public int[] getAvailability(String hotelName, int date) {
+        return route(hotelName).call(out -> {
+            out.writeByte(PartitionProtocol.AVAILABILITY);
+            out.writeUTF(hotelName);
+            out.writeByte(date);
+        }, (status, in) -> status == PartitionProtocol.OK ? new int[] { in.readInt(), in.readInt() } : null);
+    }
+
+    /**
+     * Gets the estimated earnings of a hotel.
+     *
+     * @param hotelName the name of the hotel
+     * @return the earnings, or -1 if the hotel does not exist
+     */
+    public double getEstimatedEarnings(String hotelName) {
+        return route(hotelName).call(out -> {
+            out.writeByte(PartitionProtocol.EARNINGS);
+            out.writeUTF(hotelName);
+        }, (status, in) -> status == PartitionProtocol.OK ? in.readDouble() : -1);
+    }
+
+    /**
+     * Lists the hotels of every partition.
+     *
+     * @return the hotel names, sorted
+     */
+    public List<String> listHotels() {
+        List<String> names = new ArrayList<String>();
+        for (List<String> part : fanOut(out -> out.writeByte(PartitionProtocol.LIST_HOTELS), (status, in) -> {
+            List<String> found = new ArrayList<String>();
+            for (int i = in.readInt(); i > 0; i--) {
+                found.add(in.readUTF());
+            }
+            return found;
+        })) {
+            names.addAll(part);
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Searches every partition for rooms free for a stay and within a price
+     * limit. Each partition returns its cheapest matches, which are merged.
+     *
+     * @param checkIn  the check-in date
+     * @param checkOut the check-out date
+     * @param maxPrice the highest acceptable total price of the stay
+     * @param roomType the room type to look for, or null for any type
+     * @param limit    the maximum number of matches to return
+     * @return the cheapest matches, sorted by total price
+     * @throws IllegalArgumentException if the limit is negative
+     */
+    public List<RoomOffer> search(int checkIn, int checkOut, double maxPrice, String roomType, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Search limit must not be negative: " + limit);
+        }
+        List<RoomOffer> offers = new ArrayList<RoomOffer>();
+        for (List<RoomOffer> part : fanOut(out -> {
+            out.writeByte(PartitionProtocol.SEARCH);
+            out.writeByte(checkIn);
+            out.writeByte(checkOut);
+            out.writeDouble(maxPrice);
+            out.writeUTF(roomType == null ? "" : roomType);
+            out.writeInt(limit);
+        }, (status, in) -> {
+            List<RoomOffer> found = new ArrayList<RoomOffer>();
+            for (int i = in.readInt(); i > 0; i--) {
+                found.add(PartitionProtocol.readOffer(in));
+            }
+            return found;
+        })) {
+            offers.addAll(part);
+        }
+        Collections.sort(offers);
+        return offers.size() > limit ? new ArrayList<RoomOffer>(offers.subList(0, limit)) : offers;
+    }
+
+    /**
+     * Closes every connection and stops the partition processes this router
+     * started.
+     */
+    @Override
+    public void close() {
+        for (Partition partition : partitions) {
+            partition.close();
+        }
+        fanOut.shutdown();
+        for (Process process : processes) {
+            try {
+                process.getOutputStream().close(); // The process exits when its input closes
+            } catch (IOException ex) {
+                process.destroy();
+            }
+        }
+        processes.clear();
+    }
+
+    /**
+     * Gets the partition that owns a hotel.
+     *
+     * @param hotelName the name of the hotel
+     * @return the partition
+     */
+    private Partition route(String hotelName) {
+        return partitions[partitionOf(hotelName)];
+    }
+
+    /**
+     * Sends the same request to every partition at once and collects the
+     * replies.
+     *
+     * @param request the request
+     * @param reply   the reader of each partition's reply
+     * @param <T>     the type of a reply
+     * @return the replies, in partition order
+     */
+    private <T> List<T> fanOut(Request request, Reply<T> reply) {
+        List<CompletableFuture<T>> calls = new ArrayList<CompletableFuture<T>>();
+        for (Partition partition : partitions) {
+            calls.add(CompletableFuture.supplyAsync(() -> partition.call(request, reply), fanOut));
+        }
+        List<T> replies = new ArrayList<T>();
+        for (CompletableFuture<T> call : calls) {
+            try {
+                replies.add(call.join());
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ex.getCause();
+                }
+                throw ex;
+            }
+        }
+        return replies;
+    }
+
+    /**
+     * Reads a reply that is only a status.
+     *
+     * @param status the status
+     * @param in     the reply stream
+     * @return true if the status is OK
+     */
+    private static boolean isOk(byte status, DataInputStream in) {
+        return status == PartitionProtocol.OK;
+    }
+
+    /**
+     * Writes a request.
+     */
+    private interface Request {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Reads the reply to a request once its status is known.
+     *
+     * @param <T> the type of the reply
+     */
+    private interface Reply<T> {
+        T read(byte status, DataInputStream in) throws IOException;
+    }
+
+    /**
+     * One partition process, reached through a pool of idle connections.
+     */
+    private static class Partition {
+        private int port;
+        private ConcurrentLinkedQueue<Connection> idle;
+
+        Partition(int port) {
+            this.port = port;
+            this.idle = new ConcurrentLinkedQueue<Connection>();
+        }
+
+        /**
+         * Sends a request on an idle connection, or a new one, and reads the
+         * reply.
+         *
+         * @param request the request
+         * @param reply   the reader of the reply
+         * @param <T>     the type of the reply
+         * @return the reply
+         * @throws UncheckedIOException if the partition cannot be reached
+         * @throws IllegalStateException if the partition reports an error
+         */
+        <T> T call(Request request, Reply<T> reply) {
+            Connection connection = idle.poll();
+            try {
+                if (connection == null) {
+                    connection = new Connection(port);
+                }
+                request.write(connection.out);
+                connection.out.flush();
+                byte status = connection.in.readByte();
+                if (status == PartitionProtocol.ERROR) {
+                    String message = connection.in.readUTF();
+                    connection.close(); // The server closes it too, the request may be unread
+                    throw new IllegalStateException("Partition on port " + port + " failed: " + message);
+                }
+                T result = reply.read(status, connection.in);
+                idle.add(connection);
+                return result;
+            } catch (IOException ex) {
+                if (connection != null) {
+                    connection.close(); // Its stream is out of step, never reuse it
+                }
+                throw new UncheckedIOException("Partition on port " + port + " unreachable.", ex);
+            }
+        }
+
+        /**
+         * Closes the idle connections.
+         */
+        void close() {
+            Connection connection;
+            while ((connection = idle.poll()) != null) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * An open connection to a partition.
+     */
+    private static class Connection {
+        private Socket socket;
+        private DataInputStream in;
+        private DataOutputStream out;
+
+        Connection(int port) throws IOException {
+            this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            this.socket.setTcpNoDelay(true);
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException ex) {
+                // Already broken
+            }
+        }
+    }
+}
@@ -0,0 +1,361 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The PartitionServer class is an engine process owning one partition of the
+ * hotels. It listens on a loopback port and answers requests of the
+ * {@link PartitionProtocol} on each connection in turn, one thread per
+ * connection, applying them to its own hotels.
+ *
+ * <p>
+ * Run as a program it listens on the port given as its argument, or on a free
+ * port if none is given, prints {@link PartitionProtocol#READY} and the port
+ * on standard output, and exits when its standard input is closed, which
+ * happens when the process that started it exits.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class PartitionServer {
+    private ConcurrentMap<String, Hotel> hotels;
+    private ServerSocket server;
+    private volatile boolean running;
+
+    /**
+     * Constructor for creating a PartitionServer bound to a loopback port.
+     *
+     * @param port the port, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public PartitionServer(int port) throws IOException {
+        this.hotels = new ConcurrentHashMap<String, Hotel>();
+        this.server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * Starts accepting connections on a background thread.
+     */
+    public void start() {
+        running = true;
+        Thread acceptor = new Thread(this::accept, "partition-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Gets the number of hotels in the partition.
+     *
+     * @return the number of hotels
+     */
+    public int getHotelCount() {
+        return hotels.size();
+    }
+
+    /**
+     * Stops accepting connections.
+     *
+     * @throws IOException if the socket cannot be closed
+     */
+    public void close() throws IOException {
+        running = false;
+        server.close();
+    }
+
+    /**
+     * Loop of the acceptor thread: starts a thread for each new connection.
+     */
+    private void accept() {
+        while (running) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                Thread connection = new Thread(() -> serve(socket), "partition-connection");
+                connection.setDaemon(true);
+                connection.start();
+            } catch (IOException ex) {
+                if (running) {
+                    System.err.println("Partition accept failed: " + ex.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Answers the requests of one connection until it is closed. Each reply is
+     * built in full before any of it is sent, so a request that fails halfway
+     * sends only its ERROR reply. The connection is then closed, since the rest
+     * of the failed request may still be unread.
+     *
+     * @param socket the connection
+     */
+    private void serve(Socket socket) {
+        try (Socket s = socket;
+                DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            DataOutputStream reply = new DataOutputStream(buffer);
+            while (true) {
+                byte op;
+                try {
+                    op = in.readByte();
+                } catch (EOFException ex) {
+                    return; // The router closed the connection
+                }
+                buffer.reset();
+                try {
+                    handle(op, in, reply);
+                } catch (RuntimeException ex) {
+                    out.writeByte(PartitionProtocol.ERROR);
+                    out.writeUTF(String.valueOf(ex.getMessage()));
+                    out.flush();
+                    return; // The stream may be out of step
+                }
+                buffer.writeTo(out);
+                out.flush();
+            }
+        } catch (IOException ex) {
+            // Connection lost, the router reconnects
+        }
+    }
+
+    /**
+     * Reads the arguments of one request, applies it and writes the reply.
+     *
+     * @param op  the opcode
+     * @param in  the request stream
+     * @param out the reply stream
+     * @throws IOException if a stream fails
+     */
+    private void handle(byte op, DataInputStream in, DataOutputStream out) throws IOException {
+        switch (op) {
+            case PartitionProtocol.PING:
+                out.writeByte(PartitionProtocol.OK);
+                break;
+            case PartitionProtocol.CREATE_HOTEL: {
+                String name = in.readUTF();
+                double basePrice = in.readDouble();
+                int maxRooms = in.readInt();
+                if (name.isEmpty() || basePrice < 100 || maxRooms < 1) {
+                    out.writeByte(PartitionProtocol.REJECTED);
+                    break;
+                }
+                Hotel hotel = new Hotel(name, basePrice);
+                hotel.setMaxRooms(maxRooms);
+                out.writeByte(hotels.putIfAbsent(name, hotel) == null ? PartitionProtocol.OK
+                        : PartitionProtocol.REJECTED);
+                break;
+            }
+            case PartitionProtocol.REMOVE_HOTEL:
+                out.writeByte(hotels.remove(in.readUTF()) != null ? PartitionProtocol.OK
+                        : PartitionProtocol.NOT_FOUND);
+                break;
+            case PartitionProtocol.ADD_ROOM: {
+                Hotel hotel = hotels.get(in.readUTF());
+                String roomName = in.readUTF();
+                String roomType = in.readUTF();
+                out.writeByte(hotel == null ? PartitionProtocol.NOT_FOUND : addRoom(hotel, roomName, roomType));
+                break;
+            }
+            case PartitionProtocol.SET_BASE_PRICE: {
+                Hotel hotel = hotels.get(in.readUTF());
+                double basePrice = in.readDouble();
+                if (hotel == null) {
+                    out.writeByte(PartitionProtocol.NOT_FOUND);
+                } else if (basePrice < 100 || !hotel.isPriceUpdateable()) {
+                    out.writeByte(PartitionProtocol.REJECTED);
+                } else {
+                    hotel.setBasePrice(basePrice);
+                    out.writeByte(PartitionProtocol.OK);
+                }
+                break;
+            }
+            case PartitionProtocol.SET_MODIFIER: {
+                Hotel hotel = hotels.get(in.readUTF());
+                int date = in.readByte();
+                double rate = in.readDouble();
+                if (hotel == null) {
+                    out.writeByte(PartitionProtocol.NOT_FOUND);
+                } else if (date < 1 || date > Hotel.DAYS_IN_MONTH || rate < 0.5 || rate > 1.5) {
+                    out.writeByte(PartitionProtocol.REJECTED);
+                } else {
+                    hotel.setDatePriceModifier(date, rate);
+                    out.writeByte(PartitionProtocol.OK);
+                }
+                break;
+            }
+            case PartitionProtocol.BOOK: {
+                Hotel hotel = hotels.get(in.readUTF());
+                String roomName = in.readUTF();
+                String roomType = in.readUTF();
+                String guestName = in.readUTF();
+                int checkIn = in.readByte();
+                int checkOut = in.readByte();
+                book(hotel, roomName, roomType, guestName, checkIn, checkOut, out);
+                break;
+            }
+            case PartitionProtocol.CANCEL: {
+                Hotel hotel = hotels.get(in.readUTF());
+                String roomName = in.readUTF();
+                String guestName = in.readUTF();
+                Room room = hotel == null ? null : hotel.getRoomByName(roomName);
+                out.writeByte(room != null && room.removeReservation(guestName) ? PartitionProtocol.OK
+                        : PartitionProtocol.NOT_FOUND);
+                break;
+            }
+            case PartitionProtocol.AVAILABILITY: {
+                Hotel hotel = hotels.get(in.readUTF());
+                int date = in.readByte();
+                if (hotel == null) {
+                    out.writeByte(PartitionProtocol.NOT_FOUND);
+                    break;
+                }
+                HotelSnapshot snapshot = hotel.snapshot(); // Free and booked counts of one moment
+                out.writeByte(PartitionProtocol.OK);
+                out.writeInt(snapshot.getAvailableRooms(date));
+                out.writeInt(snapshot.getBookedRooms(date));
+                break;
+            }
+            case PartitionProtocol.EARNINGS: {
+                Hotel hotel = hotels.get(in.readUTF());
+                if (hotel == null) {
+                    out.writeByte(PartitionProtocol.NOT_FOUND);
+                    break;
+                }
+                out.writeByte(PartitionProtocol.OK);
+                out.writeDouble(hotel.getEstimatedEarnings());
+                break;
+            }
+            case PartitionProtocol.LIST_HOTELS: {
+                List<String> names = new ArrayList<String>(hotels.keySet());
+                out.writeByte(PartitionProtocol.OK);
+                out.writeInt(names.size());
+                for (String name : names) {
+                    out.writeUTF(name);
+                }
+                break;
+            }
+            case PartitionProtocol.SEARCH: {
+                int checkIn = in.readByte();
+                int checkOut = in.readByte();
+                double maxPrice = in.readDouble();
+                String roomType = in.readUTF();
+                int limit = in.readInt();
+                List<RoomMatch> matches = new AvailabilitySearch(checkIn, checkOut, maxPrice,
+                        roomType.isEmpty() ? null : roomType, limit).search(new ArrayList<Hotel>(hotels.values()));
+                out.writeByte(PartitionProtocol.OK);
+                out.writeInt(matches.size());
+                for (RoomMatch match : matches) {
+                    PartitionProtocol.writeOffer(out, new RoomOffer(match.getHotel().getName(),
+                            match.getRoom().getName(), match.getRoom().getRoomType(), match.getTotalPrice()));
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown opcode " + op);
+        }
+    }
+
+    /**
+     * Adds a room to a hotel.
+     *
+     * @param hotel    the hotel
+     * @param roomName the name of the room
+     * @param roomType Standard, Deluxe or Executive
+     * @return the reply status
+     */
+    private static byte addRoom(Hotel hotel, String roomName, String roomType) {
+        Room room = Room.create(roomName, roomType, hotel.getBasePrice());
+        if (room == null) {
+            return PartitionProtocol.REJECTED;
+        }
+        synchronized (hotel) { // Check and add together, other connections may add rooms too
+            if (hotel.checkDuplicateRoomName(room.getName()) || hotel.getTotalRooms() >= hotel.getMaxRooms()) {
+                return PartitionProtocol.REJECTED;
+            }
+            hotel.addRoom(room);
+        }
+        return PartitionProtocol.OK;
+    }
+
+    /**
+     * Books a named room, or any free room of a type, and writes the reply.
+     *
+     * @param hotel     the hotel, or null if it does not exist
+     * @param roomName  the name of the room, or an empty string for any room
+     * @param roomType  the room type when no room is named
+     * @param guestName the name of the guest
+     * @param checkIn   the check-in date
+     * @param checkOut  the check-out date
+     * @param out       the reply stream
+     * @throws IOException if the stream fails
+     */
+    private static void book(Hotel hotel, String roomName, String roomType, String guestName, int checkIn,
+            int checkOut, DataOutputStream out) throws IOException {
+        Room room = hotel == null || roomName.isEmpty() ? null : hotel.getRoomByName(roomName);
+        if (hotel == null || (!roomName.isEmpty() && room == null)) {
+            out.writeByte(PartitionProtocol.NOT_FOUND);
+            return;
+        }
+        if (checkIn < 1 || checkOut > Hotel.DAYS_IN_MONTH + 1 || checkIn >= checkOut) {
+            out.writeByte(PartitionProtocol.REJECTED);
+            return;
+        }
+        Reservation reservation;
+        if (room == null) {
+            reservation = hotel.bookAutoAssigned(guestName, roomType, checkIn, checkOut);
+        } else {
+            reservation = new Reservation(guestName, checkIn, checkOut, room.getName(), hotel, room);
+            if (!room.addReservation(reservation)) {
+                reservation = null;
+            }
+        }
+        if (reservation == null) {
+            out.writeByte(PartitionProtocol.REJECTED);
+            return;
+        }
+        out.writeByte(PartitionProtocol.OK);
+        PartitionProtocol.writeOffer(out, new RoomOffer(hotel.getName(), reservation.getRoomName(),
+                room == null ? roomType : room.getRoomType(), reservation.getTotalCost()));
+    }
+
+    /**
+     * Runs a partition process.
+     *
+     * @param args the port to listen on, or nothing for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        PartitionServer server = new PartitionServer(args.length > 0 ? Integer.parseInt(args[0]) : 0);
+        server.start();
+        System.out.println(PartitionProtocol.READY + server.getPort());
+        System.out.flush();
+        // Live as long as the parent process: its end of standard input closes when it exits
+        while (System.in.read() >= 0) {
+            // Ignore anything written
+        }
+        server.close();
+        System.exit(0);
+    }
+}
@@ -0,0 +1,190 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * The PartitionedEngine class runs every change to a hotel on a single owner
+ * thread. Hotels are spread over a fixed number of partitions by hash; each
+ * partition has one thread that takes tasks from a bounded queue, which any
+ * number of threads may feed. Changes to one hotel therefore never contend with
+ * each other and are applied in the order they were submitted, while different
+ * partitions run in parallel. A full queue blocks the submitting thread until
+ * the owner catches up.
+ *
+ * <p>
+ * Reads do not go through the queues: they run on the calling thread against
+ * an immutable {@link HotelSnapshot} of the hotel, so they see either all of a
+ * change or none of it, whatever the owner thread is doing meanwhile.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class PartitionedEngine {
+    private static final int MAX_BATCH = 256; // Tasks an owner takes from its queue at once
+
+    private List<BlockingQueue<Runnable>> queues;
+    private List<Thread> owners;
+    private ReadWriteLock state; // Submitters share it, shutdown takes it alone
+    private boolean running;
+
+    /**
+     * Constructor for creating and starting a PartitionedEngine.
+     *
+     * @param partitions    the number of partitions, each with its own thread
+     * @param queueCapacity the number of pending tasks each partition accepts
+     *                      before submitters block
+     */
+    public PartitionedEngine(int partitions, int queueCapacity) {
+        this.queues = new ArrayList<BlockingQueue<Runnable>>();
+        this.owners = new ArrayList<Thread>();
+        this.state = new ReentrantReadWriteLock();
+        this.running = true;
+        for (int i = 0; i < partitions; i++) {
+            BlockingQueue<Runnable> queue = new ArrayBlockingQueue<Runnable>(queueCapacity);
+            Thread owner = new Thread(() -> runPartition(queue), "hotel-partition-" + i);
+            owner.setDaemon(true);
+            queues.add(queue);
+            owners.add(owner);
+            owner.start();
+        }
+    }
+
+    /**
+     * Gets the partition that owns a hotel.
+     *
+     * @param hotel the hotel
+     * @return the partition index
+     */
+    public int partitionOf(Hotel hotel) {
+        int hash = System.identityHashCode(hotel); // Stable even when the hotel is renamed
+        return Math.floorMod(hash ^ (hash >>> 16), queues.size());
+    }
+
+    /**
+     * Submits a change to a hotel, to be run on the hotel's owner thread. Blocks
+     * while the owner's queue is full.
+     *
+     * @param <T>      the type of the result
+     * @param hotel    the hotel to change
+     * @param mutation the change to run
+     * @return a future completed with the result of the change
+     * @throws IllegalStateException if the engine has been shut down
+     */
+    public <T> CompletableFuture<T> submit(Hotel hotel, Function<Hotel, T> mutation) {
+        CompletableFuture<T> result = new CompletableFuture<T>();
+        Runnable task = () -> {
+            try {
+                result.complete(mutation.apply(hotel));
+            } catch (RuntimeException ex) {
+                result.completeExceptionally(ex);
+            }
+        };
+        Lock admission = state.readLock();
+        admission.lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("Engine is shut down.");
+            }
+            queues.get(partitionOf(hotel)).put(task);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(ex);
+        } finally {
+            admission.unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Books a room on the hotel's owner thread.
+     *
+     * @param hotel     the hotel
+     * @param roomName  the name of the room
+     * @param guestName the name of the guest
+     * @param checkIn   the check-in date
+     * @param checkOut  the check-out date
+     * @return a future completed with the reservation, or with null if the room
+     *         does not exist or is not available
+     */
+    public CompletableFuture<Reservation> book(Hotel hotel, String roomName, String guestName, int checkIn,
+            int checkOut) {
+        return submit(hotel, owned -> {
+            Room room = owned.getRoomByName(roomName);
+            if (room == null) {
+                return null;
+            }
+            Reservation reservation = new Reservation(guestName, checkIn, checkOut, room.getName(), owned, room);
+            return room.addReservation(reservation) ? reservation : null;
+        });
+    }
+
+    /**
+     * Runs a read-only query on the calling thread, against a snapshot of the
+     * hotel.
+     *
+     * @param <T>   the type of the result
+     * @param hotel the hotel to read
+     * @param query the query to run
+     * @return the result of the query
+     */
+    public <T> T read(Hotel hotel, Function<HotelSnapshot, T> query) {
+        return query.apply(hotel.snapshot());
+    }
+
+    /**
+     * Stops accepting tasks, waits for submitters already queueing, lets the
+     * owner threads finish the tasks queued and waits for them to stop.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void shutdown() throws InterruptedException {
+        Lock exclusive = state.writeLock();
+        exclusive.lock();
+        try {
+            if (running) {
+                running = false;
+                for (BlockingQueue<Runnable> queue : queues) {
+                    queue.put(() -> Thread.currentThread().interrupt()); // Nothing can be queued behind it
+                }
+            }
+        } finally {
+            exclusive.unlock();
+        }
+        for (Thread owner : owners) {
+            owner.join();
+        }
+    }
+
+    /**
+     * Loop of an owner thread: takes tasks in batches and runs them in order.
+     *
+     * @param queue the partition's queue
+     */
+    private void runPartition(BlockingQueue<Runnable> queue) {
+        List<Runnable> batch = new ArrayList<Runnable>(MAX_BATCH);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH - 1);
+                for (Runnable task : batch) {
+                    task.run();
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException ex) {
+            // Interrupted while waiting, stop
+        }
+        // Run anything that was queued while the engine was shutting down
+        queue.drainTo(batch);
+        for (Runnable task : batch) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,617 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * The PortfolioIO class imports and exports hotels, rooms, price modifiers and
+ * reservations as CSV or newline-delimited JSON. Files are streamed through
+ * buffered NIO channels one batch of lines at a time, so memory use does not
+ * grow with the file. Each batch is parsed in parallel and then applied in file
+ * order; records that fail to parse or validate are written to a reject file.
+ *
+ * <p>
+ * A CSV file has one record per line, in one of these forms:
+ *
+ * <pre>
+ * hotel,name,basePrice,maxRooms
+ * room,hotel,name,type
+ * modifier,hotel,date,rate
+ * reservation,hotel,room,guest,checkIn,checkOut,discountCode
+ * </pre>
+ *
+ * The last field of a hotel and of a reservation is optional: a hotel without
+ * it gets the default room limit, and a reservation without it has no discount
+ * code.
+ *
+ * A JSON line holds the same fields as an object, with the record kind under
+ * "record", for example
+ * {"record":"room","hotel":"Grand","name":"101","type":"Deluxe"}.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class PortfolioIO {
+    private static final int BATCH_SIZE = 8192; // Lines parsed together
+    private static final String[][] JSON_FIELDS = {
+            { "hotel", "name", "basePrice", "maxRooms" },
+            { "room", "hotel", "name", "type" },
+            { "modifier", "hotel", "date", "rate" },
+            { "reservation", "hotel", "room", "guest", "checkIn", "checkOut", "discountCode" } };
+    private static final List<String> NUMBER_FIELDS = Arrays.asList("basePrice", "maxRooms", "date", "rate",
+            "checkIn", "checkOut");
+
+    private List<Hotel> hotels;
+    private Map<String, Hotel> hotelsByName;
+
+    /**
+     * Constructor for creating a PortfolioIO that imports into and exports from
+     * a list of hotels.
+     *
+     * @param hotels the hotel registry
+     */
+    public PortfolioIO(List<Hotel> hotels) {
+        this.hotels = hotels;
+        this.hotelsByName = new HashMap<String, Hotel>();
+    }
+
+    /**
+     * Writes every hotel with its rooms, price modifiers and reservations,
+     * archived ones included.
+     *
+     * @param path the file to write
+     * @param json true to write newline-delimited JSON, false to write CSV
+     * @return the number of records written
+     * @throws IOException if the file cannot be written
+     */
+    public int exportTo(Path path, boolean json) throws IOException {
+        int records = 0;
+        try (Writer out = openWriter(path)) {
+            for (Hotel hotel : hotels) {
+                HotelSnapshot snapshot = hotel.snapshot(); // Write each hotel as of one moment
+                String name = snapshot.getName();
+                PriceSnapshot pricing = snapshot.getPriceSnapshot();
+                writeRecord(out, json, "hotel", name, String.valueOf(pricing.getBasePrice()),
+                        String.valueOf(hotel.getMaxRooms()));
+                records++;
+                for (RoomSnapshot room : snapshot.getRooms()) {
+                    writeRecord(out, json, "room", name, baseRoomName(room), room.getRoomType());
+                    records++;
+                }
+                for (int date = 1; date <= Hotel.DAYS_IN_MONTH; date++) {
+                    if (pricing.getModifier(date) != 1.0) {
+                        writeRecord(out, json, "modifier", name, String.valueOf(date),
+                                String.valueOf(pricing.getModifier(date)));
+                        records++;
+                    }
+                }
+                for (RoomSnapshot room : snapshot.getRooms()) {
+                    for (Reservation reservation : room.getReservations()) {
+                        writeReservation(out, json, name, room.getName(), reservation.getGuestName(),
+                                reservation.getCheckIn(), reservation.getCheckOut(), reservation.getDiscountCode());
+                        records++;
+                    }
+                }
+                for (ArchivedReservation stay : snapshot.getArchivedReservations()) {
+                    writeReservation(out, json, name, stay.getRoomName(), stay.getGuestName(), stay.getCheckIn(),
+                            stay.getCheckOut(), stay.getDiscountCode());
+                    records++;
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Reads a CSV or newline-delimited JSON file into the hotel registry. Each
+     * line may be either format; blank lines are skipped. Records are applied in
+     * file order, so a hotel must come before its rooms and a room before its
+     * reservations.
+     *
+     * @param path        the file to read
+     * @param rejectsPath the file to write rejected records to, with the reason
+     * @return the number of records imported and rejected, as { imported,
+     *         rejected }
+     * @throws IOException if a file cannot be read or written
+     */
+    public int[] importFrom(Path path, Path rejectsPath) throws IOException {
+        hotelsByName.clear();
+        for (Hotel hotel : hotels) {
+            hotelsByName.put(hotel.getName(), hotel);
+        }
+        int[] counts = new int[2];
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+                BufferedReader in = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(),
+                        1 << 16));
+                Writer rejects = openWriter(rejectsPath)) {
+            String[] lines = new String[BATCH_SIZE];
+            Record[] records = new Record[BATCH_SIZE];
+            long lineNumber = 0;
+            int size;
+            do {
+                size = 0;
+                String line;
+                while (size < BATCH_SIZE && (line = in.readLine()) != null) {
+                    lines[size++] = line;
+                }
+                final int batch = size;
+                IntStream.range(0, batch).parallel().forEach(i -> records[i] = parse(lines[i]));
+                for (int i = 0; i < batch; i++) {
+                    lineNumber++;
+                    if (records[i] == null) {
+                        continue; // Blank line
+                    }
+                    String error = records[i].error != null ? records[i].error : apply(records[i]);
+                    if (error == null) {
+                        counts[0]++;
+                    } else {
+                        counts[1]++;
+                        rejects.write("line " + lineNumber + ": " + error + ": " + lines[i] + "\n");
+                    }
+                }
+            } while (size == BATCH_SIZE);
+        }
+        return counts;
+    }
+
+    /**
+     * Opens a buffered UTF-8 writer over a file channel, replacing the file.
+     *
+     * @param path the file to write
+     * @return the writer
+     * @throws IOException if the file cannot be opened
+     */
+    private static Writer openWriter(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        return new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), 1 << 16),
+                1 << 16);
+    }
+
+    /**
+     * Gets the room name as given when the room was created, without the suffix
+     * deluxe and executive rooms add to it.
+     *
+     * @param room the room
+     * @return the room name without its type suffix
+     */
+    private static String baseRoomName(RoomSnapshot room) {
+        String name = room.getName();
+        if ((room.getRoomType().equals("Deluxe") && name.endsWith(" (DX)"))
+                || (room.getRoomType().equals("Executive") && name.endsWith(" (EC)"))) {
+            return name.substring(0, name.length() - 5);
+        }
+        return name;
+    }
+
+    /**
+     * Writes a reservation record, with its discount code only if it has one.
+     *
+     * @param out          the writer
+     * @param json         true to write JSON, false to write CSV
+     * @param hotel        the name of the hotel
+     * @param room         the name of the room
+     * @param guest        the name of the guest
+     * @param checkIn      the check-in date
+     * @param checkOut     the check-out date
+     * @param discountCode the discount code applied, or null if none was
+     * @throws IOException if the record cannot be written
+     */
+    private static void writeReservation(Writer out, boolean json, String hotel, String room, String guest,
+            int checkIn, int checkOut, String discountCode) throws IOException {
+        if (discountCode == null) {
+            writeRecord(out, json, "reservation", hotel, room, guest, String.valueOf(checkIn),
+                    String.valueOf(checkOut));
+        } else {
+            writeRecord(out, json, "reservation", hotel, room, guest, String.valueOf(checkIn),
+                    String.valueOf(checkOut), discountCode);
+        }
+    }
+
+    /**
+     * Writes one record as a CSV or JSON line.
+     *
+     * @param out    the writer
+     * @param json   true to write JSON, false to write CSV
+     * @param fields the record kind followed by its fields
+     * @throws IOException if the record cannot be written
+     */
+    private static void writeRecord(Writer out, boolean json, String... fields) throws IOException {
+        if (json) {
+            String[] names = fieldNames(fields[0]);
+            out.write("{\"record\":\"");
+            out.write(fields[0]);
+            out.write('"');
+            for (int i = 1; i < fields.length; i++) {
+                out.write(",\"");
+                out.write(names[i]);
+                out.write("\":");
+                if (NUMBER_FIELDS.contains(names[i])) {
+                    out.write(fields[i]);
+                } else {
+                    writeJsonString(out, fields[i]);
+                }
+            }
+            out.write("}\n");
+        } else {
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                writeCsvField(out, fields[i]);
+            }
+            out.write('\n');
+        }
+    }
+
+    /**
+     * Writes a CSV field, quoting it if it holds a comma, quote or line break.
+     *
+     * @param out   the writer
+     * @param field the field
+     * @throws IOException if the field cannot be written
+     */
+    private static void writeCsvField(Writer out, String field) throws IOException {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0
+                && field.indexOf('\r') < 0) {
+            out.write(field);
+            return;
+        }
+        out.write('"');
+        out.write(field.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    /**
+     * Writes a JSON string literal.
+     *
+     * @param out   the writer
+     * @param value the string
+     * @throws IOException if the string cannot be written
+     */
+    private static void writeJsonString(Writer out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < 0x20) {
+                out.write(String.format("\\u%04x", (int) c));
+            } else {
+                out.write(c);
+            }
+        }
+        out.write('"');
+    }
+
+    /**
+     * Gets the field names of a record kind, starting with the kind itself.
+     *
+     * @param kind the record kind
+     * @return the field names, or null for an unknown kind
+     */
+    private static String[] fieldNames(String kind) {
+        for (String[] names : JSON_FIELDS) {
+            if (names[0].equals(kind)) {
+                return names;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses one line into a record. Runs in parallel, so it only looks at the
+     * line and never at the hotel registry.
+     *
+     * @param line the line to parse
+     * @return the parsed record, one carrying an error, or null for a blank line
+     */
+    private static Record parse(String line) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty()) {
+            return null;
+        }
+        Record record = new Record();
+        try {
+            String[] fields = trimmed.startsWith("{") ? parseJson(trimmed) : parseCsv(trimmed);
+            String[] names = fieldNames(fields[0]);
+            if (names == null) {
+                throw new IllegalArgumentException("unknown record kind '" + fields[0] + "'");
+            }
+            if (fields.length < names.length - 1 || (names[0].equals("room") || names[0].equals("modifier"))
+                    && fields.length < names.length) { // The last field of a hotel or reservation is optional
+                throw new IllegalArgumentException("missing fields");
+            }
+            record.kind = fields[0];
+            record.hotel = fields[1];
+            switch (record.kind) {
+                case "hotel":
+                    record.value = Double.parseDouble(fields[2]);
+                    record.first = fields.length > 3 && !fields[3].isEmpty() ? Integer.parseInt(fields[3])
+                            : Hotel.DEFAULT_MAX_ROOMS;
+                    break;
+                case "room":
+                    record.name = fields[2];
+                    record.text = fields[3];
+                    break;
+                case "modifier":
+                    record.first = Integer.parseInt(fields[2]);
+                    record.value = Double.parseDouble(fields[3]);
+                    break;
+                default: // reservation
+                    record.name = fields[2];
+                    record.text = fields[3];
+                    record.first = Integer.parseInt(fields[4]);
+                    record.second = Integer.parseInt(fields[5]);
+                    record.code = fields.length > 6 ? fields[6] : "";
+                    break;
+            }
+        } catch (NumberFormatException ex) {
+            record.error = "invalid number";
+        } catch (IllegalArgumentException ex) {
+            record.error = ex.getMessage();
+        }
+        return record;
+    }
+
+    /**
+     * Splits a CSV line into fields, honouring double-quoted fields.
+     *
+     * @param line the line
+     * @return the fields
+     */
+    private static String[] parseCsv(String line) {
+        List<String> fields = new ArrayList<String>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quote");
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Parses a flat JSON object of string and number values into the fields of
+     * its record kind, in CSV order.
+     *
+     * @param line the line holding the object
+     * @return the fields, starting with the record kind
+     */
+    private static String[] parseJson(String line) {
+        Map<String, String> values = new HashMap<String, String>();
+        int[] pos = { 1 };
+        skipSpaces(line, pos);
+        if (pos[0] < line.length() && line.charAt(pos[0]) == '}') {
+            pos[0]++;
+        } else {
+            while (true) {
+                skipSpaces(line, pos);
+                String key = readJsonString(line, pos);
+                skipSpaces(line, pos);
+                expect(line, pos, ':');
+                skipSpaces(line, pos);
+                String value;
+                if (pos[0] < line.length() && line.charAt(pos[0]) == '"') {
+                    value = readJsonString(line, pos);
+                } else {
+                    int start = pos[0];
+                    while (pos[0] < line.length() && ",} \t".indexOf(line.charAt(pos[0])) < 0) {
+                        pos[0]++;
+                    }
+                    value = line.substring(start, pos[0]);
+                    if (value.equals("null")) {
+                        value = "";
+                    }
+                }
+                values.put(key, value);
+                skipSpaces(line, pos);
+                if (pos[0] < line.length() && line.charAt(pos[0]) == ',') {
+                    pos[0]++;
+                    continue;
+                }
+                expect(line, pos, '}');
+                break;
+            }
+        }
+        String kind = values.get("record");
+        String[] names = kind == null ? null : fieldNames(kind);
+        if (names == null) {
+            throw new IllegalArgumentException("unknown record kind '" + kind + "'");
+        }
+        String[] fields = new String[names.length];
+        fields[0] = kind;
+        for (int i = 1; i < names.length; i++) {
+            fields[i] = values.containsKey(names[i]) ? values.get(names[i]) : "";
+        }
+        return fields;
+    }
+
+    /**
+     * Advances past spaces and tabs.
+     *
+     * @param line the line
+     * @param pos  the current position, updated in place
+     */
+    private static void skipSpaces(String line, int[] pos) {
+        while (pos[0] < line.length() && (line.charAt(pos[0]) == ' ' || line.charAt(pos[0]) == '\t')) {
+            pos[0]++;
+        }
+    }
+
+    /**
+     * Consumes an expected character.
+     *
+     * @param line     the line
+     * @param pos      the current position, updated in place
+     * @param expected the expected character
+     */
+    private static void expect(String line, int[] pos, char expected) {
+        if (pos[0] >= line.length() || line.charAt(pos[0]) != expected) {
+            throw new IllegalArgumentException("malformed JSON, expected '" + expected + "'");
+        }
+        pos[0]++;
+    }
+
+    /**
+     * Reads a JSON string literal.
+     *
+     * @param line the line
+     * @param pos  the position of the opening quote, updated to after the closing
+     *             quote
+     * @return the string value
+     */
+    private static String readJsonString(String line, int[] pos) {
+        expect(line, pos, '"');
+        StringBuilder value = new StringBuilder();
+        while (pos[0] < line.length()) {
+            char c = line.charAt(pos[0]++);
+            if (c == '"') {
+                return value.toString();
+            } else if (c == '\\' && pos[0] < line.length()) {
+                char escaped = line.charAt(pos[0]++);
+                switch (escaped) {
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 'u':
+                        if (pos[0] + 4 > line.length()) {
+                            throw new IllegalArgumentException("malformed JSON escape");
+                        }
+                        value.append((char) Integer.parseInt(line.substring(pos[0], pos[0] + 4), 16));
+                        pos[0] += 4;
+                        break;
+                    default:
+                        value.append(escaped);
+                        break;
+                }
+            } else {
+                value.append(c);
+            }
+        }
+        throw new IllegalArgumentException("unterminated JSON string");
+    }
+
+    /**
+     * Applies a parsed record to the hotel registry, with the same rules as the
+     * management dialogs.
+     *
+     * @param record the record
+     * @return null if the record was applied, otherwise the reason it was
+     *         rejected
+     */
+    private String apply(Record record) {
+        Hotel hotel = hotelsByName.get(record.hotel);
+        if (record.kind.equals("hotel")) {
+            if (record.hotel.isEmpty()) {
+                return "hotel name cannot be empty";
+            } else if (hotel != null) {
+                return "hotel already exists";
+            } else if (record.value < 100) {
+                return "base price should be >= 100";
+            } else if (record.first < 1) {
+                return "room limit should be >= 1";
+            }
+            hotel = new Hotel(record.hotel, record.value);
+            hotel.setMaxRooms(record.first);
+            hotels.add(hotel);
+            hotelsByName.put(hotel.getName(), hotel);
+            return null;
+        }
+        if (hotel == null) {
+            return "hotel not found";
+        }
+        switch (record.kind) {
+            case "room":
+                Room room = Room.create(record.name, record.text, hotel.getBasePrice());
+                if (room == null) {
+                    return "invalid room type";
+                }
+                if (hotel.checkDuplicateRoomName(room.getName())) {
+                    return "room name already exists";
+                } else if (hotel.getTotalRooms() >= hotel.getMaxRooms()) {
+                    return "maximum number of rooms reached";
+                }
+                hotel.addRoom(room);
+                return null;
+            case "modifier":
+                if (record.first < 1 || record.first > Hotel.DAYS_IN_MONTH || record.value < 0.5
+                        || record.value > 1.5) {
+                    return "invalid date or price rate";
+                }
+                hotel.setDatePriceModifier(record.first, record.value);
+                return null;
+            default: // reservation
+                Room booked = hotel.getRoomByName(record.name);
+                if (booked == null) {
+                    return "room not found";
+                } else if (record.first < 1 || record.first > Hotel.DAYS_IN_MONTH || record.second < 2
+                        || record.second > Hotel.DAYS_IN_MONTH + 1 || record.first >= record.second) {
+                    return "invalid date range";
+                } else if (!record.code.isEmpty()
+                        && !Reservation.isValidDiscountCode(record.code, record.first, record.second)) {
+                    return "invalid discount code";
+                }
+                Reservation reservation = new Reservation(record.text, record.first, record.second, booked.getName(),
+                        hotel, booked);
+                if (!record.code.isEmpty()) {
+                    reservation.applyDiscountCode(record.code); // Before it is published by the room
+                }
+                return booked.addReservation(reservation) ? null : "room not available";
+        }
+    }
+
+    /**
+     * A parsed line. Fields not used by a record kind are left unset.
+     */
+    private static class Record {
+        private String kind;
+        private String hotel;
+        private String name; // room name
+        private String text; // room type or guest name
+        private int first; // max rooms, date or check-in
+        private int second; // check-out
+        private String code; // discount code, empty if none
+        private double value; // base price or rate
+        private String error;
+    }
+}
@@ -0,0 +1,174 @@
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The PriceSnapshot class is an immutable, versioned view of a hotel's pricing
+ * state: the base price, the room-type multipliers and the per-night price
+ * modifiers. A hotel never changes a snapshot in place; every change produces
+ * a new snapshot with the next version number, so a quote that reads one
+ * snapshot always sees a consistent set of prices without locking.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public final class PriceSnapshot {
+    private final long version;
+    private final double basePrice;
+    private final double[] modifiers; // indexed by date, 1 to Hotel.DAYS_IN_MONTH
+
+    /**
+     * Private constructor, snapshots are created through {@link #initial(double)}
+     * and the "with" methods.
+     *
+     * @param version   the version number of the snapshot
+     * @param basePrice the base price of the hotel
+     * @param modifiers the per-night price modifiers, owned by this snapshot
+     */
+    private PriceSnapshot(long version, double basePrice, double[] modifiers) {
+        this.version = version;
+        this.basePrice = basePrice;
+        this.modifiers = modifiers;
+    }
+
+    /**
+     * Creates the first snapshot of a hotel with every night priced at 100% of
+     * the base price.
+     *
+     * @param basePrice the base price of the hotel
+     * @return the initial snapshot
+     */
+    public static PriceSnapshot initial(double basePrice) {
+        double[] modifiers = new double[Hotel.DAYS_IN_MONTH + 1];
+        for (int date = 1; date <= Hotel.DAYS_IN_MONTH; date++) {
+            modifiers[date] = 1.0; // 100% of the base price
+        }
+        return new PriceSnapshot(1, basePrice, modifiers);
+    }
+
+    /**
+     * Creates the next snapshot with a different base price.
+     *
+     * @param basePrice the new base price
+     * @return the new snapshot
+     */
+    public PriceSnapshot withBasePrice(double basePrice) {
+        return new PriceSnapshot(version + 1, basePrice, modifiers);
+    }
+
+    /**
+     * Creates the next snapshot with a different price modifier for one date.
+     *
+     * @param date      the date to change
+     * @param priceRate the new price modifier for the date
+     * @return the new snapshot
+     */
+    public PriceSnapshot withModifier(int date, double priceRate) {
+        double[] copy = modifiers.clone();
+        copy[date] = priceRate;
+        return new PriceSnapshot(version + 1, basePrice, copy);
+    }
+
+    /**
+     * Creates the next snapshot with different price modifiers for several
+     * dates.
+     *
+     * @param priceRates the new price modifier of each date to change
+     * @return the new snapshot
+     */
+    public PriceSnapshot withModifiers(Map<Integer, Double> priceRates) {
+        double[] copy = modifiers.clone();
+        for (Map.Entry<Integer, Double> rate : priceRates.entrySet()) {
+            copy[rate.getKey()] = rate.getValue();
+        }
+        return new PriceSnapshot(version + 1, basePrice, copy);
+    }
+
+    /**
+     * Gets the version number of the snapshot. Versions increase by one with
+     * every pricing change of the hotel.
+     *
+     * @return the version number
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the base price of the hotel.
+     *
+     * @return the base price
+     */
+    public double getBasePrice() {
+        return basePrice;
+    }
+
+    /**
+     * Gets the price modifier for a date.
+     *
+     * @param date the date to look up
+     * @return the price modifier, or 1.0 for dates outside the month
+     */
+    public double getModifier(int date) {
+        if (date >= 1 && date <= Hotel.DAYS_IN_MONTH) {
+            return modifiers[date];
+        }
+        return 1.0; // 100% (no change)
+    }
+
+    /**
+     * Gets the price multiplier applied to the base price for a room type.
+     *
+     * @param roomType the room type ("Standard", "Deluxe" or "Executive")
+     * @return the price multiplier of the room type
+     */
+    public static double getTypeMultiplier(String roomType) {
+        if ("Deluxe".equals(roomType)) {
+            return RoomDeluxe.PRICE_MULTIPLIER;
+        } else if ("Executive".equals(roomType)) {
+            return RoomExecutive.PRICE_MULTIPLIER;
+        }
+        return 1.0; // Standard rooms are priced at the base price
+    }
+
+    /**
+     * Gets the nightly price of a room type under this snapshot.
+     *
+     * @param roomType the room type
+     * @return the nightly price of the room type
+     */
+    public double getRoomPrice(String roomType) {
+        return basePrice * getTypeMultiplier(roomType);
+    }
+
+    /**
+     * Calculates the cost of a stay at the given nightly price, applying the
+     * modifier of each night.
+     *
+     * @param checkIn   the check-in date
+     * @param checkOut  the check-out date
+     * @param roomPrice the nightly price of the room
+     * @return the total cost of the stay
+     */
+    public double calculateTotalCost(int checkIn, int checkOut, double roomPrice) {
+        double totalCost = 0;
+        for (int date = checkIn; date < checkOut; date++) {
+            totalCost += roomPrice * getModifier(date);
+        }
+        return totalCost;
+    }
+
+    /**
+     * Gets the per-night price modifiers as a read-only map.
+     *
+     * @return the map of date to price modifier
+     */
+    public Map<Integer, Double> getModifierMap() {
+        Map<Integer, Double> map = new HashMap<Integer, Double>();
+        for (int date = 1; date <= Hotel.DAYS_IN_MONTH; date++) {
+            map.put(date, modifiers[date]);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+}
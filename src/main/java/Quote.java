@@ -0,0 +1,122 @@
+/**
+ * The Quote class is the price of a stay in a room type of a hotel, with a
+ * discount code applied, as of one price snapshot of the hotel.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class Quote {
+    private String roomType;
+    private int checkIn;
+    private int checkOut;
+    private String discountCode;
+    private long priceVersion;
+    private double basePrice;
+    private double totalCost;
+    private boolean discountValid;
+    private double discountedPrice;
+
+    /**
+     * Constructor for creating a new Quote from a price snapshot.
+     *
+     * @param pricing      the price snapshot to quote under
+     * @param roomType     the room type
+     * @param checkIn      the check-in date
+     * @param checkOut     the check-out date
+     * @param discountCode the discount code, or an empty string for none
+     */
+    public Quote(PriceSnapshot pricing, String roomType, int checkIn, int checkOut, String discountCode) {
+        this.roomType = roomType;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+        this.discountCode = discountCode;
+        this.priceVersion = pricing.getVersion();
+        this.basePrice = pricing.getRoomPrice(roomType);
+        this.totalCost = pricing.calculateTotalCost(checkIn, checkOut, basePrice);
+        this.discountValid = Reservation.isValidDiscountCode(discountCode, checkIn, checkOut);
+        this.discountedPrice = Reservation.calculateDiscountedPrice(discountCode, checkIn, checkOut, totalCost,
+                basePrice);
+    }
+
+    /**
+     * Gets the room type.
+     *
+     * @return the room type
+     */
+    public String getRoomType() {
+        return roomType;
+    }
+
+    /**
+     * Gets the check-in date.
+     *
+     * @return the check-in date
+     */
+    public int getCheckIn() {
+        return checkIn;
+    }
+
+    /**
+     * Gets the check-out date.
+     *
+     * @return the check-out date
+     */
+    public int getCheckOut() {
+        return checkOut;
+    }
+
+    /**
+     * Gets the discount code.
+     *
+     * @return the discount code, or an empty string for none
+     */
+    public String getDiscountCode() {
+        return discountCode;
+    }
+
+    /**
+     * Gets the version of the price snapshot the quote was made under.
+     *
+     * @return the price version
+     */
+    public long getPriceVersion() {
+        return priceVersion;
+    }
+
+    /**
+     * Gets the nightly price of the room type.
+     *
+     * @return the base price
+     */
+    public double getBasePrice() {
+        return basePrice;
+    }
+
+    /**
+     * Gets the total cost of the stay before the discount.
+     *
+     * @return the total cost
+     */
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    /**
+     * Checks if the discount code is valid for the stay.
+     *
+     * @return true if the discount code is valid, false otherwise
+     */
+    public boolean isDiscountValid() {
+        return discountValid;
+    }
+
+    /**
+     * Gets the price of the stay after the discount.
+     *
+     * @return the discounted price
+     */
+    public double getDiscountedPrice() {
+        return discountedPrice;
+    }
+}
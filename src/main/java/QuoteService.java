@@ -0,0 +1,134 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The QuoteService class prices stays without creating reservations. Rooms of
+ * the same type in a hotel share a price, so quotes are cached by hotel, room
+ * type, stay and discount code. Each cached quote records the version of the
+ * price snapshot it was made under; a quote whose version is no longer the
+ * hotel's current one is computed again, so changing a price invalidates every
+ * quote of that hotel without touching the cache.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class QuoteService {
+    private int maxEntries;
+    private ConcurrentMap<Key, Quote> quotes;
+    private AtomicLong hits;
+    private AtomicLong misses;
+
+    /**
+     * Constructor for creating a QuoteService with an empty cache.
+     *
+     * @param maxEntries the number of quotes to cache before stale ones are
+     *                   dropped
+     */
+    public QuoteService(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.quotes = new ConcurrentHashMap<Key, Quote>();
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+    }
+
+    /**
+     * Quotes a stay in a room type of a hotel at its current prices.
+     *
+     * @param hotel        the hotel
+     * @param roomType     the room type ("Standard", "Deluxe" or "Executive")
+     * @param checkIn      the check-in date
+     * @param checkOut     the check-out date
+     * @param discountCode the discount code, or null or an empty string for none
+     * @return the quote
+     */
+    public Quote quote(Hotel hotel, String roomType, int checkIn, int checkOut, String discountCode) {
+        String code = discountCode == null ? "" : discountCode;
+        PriceSnapshot pricing = hotel.getPriceSnapshot();
+        Key key = new Key(hotel, roomType, checkIn, checkOut, code);
+        Quote cached = quotes.get(key);
+        if (cached != null && cached.getPriceVersion() == pricing.getVersion()) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+        Quote quote = new Quote(pricing, roomType, checkIn, checkOut, code);
+        if (cached == null && quotes.size() >= maxEntries) {
+            trim();
+        }
+        quotes.put(key, quote);
+        return quote;
+    }
+
+    /**
+     * Drops the quotes made under outdated prices, and everything if that is not
+     * enough to make room.
+     */
+    private void trim() {
+        quotes.entrySet().removeIf(
+                entry -> entry.getValue().getPriceVersion() != entry.getKey().hotel.getPriceSnapshot().getVersion());
+        if (quotes.size() >= maxEntries) {
+            quotes.clear();
+        }
+    }
+
+    /**
+     * Drops every cached quote of a hotel, such as a removed one.
+     *
+     * @param hotel the hotel
+     */
+    public void invalidate(Hotel hotel) {
+        quotes.keySet().removeIf(key -> key.hotel == hotel);
+    }
+
+    /**
+     * Gets the share of quotes answered from the cache.
+     *
+     * @return the hit rate between 0 and 1, or 0 if nothing was quoted
+     */
+    public double getHitRate() {
+        long found = hits.get();
+        long lookups = found + misses.get();
+        return lookups == 0 ? 0.0 : (double) found / lookups;
+    }
+
+    /**
+     * Identifies a quote. Hotels are compared by identity, so a renamed hotel
+     * keeps its quotes.
+     */
+    private static class Key {
+        private Hotel hotel;
+        private String roomType;
+        private int checkIn;
+        private int checkOut;
+        private String code;
+
+        Key(Hotel hotel, String roomType, int checkIn, int checkOut, String code) {
+            this.hotel = hotel;
+            this.roomType = roomType;
+            this.checkIn = checkIn;
+            this.checkOut = checkOut;
+            this.code = code;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return hotel == key.hotel && checkIn == key.checkIn && checkOut == key.checkOut
+                    && roomType.equals(key.roomType) && code.equals(key.code);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = System.identityHashCode(hotel);
+            hash = 31 * hash + roomType.hashCode();
+            hash = 31 * hash + checkIn;
+            hash = 31 * hash + checkOut;
+            return 31 * hash + code.hashCode();
+        }
+    }
+}
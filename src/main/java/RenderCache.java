@@ -0,0 +1,196 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The RenderCache class keeps rendered views, such as hotel listings and room
+ * details, so that showing an unchanged hotel again does not rebuild its text.
+ * Each entry is stored with the modification version of the hotel or room it
+ * was rendered from; a lookup with a different version renders the view again
+ * and replaces the entry. Entries are evicted least recently used first once
+ * their estimated size exceeds the memory budget.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class RenderCache {
+    private static final int ENTRY_OVERHEAD = 64; // Estimated bytes of an entry besides its text
+
+    private long budgetBytes;
+    private long usedBytes;
+    private LinkedHashMap<Key, Entry> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Constructor for creating an empty RenderCache.
+     *
+     * @param budgetBytes the estimated memory the cached views may take
+     */
+    public RenderCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true); // Iterates least recently used first
+    }
+
+    /**
+     * Gets a rendered view, rendering it if it is not cached for the given
+     * version.
+     *
+     * @param view    the name of the view, such as "details"
+     * @param owner   the hotel or room the view shows
+     * @param version the current modification version of the owner
+     * @param render  renders the view
+     * @return the rendered view
+     */
+    public synchronized String get(String view, Object owner, long version, Supplier<String> render) {
+        Key key = new Key(view, owner);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.version == version) {
+            hits++;
+            return entry.text;
+        }
+        misses++;
+        String text = render.get();
+        if (entry != null) {
+            usedBytes -= sizeOf(entry.text); // Stale, replaced below
+        }
+        entries.put(key, new Entry(version, text));
+        usedBytes += sizeOf(text);
+        evict();
+        return text;
+    }
+
+    /**
+     * Drops every cached view of an owner, such as a removed hotel.
+     *
+     * @param owner the hotel or room
+     */
+    public synchronized void invalidate(Object owner) {
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, Entry> entry = iterator.next();
+            if (entry.getKey().owner == owner) {
+                usedBytes -= sizeOf(entry.getValue().text);
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Evicts least recently used entries until the cache is within its budget.
+     */
+    private void evict() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (usedBytes > budgetBytes && iterator.hasNext()) {
+            usedBytes -= sizeOf(iterator.next().text);
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Estimates the memory taken by an entry holding a text.
+     *
+     * @param text the text of the entry
+     * @return the estimated size in bytes
+     */
+    private static long sizeOf(String text) {
+        return ENTRY_OVERHEAD + 2L * text.length();
+    }
+
+    /**
+     * Gets the share of lookups answered from the cache.
+     *
+     * @return the hit rate between 0 and 1, or 0 if nothing was looked up
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache.
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that had to render the view.
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of entries evicted to stay within the budget.
+     *
+     * @return the number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gets the estimated memory taken by the cached views.
+     *
+     * @return the estimated size in bytes
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("Render cache: %d entries, %d bytes, %d hits, %d misses (%.1f%% hit rate), %d evictions",
+                entries.size(), usedBytes, hits, misses, getHitRate() * 100, evictions);
+    }
+
+    /**
+     * Identifies a view of one hotel or room. Owners are compared by identity,
+     * so renaming a hotel does not separate it from its cached views.
+     */
+    private static class Key {
+        private String view;
+        private Object owner;
+
+        Key(String view, Object owner) {
+            this.view = view;
+            this.owner = owner;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return owner == key.owner && view.equals(key.view);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(owner) + view.hashCode();
+        }
+    }
+
+    /**
+     * A rendered view and the version it was rendered from.
+     */
+    private static class Entry {
+        private long version;
+        private String text;
+
+        Entry(long version, String text) {
+            this.version = version;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,599 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The ReplayVerifier class checks that the optimized booking engine still
+ * answers exactly like a naive model of it. A trace of operations is replayed
+ * through a reference model, which keeps each room's stays in a plain list and
+ * scans and prices them for every question with a frozen copy of the first
+ * version's logic, and through a {@link Hotel} side by side. Every result is
+ * compared, and every {@link #AGGREGATE_INTERVAL} operations and at the end
+ * of the trace so are the free rooms of each date and the estimated earnings.
+ *
+ * <p>
+ * One difference is known and intended: the first version only refused a stay
+ * holding the check-in or check-out date of a booked stay, so it would book a
+ * stay around a whole booked stay, which the engine refuses. The reference
+ * model counts such a stay as a known divergence, reported apart, and refuses
+ * it as the engine does so the replay can go on.
+ *
+ * <p>
+ * On the first divergence the trace is cut after the diverging operation and
+ * shrunk by delta debugging to a short trace that still diverges, which is
+ * printed as a reproducer. The replay is also timed for each model alone, and
+ * the speedup of the engine reported. A trace is read from a file, one
+ * operation per line, or generated at random:
+ *
+ * <pre>
+ * room     type                       adds a Standard, Deluxe or Executive room
+ * book     room guest checkIn checkOut books the room added at an index, from 0
+ * cancel   room guest                 removes the guest's stays in the room
+ * check    room checkIn checkOut      Room.isAvailable
+ * free     date                       Hotel.getAvailableRooms
+ * modifier date rate                  Hotel.setDatePriceModifier
+ * quote    room checkIn checkOut      prices a stay without booking it
+ * </pre>
+ *
+ * Run as a program with a trace file, or with "generate", the number of
+ * operations, and optionally the number of rooms, a seed and a file to save
+ * the trace to. The exit status is 1 if the models diverge.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class ReplayVerifier {
+    /** Number of operations between two comparisons of the aggregates. */
+    public static final int AGGREGATE_INTERVAL = 64;
+
+    private static final int DEFAULT_ROOMS = 40;
+    private static final double BASE_PRICE = 1299;
+    private static final double EARNINGS_TOLERANCE = 1e-9; // relative, the models sum in different orders
+    private static final int MAX_MINIMIZE_RUNS = 5000;
+    private static final String[] ROOM_TYPES = { "Standard", "Deluxe", "Executive" };
+
+    /**
+     * Generates a random trace: a number of rooms first, then a mix of
+     * bookings, cancellations, availability questions, quotes and price
+     * changes.
+     *
+     * @param count the number of operations after the rooms
+     * @param rooms the number of rooms
+     * @param seed  the seed of the random numbers
+     * @return the trace, one operation per line
+     */
+    public static List<String> generate(int count, int rooms, long seed) {
+        Random random = new Random(seed);
+        List<String> trace = new ArrayList<String>(count + rooms);
+        for (int i = 0; i < rooms; i++) {
+            trace.add("room " + ROOM_TYPES[random.nextInt(ROOM_TYPES.length)]);
+        }
+        for (int i = 0; i < count; i++) {
+            int room = random.nextInt(rooms);
+            int checkIn = 1 + random.nextInt(Hotel.DAYS_IN_MONTH);
+            int checkOut = Math.min(checkIn + 1 + random.nextInt(7), Hotel.DAYS_IN_MONTH + 1);
+            int pick = random.nextInt(100);
+            if (pick < 40) {
+                trace.add("book " + room + " G" + random.nextInt(500) + " " + checkIn + " " + checkOut);
+            } else if (pick < 55) {
+                trace.add("cancel " + room + " G" + random.nextInt(500));
+            } else if (pick < 75) {
+                trace.add("check " + room + " " + checkIn + " " + checkOut);
+            } else if (pick < 88) {
+                trace.add("free " + random.nextInt(Hotel.DAYS_IN_MONTH + 2)); // Dates 0 and 31 too
+            } else if (pick < 92) {
+                trace.add("modifier " + checkIn + " " + (50 + random.nextInt(101)) / 100.0);
+            } else {
+                trace.add("quote " + room + " " + checkIn + " " + checkOut);
+            }
+        }
+        return trace;
+    }
+
+    /**
+     * Replays a trace through both models and finds the first divergence.
+     *
+     * @param trace the trace
+     * @return the divergence, or null if the models agree throughout
+     * @throws IllegalArgumentException if an operation is malformed
+     */
+    public static String findDivergence(List<String> trace) {
+        return replay(parse(trace));
+    }
+
+    /**
+     * Shrinks a diverging trace to a short one that still diverges, removing
+     * ever smaller chunks of operations while the divergence remains.
+     *
+     * @param trace a trace on which the models diverge
+     * @return the shrunk trace
+     */
+    public static List<String> minimize(List<String> trace) {
+        List<Operation> operations = parse(trace);
+        String divergence = replay(operations);
+        if (divergence == null) {
+            return trace;
+        }
+        int index = Integer.parseInt(divergence.substring(0, divergence.indexOf(':')));
+        operations = new ArrayList<Operation>(operations.subList(0, index + 1)); // Later ones cannot matter
+        int runs = 0;
+        int chunks = 2;
+        while (operations.size() > 1 && runs < MAX_MINIMIZE_RUNS) {
+            int chunk = (operations.size() + chunks - 1) / chunks;
+            boolean shrunk = false;
+            for (int start = 0; start < operations.size() && runs < MAX_MINIMIZE_RUNS; start += chunk) {
+                List<Operation> candidate = new ArrayList<Operation>(operations.subList(0, start));
+                candidate.addAll(operations.subList(Math.min(start + chunk, operations.size()), operations.size()));
+                runs++;
+                if (!candidate.isEmpty() && replay(candidate) != null) {
+                    operations = candidate;
+                    chunks = Math.max(chunks - 1, 2);
+                    shrunk = true;
+                    break;
+                }
+            }
+            if (!shrunk) {
+                if (chunk == 1) {
+                    break; // No single operation can be left out
+                }
+                chunks = Math.min(chunks * 2, operations.size());
+            }
+        }
+        List<String> reproducer = new ArrayList<String>();
+        for (Operation operation : operations) {
+            reproducer.add(operation.toString());
+        }
+        return reproducer;
+    }
+
+    /**
+     * Counts the known divergences of a trace: stays around a whole booked
+     * stay, which the first version would have booked.
+     *
+     * @param trace the trace
+     * @return the number of bookings and checks that differ as known
+     * @throws IllegalArgumentException if an operation is malformed
+     */
+    public static int countKnownDivergences(List<String> trace) {
+        ReferenceModel reference = new ReferenceModel();
+        for (Operation operation : parse(trace)) {
+            reference.apply(operation);
+        }
+        return reference.enclosingStays;
+    }
+
+    /**
+     * Times the replay of a trace through each model alone, after one replay
+     * of each to warm up. Every result of a timed replay is summed, and the
+     * sums of the two models are compared, so no result goes unused.
+     *
+     * @param trace the trace
+     * @return the nanoseconds taken by the reference model and by the engine
+     * @throws IllegalStateException if the models' results differ
+     */
+    public static long[] measure(List<String> trace) {
+        List<Operation> operations = parse(trace);
+        long[] times = new long[2];
+        double[] checksums = new double[2];
+        for (int round = 0; round < 2; round++) {
+            for (int model = 0; model < 2; model++) {
+                Model replay = model == 0 ? new ReferenceModel() : new EngineModel();
+                double checksum = 0;
+                long start = System.nanoTime();
+                for (Operation operation : operations) {
+                    checksum += replay.apply(operation);
+                }
+                checksum += replay.getEstimatedEarnings();
+                times[model] = System.nanoTime() - start;
+                checksums[model] = checksum;
+            }
+        }
+        if (Math.abs(checksums[0] - checksums[1]) > EARNINGS_TOLERANCE * Math.max(1, Math.abs(checksums[0]))) {
+            throw new IllegalStateException("Timed replays differ: " + checksums[1] + ", expected " + checksums[0]);
+        }
+        return times;
+    }
+
+    /**
+     * Replays parsed operations through both models.
+     *
+     * @param operations the operations
+     * @return the index of the diverging operation, a colon and a description,
+     *         or null if the models agree
+     */
+    private static String replay(List<Operation> operations) {
+        Model reference = new ReferenceModel();
+        Model engine = new EngineModel();
+        for (int i = 0; i < operations.size(); i++) {
+            Operation operation = operations.get(i);
+            double expected = reference.apply(operation);
+            double actual = engine.apply(operation);
+            if (Double.compare(expected, actual) != 0) {
+                return i + ": " + operation + " gave " + actual + ", expected " + expected;
+            }
+            if ((i + 1) % AGGREGATE_INTERVAL == 0 || i == operations.size() - 1) {
+                String aggregates = compareAggregates(reference, engine);
+                if (aggregates != null) {
+                    return i + ": after " + operation + ", " + aggregates;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compares the free rooms of each date, from the day before the month to
+     * the day after it, and the estimated earnings.
+     *
+     * @param reference the reference model
+     * @param engine    the engine
+     * @return the difference found, or null if there is none
+     */
+    private static String compareAggregates(Model reference, Model engine) {
+        for (int date = 0; date <= Hotel.DAYS_IN_MONTH + 1; date++) {
+            int expected = reference.getAvailableRooms(date);
+            int actual = engine.getAvailableRooms(date);
+            if (expected != actual) {
+                return "free rooms on date " + date + " are " + actual + ", expected " + expected;
+            }
+        }
+        double expected = reference.getEstimatedEarnings();
+        double actual = engine.getEstimatedEarnings();
+        if (Math.abs(expected - actual) > EARNINGS_TOLERANCE * Math.max(1, Math.abs(expected))) {
+            return "estimated earnings are " + actual + ", expected " + expected;
+        }
+        return null;
+    }
+
+    /**
+     * Parses the operations of a trace, skipping blank lines and lines starting
+     * with #.
+     *
+     * @param trace the trace
+     * @return the operations
+     * @throws IllegalArgumentException if an operation is malformed
+     */
+    private static List<Operation> parse(List<String> trace) {
+        List<Operation> operations = new ArrayList<Operation>(trace.size());
+        for (int i = 0; i < trace.size(); i++) {
+            String line = trace.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                operations.add(new Operation(line.split("\\s+")));
+            } catch (RuntimeException ex) {
+                throw new IllegalArgumentException("line " + (i + 1) + ": invalid operation: " + line);
+            }
+        }
+        return operations;
+    }
+
+    /**
+     * Verifies a trace file or a generated trace and reports the result.
+     *
+     * @param args a trace file, or "generate", the number of operations and
+     *             optionally the number of rooms, a seed and a file to save
+     *             the trace to
+     * @throws IOException if a trace file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        List<String> trace;
+        if (args.length >= 2 && args[0].equals("generate")) {
+            int rooms = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_ROOMS;
+            long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+            trace = generate(Integer.parseInt(args[1]), rooms, seed);
+            System.out.println("Generated " + trace.size() + " operations with seed " + seed);
+            if (args.length > 4) {
+                Files.write(Paths.get(args[4]), trace, StandardCharsets.UTF_8);
+            }
+        } else if (args.length == 1) {
+            trace = Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8);
+        } else {
+            System.err.println("Usage: ReplayVerifier trace | generate count [rooms [seed [traceFile]]]");
+            System.exit(2);
+            return;
+        }
+
+        String divergence = findDivergence(trace);
+        if (divergence != null) {
+            System.out.println("DIVERGED at operation " + divergence);
+            List<String> reproducer = minimize(trace);
+            System.out.println("Reproducer (" + reproducer.size() + " operations):");
+            for (String operation : reproducer) {
+                System.out.println("  " + operation);
+            }
+            System.exit(1);
+        }
+        long[] times = measure(trace);
+        System.out.printf("Models agree on %d operations\n", trace.size());
+        System.out.printf("Known divergences: %d stays around a booked stay, refused by the engine\n",
+                countKnownDivergences(trace));
+        System.out.printf("Reference %.3f ms, engine %.3f ms, speedup %.1fx\n", times[0] / 1e6, times[1] / 1e6,
+                (double) times[0] / Math.max(1, times[1]));
+    }
+
+    /**
+     * One operation of a trace.
+     */
+    private static class Operation {
+        private String kind;
+        private String guestName;
+        private int room;
+        private int checkIn;
+        private int checkOut;
+        private double rate;
+
+        Operation(String[] words) {
+            kind = words[0];
+            switch (kind) {
+                case "room":
+                    guestName = words[1]; // The room type
+                    if (!Arrays.asList(ROOM_TYPES).contains(guestName)) {
+                        throw new IllegalArgumentException("unknown room type " + guestName);
+                    }
+                    break;
+                case "book":
+                    room = Integer.parseInt(words[1]);
+                    guestName = words[2];
+                    checkIn = Integer.parseInt(words[3]);
+                    checkOut = Integer.parseInt(words[4]);
+                    break;
+                case "cancel":
+                    room = Integer.parseInt(words[1]);
+                    guestName = words[2];
+                    break;
+                case "check":
+                case "quote":
+                    room = Integer.parseInt(words[1]);
+                    checkIn = Integer.parseInt(words[2]);
+                    checkOut = Integer.parseInt(words[3]);
+                    break;
+                case "free":
+                    checkIn = Integer.parseInt(words[1]);
+                    break;
+                case "modifier":
+                    checkIn = Integer.parseInt(words[1]);
+                    rate = Double.parseDouble(words[2]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown operation " + kind);
+            }
+        }
+
+        @Override
+        public String toString() {
+            switch (kind) {
+                case "room":
+                    return kind + " " + guestName;
+                case "book":
+                    return kind + " " + room + " " + guestName + " " + checkIn + " " + checkOut;
+                case "cancel":
+                    return kind + " " + room + " " + guestName;
+                case "free":
+                    return kind + " " + checkIn;
+                case "modifier":
+                    return kind + " " + checkIn + " " + rate;
+                default:
+                    return kind + " " + room + " " + checkIn + " " + checkOut;
+            }
+        }
+    }
+
+    /**
+     * A model of one hotel that operations are replayed through. Results are
+     * numbers so that replays can be timed without building strings: 1 or 0
+     * for a yes or no, a count, or a price, and -1 when the room does not
+     * exist.
+     */
+    private interface Model {
+        double apply(Operation operation);
+
+        int getAvailableRooms(int date);
+
+        double getEstimatedEarnings();
+    }
+
+    /**
+     * The reference model: lists of stays scanned in full, room prices fixed
+     * when the room is added and price modifiers kept in a map, as in the first
+     * version of the engine. It uses none of the engine's classes.
+     */
+    private static class ReferenceModel implements Model {
+        private List<Double> roomPrices = new ArrayList<Double>();
+        private List<List<Stay>> rooms = new ArrayList<List<Stay>>();
+        private Map<Integer, Double> modifiers = new HashMap<Integer, Double>();
+        private int enclosingStays; // known divergences met so far
+
+        @Override
+        public double apply(Operation operation) {
+            if (operation.kind.equals("room")) {
+                roomPrices.add(roomPrice(operation.guestName));
+                rooms.add(new ArrayList<Stay>());
+                return rooms.size();
+            } else if (operation.kind.equals("free")) {
+                return getAvailableRooms(operation.checkIn);
+            } else if (operation.kind.equals("modifier")) {
+                if (operation.checkIn >= 1 && operation.checkIn <= Hotel.DAYS_IN_MONTH && operation.rate >= 0.5
+                        && operation.rate <= 1.5) {
+                    modifiers.put(operation.checkIn, operation.rate);
+                }
+                return 0;
+            } else if (operation.room < 0 || operation.room >= rooms.size()) {
+                return -1;
+            }
+            List<Stay> stays = rooms.get(operation.room);
+            switch (operation.kind) {
+                case "book": {
+                    if (operation.checkIn >= operation.checkOut
+                            || !isAvailable(stays, operation.checkIn, operation.checkOut)) {
+                        return 0;
+                    }
+                    double cost = cost(operation.room, operation.checkIn, operation.checkOut);
+                    stays.add(new Stay(operation.guestName, operation.checkIn, operation.checkOut, cost));
+                    return cost;
+                }
+                case "cancel": {
+                    boolean removed = stays.removeIf(stay -> stay.guestName.equals(operation.guestName));
+                    return removed ? 1 : 0;
+                }
+                case "check":
+                    return isAvailable(stays, operation.checkIn, operation.checkOut) ? 1 : 0;
+                default:
+                    return cost(operation.room, operation.checkIn, operation.checkOut);
+            }
+        }
+
+        /**
+         * Checks a stay against every stay of a room with the first version's
+         * rule, which only looks for a stay holding the check-in or check-out
+         * date. A stay around a whole booked stay passes that rule; it is
+         * counted as a known divergence and refused, as the engine does.
+         */
+        private boolean isAvailable(List<Stay> stays, int checkIn, int checkOut) {
+            for (Stay stay : stays) {
+                if ((checkIn >= stay.checkIn && checkIn < stay.checkOut)
+                        || (checkOut > stay.checkIn && checkOut <= stay.checkOut)) {
+                    return false; // Overlapping stay
+                }
+            }
+            for (Stay stay : stays) {
+                if (checkIn < stay.checkIn && checkOut > stay.checkOut) {
+                    enclosingStays++;
+                    return false; // The first version would have double-booked the room
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Prices a room of a type from the base price, as the first version's
+         * room subclasses did.
+         */
+        private static double roomPrice(String roomType) {
+            if (roomType.equals("Deluxe")) {
+                return BASE_PRICE * 1.2; // Increase base price by 20%
+            } else if (roomType.equals("Executive")) {
+                return BASE_PRICE * 1.35; // Increase base price by 35%
+            }
+            return BASE_PRICE;
+        }
+
+        /**
+         * Prices a stay night by night, looking each modifier up in the map.
+         */
+        private double cost(int room, int checkIn, int checkOut) {
+            double roomPrice = roomPrices.get(room);
+            double totalCost = 0;
+            for (int date = checkIn; date < checkOut; date++) {
+                totalCost += roomPrice * modifiers.getOrDefault(date, 1.0);
+            }
+            return totalCost;
+        }
+
+        @Override
+        public int getAvailableRooms(int date) {
+            int availableRooms = 0;
+            for (List<Stay> stays : rooms) {
+                if (isAvailable(stays, date, date + 1)) {
+                    availableRooms++;
+                }
+            }
+            return availableRooms;
+        }
+
+        @Override
+        public double getEstimatedEarnings() {
+            double totalEarnings = 0.0;
+            for (List<Stay> stays : rooms) {
+                for (Stay stay : stays) {
+                    totalEarnings += stay.cost;
+                }
+            }
+            return totalEarnings;
+        }
+    }
+
+    /**
+     * A booked stay of the reference model.
+     */
+    private static class Stay {
+        private String guestName;
+        private int checkIn;
+        private int checkOut;
+        private double cost;
+
+        Stay(String guestName, int checkIn, int checkOut, double cost) {
+            this.guestName = guestName;
+            this.checkIn = checkIn;
+            this.checkOut = checkOut;
+            this.cost = cost;
+        }
+    }
+
+    /**
+     * The engine: a hotel with the rooms of the trace, numbered in the order
+     * they were added.
+     */
+    private static class EngineModel implements Model {
+        private Hotel hotel = new Hotel("Replay", BASE_PRICE);
+        private List<Room> rooms = new ArrayList<Room>();
+
+        EngineModel() {
+            hotel.setMaxRooms(Integer.MAX_VALUE);
+        }
+
+        @Override
+        public double apply(Operation operation) {
+            if (operation.kind.equals("room")) {
+                Room room = Room.create("R" + rooms.size(), operation.guestName, hotel.getBasePrice());
+                hotel.addRoom(room);
+                rooms.add(room);
+                return rooms.size();
+            } else if (operation.kind.equals("free")) {
+                return hotel.getAvailableRooms(operation.checkIn);
+            } else if (operation.kind.equals("modifier")) {
+                if (operation.checkIn >= 1 && operation.checkIn <= Hotel.DAYS_IN_MONTH && operation.rate >= 0.5
+                        && operation.rate <= 1.5) {
+                    hotel.setDatePriceModifier(operation.checkIn, operation.rate);
+                }
+                return 0;
+            } else if (operation.room < 0 || operation.room >= rooms.size()) {
+                return -1;
+            }
+            Room room = rooms.get(operation.room);
+            switch (operation.kind) {
+                case "book": {
+                    Reservation reservation = new Reservation(operation.guestName, operation.checkIn,
+                            operation.checkOut, room.getName(), hotel, room);
+                    return room.addReservation(reservation) ? reservation.getTotalCost() : 0;
+                }
+                case "cancel":
+                    return room.removeReservation(operation.guestName) ? 1 : 0;
+                case "check":
+                    return room.isAvailable(operation.checkIn, operation.checkOut) ? 1 : 0;
+                default:
+                    return new Reservation("", operation.checkIn, operation.checkOut, room.getName(), hotel, room)
+                            .getTotalCost();
+            }
+        }
+
+        @Override
+        public int getAvailableRooms(int date) {
+            return hotel.getAvailableRooms(date);
+        }
+
+        @Override
+        public double getEstimatedEarnings() {
+            return hotel.getEstimatedEarnings();
+        }
+    }
+}
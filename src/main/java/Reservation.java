@@ -9,17 +9,27 @@
  * @version 1.0
  */
 public class Reservation {
-    private String guestName;
+    /**
+     * Table the guest and room names of all reservations are interned in. It
+     * holds only the names of reservations still in use.
+     */
+    public static final SymbolTable NAMES = new SymbolTable();
+
+    private Symbol guest;
     private int checkIn;
     private int checkOut;
-    private String roomName;
+    private Symbol roomName;
     private double basePrice;
     private double totalCost;
     private Hotel hotel;
     private Room selectedRoom;
+    private long priceVersion;
+    private volatile Symbol discountCode;
 
     /**
-     * Constructor for creating a new Reservation.
+     * Constructor for creating a new Reservation. The room price and the price
+     * modifiers are all read from one price snapshot of the hotel, whose version
+     * is recorded with the reservation.
      *
      * @param guestName the name of the guest
      * @param checkIn   the check-in date
@@ -30,15 +40,17 @@ public class Reservation {
      */
     public Reservation(String guestName, int checkIn, int checkOut, String roomName, Hotel hotel,
             Room room) {
-        this.guestName = guestName;
+        this.guest = NAMES.intern(guestName);
         this.checkIn = checkIn;
         this.checkOut = checkOut;
-        this.roomName = roomName;
+        this.roomName = NAMES.intern(roomName);
         this.selectedRoom = room;
-        this.basePrice = selectedRoom.getPrice();
         this.hotel = hotel;
-        this.totalCost = calculateTotalCost(checkIn, checkOut, basePrice); // Calculate the total cost of the
-                                                                           // reservation
+        PriceSnapshot pricing = hotel.getPriceSnapshot(); // Quote against a single pricing version
+        this.priceVersion = pricing.getVersion();
+        this.basePrice = pricing.getRoomPrice(selectedRoom.getRoomType());
+        this.totalCost = calculateTotalCost(pricing, checkIn, checkOut, basePrice); // Calculate the total cost of
+                                                                                    // the reservation
     }
 
     /**
@@ -48,6 +60,18 @@ public class Reservation {
      * @return true if the discount code is valid, false otherwise
      */
     public boolean isValidDiscountCode(String code) {
+        return isValidDiscountCode(code, checkIn, checkOut);
+    }
+
+    /**
+     * Checks if a discount code is valid for a stay.
+     *
+     * @param code     the discount code to check
+     * @param checkIn  the check-in date
+     * @param checkOut the check-out date
+     * @return true if the discount code is valid, false otherwise
+     */
+    public static boolean isValidDiscountCode(String code, int checkIn, int checkOut) {
         if (code.equals("_WORK_HERE")) {
             return true; // Always valid
         } else if (code.equals("STAY4_GET1")) {
@@ -67,12 +91,27 @@ public class Reservation {
      * @return the discounted price
      */
     public double calculateDiscountedPrice(String code) {
-        double discountedPrice = this.getTotalCost(); // Original price
-        if (isValidDiscountCode(code)) {
+        return calculateDiscountedPrice(code, checkIn, checkOut, this.getTotalCost(), this.getBasePrice());
+    }
+
+    /**
+     * Calculates the discounted price of a stay based on a discount code.
+     *
+     * @param code      the discount code to apply
+     * @param checkIn   the check-in date
+     * @param checkOut  the check-out date
+     * @param totalCost the total cost of the stay before the discount
+     * @param basePrice the base price of the room
+     * @return the discounted price
+     */
+    public static double calculateDiscountedPrice(String code, int checkIn, int checkOut, double totalCost,
+            double basePrice) {
+        double discountedPrice = totalCost; // Original price
+        if (isValidDiscountCode(code, checkIn, checkOut)) {
             if (code.equals("I_WORK_HERE")) {
                 discountedPrice *= 0.9; // 10% discount
             } else if (code.equals("STAY4_GET1")) {
-                discountedPrice -= this.getBasePrice(); // First day free
+                discountedPrice -= basePrice; // First day free
             } else if (code.equals("PAYDAY")) {
                 discountedPrice *= 0.93; // 7% discount
             }
@@ -80,22 +119,71 @@ public class Reservation {
         return discountedPrice;
     }
 
+    /**
+     * Gets the room the reservation is for.
+     *
+     * @return the room
+     */
+    public Room getRoom() {
+        return selectedRoom;
+    }
+
+    /**
+     * Records a discount code as applied to the reservation, if it is valid for
+     * the stay.
+     *
+     * @param code the discount code
+     * @return true if the code was recorded, false if it is not valid
+     */
+    public boolean applyDiscountCode(String code) {
+        if (code == null || !isValidDiscountCode(code)) {
+            return false;
+        }
+        discountCode = NAMES.intern(code);
+        return true;
+    }
+
+    /**
+     * Gets the discount code applied to the reservation.
+     *
+     * @return the discount code, or null if none was applied
+     */
+    public String getDiscountCode() {
+        Symbol code = discountCode;
+        return code == null ? null : code.getName();
+    }
+
+    /**
+     * Gets the symbol of the applied discount code in {@link #NAMES}.
+     *
+     * @return the discount code symbol, or null if none was applied
+     */
+    public Symbol getDiscountCodeSymbol() {
+        return discountCode;
+    }
+
+    /**
+     * Gets the price the guest pays, after the applied discount if any.
+     *
+     * @return the paid price
+     */
+    public double getPaidPrice() {
+        Symbol code = discountCode;
+        return code == null ? totalCost : calculateDiscountedPrice(code.getName());
+    }
+
     /**
      * Calculates the total cost of the reservation considering date price
      * modifiers.
      *
+     * @param pricing   the price snapshot the reservation is quoted under
      * @param checkIn   the check-in date
      * @param checkOut  the check-out date
      * @param basePrice the base price of the room
      * @return the total cost of the reservation
      */
-    private double calculateTotalCost(int checkIn, int checkOut, double basePrice) {
-        double totalCost = 0;
-        for (int date = checkIn; date < checkOut; date++) {
-            double priceModifier = hotel.getPriceModifierForDate(date); // Get modifier for each date
-            totalCost += basePrice * priceModifier;
-        }
-        return totalCost;
+    private double calculateTotalCost(PriceSnapshot pricing, int checkIn, int checkOut, double basePrice) {
+        return pricing.calculateTotalCost(checkIn, checkOut, basePrice); // Apply the modifier of each date
     }
 
     /**
@@ -104,7 +192,17 @@ public class Reservation {
      * @return the guest's name
      */
     public String getGuestName() {
-        return guestName;
+        return guest.getName();
+    }
+
+    /**
+     * Gets the id of the guest's name in {@link #NAMES}. Reservations of the
+     * same guest have the same id.
+     *
+     * @return the guest's name id
+     */
+    public int getGuestId() {
+        return guest.getId();
     }
 
     /**
@@ -140,7 +238,25 @@ public class Reservation {
      * @return the room name
      */
     public String getRoomName() {
-        return roomName;
+        return roomName.getName();
+    }
+
+    /**
+     * Gets the id of the room name in {@link #NAMES}.
+     *
+     * @return the room name id
+     */
+    public int getRoomNameId() {
+        return roomName.getId();
+    }
+
+    /**
+     * Gets the hotel where the reservation is made.
+     *
+     * @return the hotel
+     */
+    public Hotel getHotel() {
+        return hotel;
     }
 
     /**
@@ -151,4 +267,14 @@ public class Reservation {
     public double getBasePrice() {
         return basePrice;
     }
+
+    /**
+     * Gets the version of the hotel's price snapshot this reservation was quoted
+     * under.
+     *
+     * @return the price version
+     */
+    public long getPriceVersion() {
+        return priceVersion;
+    }
 }
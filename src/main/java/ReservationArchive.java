@@ -0,0 +1,196 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The ReservationArchive class holds the checked-out stays of one hotel in
+ * {@link ColdSegment}s, one segment per archiving run, in a temporary
+ * directory created when the first stay is archived. Every stay checked out
+ * by the watermark date has left the rooms and lives here; the rooms keep
+ * only current and future stays.
+ *
+ * <p>
+ * Revenue totals are summed from the segments' uncompressed figures. Stays
+ * are decompressed only when history is asked for.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class ReservationArchive {
+    private List<ColdSegment> segments;
+    private Path directory;
+    private int written; // segment files written, named in order
+    private volatile int watermark;
+    private AtomicLong sequence; // odd while stays are moving from the rooms into the archive
+
+    /**
+     * Constructor for creating an empty ReservationArchive.
+     */
+    public ReservationArchive() {
+        this.segments = new CopyOnWriteArrayList<ColdSegment>();
+        this.watermark = 1;
+        this.sequence = new AtomicLong();
+    }
+
+    /**
+     * Gets the watermark: every stay checked out on or before this date has
+     * been archived, and nights before it can no longer be booked.
+     *
+     * @return the watermark date, 1 if nothing has been archived
+     */
+    public int getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * Gets the segments, oldest first.
+     *
+     * @return the read-only list of segments
+     */
+    public List<ColdSegment> getSegments() {
+        return Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * Gets the number of archived stays.
+     *
+     * @return the number of stays
+     */
+    public int size() {
+        int size = 0;
+        for (ColdSegment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Gets the sum of the total costs of the archived stays.
+     *
+     * @return the archived revenue
+     */
+    public double getRevenue() {
+        double revenue = 0;
+        for (ColdSegment segment : segments) {
+            revenue += segment.getRevenue();
+        }
+        return revenue;
+    }
+
+    /**
+     * Reads every archived stay.
+     *
+     * @return the stays, oldest segment first
+     */
+    public List<ArchivedReservation> getReservations() {
+        List<ArchivedReservation> stays = new ArrayList<ArchivedReservation>();
+        for (ColdSegment segment : segments) {
+            stays.addAll(segment.read());
+        }
+        return stays;
+    }
+
+    /**
+     * Finds the archived stays of a guest.
+     *
+     * @param guestName the name of the guest
+     * @return the guest's stays, oldest segment first
+     */
+    public List<ArchivedReservation> findByGuest(String guestName) {
+        List<ArchivedReservation> found = new ArrayList<ArchivedReservation>();
+        for (ColdSegment segment : segments) {
+            for (ArchivedReservation stay : segment.read()) {
+                if (stay.getGuestName().equals(guestName)) {
+                    found.add(stay);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Gets the sequence number of the archive, which is odd while stays are
+     * being moved in. A reader that sees the same even number before and after
+     * reading the rooms and the archive saw no stay twice and none missing.
+     *
+     * @return the sequence number
+     */
+    long getSequence() {
+        return sequence.get();
+    }
+
+    /**
+     * Marks the start of a move of stays into the archive.
+     */
+    void beginMove() {
+        sequence.incrementAndGet();
+    }
+
+    /**
+     * Marks the end of a move of stays into the archive.
+     */
+    void endMove() {
+        sequence.incrementAndGet();
+    }
+
+    /**
+     * Writes stays to a new segment file. The segment is not part of the
+     * archive until it is published.
+     *
+     * @param stays the stays
+     * @return the segment
+     * @throws UncheckedIOException if the segment cannot be written
+     */
+    ColdSegment write(List<ArchivedReservation> stays) {
+        try {
+            if (directory == null) {
+                directory = Files.createTempDirectory("hotel-archive");
+                directory.toFile().deleteOnExit();
+            }
+            Path path = directory.resolve("segment-" + (written++) + ".dat");
+            ColdSegment segment = ColdSegment.write(path, stays);
+            path.toFile().deleteOnExit(); // Registered after the directory, so deleted first
+            return segment;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Deletes the file of a written segment that will not be published.
+     *
+     * @param segment the segment, or null if none was written
+     */
+    void discard(ColdSegment segment) {
+        if (segment == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(segment.getPath());
+        } catch (IOException ex) {
+            // Left for deletion on exit
+        }
+    }
+
+    /**
+     * Adds a written segment to the archive and raises the watermark. Called by
+     * the hotel between {@link #beginMove()} and {@link #endMove()}, as the
+     * segment's stays leave the rooms.
+     *
+     * @param segment      the segment, or null if no stay was checked out
+     * @param newWatermark the new watermark date
+     */
+    void publish(ColdSegment segment, int newWatermark) {
+        if (segment != null) {
+            segments.add(segment);
+        }
+        watermark = Math.max(watermark, newWatermark);
+    }
+}
@@ -1,12 +1,20 @@
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * The Room class represents a room in the hotel. It contains information about
  * the room's
  * name, price, reservations, and room type. It provides methods to manage
  * reservations
- * and check room availability.
+ * and check room availability. All access to the reservations goes through
+ * the room's lock, which callers booking several rooms at once may also hold.
+ * After every change the room publishes an immutable {@link RoomSnapshot}, so
+ * readers that only need the reservations never take the lock.
  * 
  * @author James Foo
  * @author Zami Diamante
@@ -15,8 +23,16 @@ import java.util.List;
 public class Room {
     private String name;
     private double price;
-    private List<Reservation> reservations;
+    private TreeMap<Integer, Reservation> reservations; // keyed by check-in date
+    private TreeMap<Integer, RoomHold> holds; // active holds, keyed by check-in date
     private String roomType;
+    private List<RoomListener> listeners;
+    private volatile long occupancyMask; // bit d is set when night d of the month is booked
+    private int slot;
+    private ReentrantLock lock;
+    private long version; // increased by every change, guarded by the lock
+    private volatile RoomSnapshot snapshot; // replaced, never changed, after every write
+    private int closedBefore; // nights before this date are past: not bookable, their stays final
 
     /**
      * Constructor for creating a new Room.
@@ -27,8 +43,33 @@ public class Room {
     public Room(String name, double price) {
         this.name = name;
         this.price = price;
-        this.reservations = new ArrayList<>();
+        this.reservations = new TreeMap<Integer, Reservation>();
+        this.holds = new TreeMap<Integer, RoomHold>();
         this.roomType = "Standard";
+        this.listeners = new CopyOnWriteArrayList<RoomListener>();
+        this.slot = -1;
+        this.closedBefore = Integer.MIN_VALUE; // Nothing is closed until the hotel archives
+        this.lock = new ReentrantLock();
+        publish();
+    }
+
+    /**
+     * Creates a room of a given type, priced from a hotel's base price.
+     *
+     * @param name      the name of the room
+     * @param roomType  Standard, Deluxe or Executive, in any case
+     * @param basePrice the base price of the hotel
+     * @return the room, or null if the room type is not known
+     */
+    public static Room create(String name, String roomType, double basePrice) {
+        if (roomType.equalsIgnoreCase("Standard")) {
+            return new Room(name, basePrice);
+        } else if (roomType.equalsIgnoreCase("Deluxe")) {
+            return new RoomDeluxe(name, basePrice);
+        } else if (roomType.equalsIgnoreCase("Executive")) {
+            return new RoomExecutive(name, basePrice);
+        }
+        return null;
     }
 
     /**
@@ -40,6 +81,24 @@ public class Room {
         return name;
     }
 
+    /**
+     * Gets the slot of the room in its hotel.
+     *
+     * @return the slot of the room, or -1 if the room is not in a hotel
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Sets the slot of the room, called by the hotel that holds the room.
+     *
+     * @param slot the new slot of the room
+     */
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+
     /**
      * Gets the price of the room.
      *
@@ -50,12 +109,43 @@ public class Room {
     }
 
     /**
-     * Gets the list of reservations for the room.
+     * Gets the list of reservations for the room, ordered by check-in date.
      *
-     * @return the list of reservations
+     * @return the read-only list of reservations of the latest snapshot
      */
     public List<Reservation> getReservations() {
-        return reservations;
+        return snapshot.getReservations();
+    }
+
+    /**
+     * Gets the latest published snapshot of the room. It is never changed, so it
+     * can be read without the lock while the room keeps taking bookings.
+     *
+     * @return the latest snapshot of the room
+     */
+    public RoomSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Gets the version of the room, which increases with every change to its
+     * reservations, holds, price or type.
+     *
+     * @return the room version
+     */
+    public long getVersion() {
+        return snapshot.getVersion();
+    }
+
+    /**
+     * Publishes a new snapshot of the room under a new version and notifies the
+     * listeners. Called with the lock held after every change.
+     */
+    private void publish() {
+        snapshot = new RoomSnapshot(++version, name, roomType, price, reservations.values(), occupancyMask);
+        for (RoomListener listener : listeners) {
+            listener.roomChanged(this);
+        }
     }
 
     /**
@@ -64,7 +154,13 @@ public class Room {
      * @param price the new price of the room
      */
     public void setPrice(double price) {
-        this.price = price;
+        lock.lock();
+        try {
+            this.price = price;
+            publish();
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -82,25 +178,114 @@ public class Room {
      * @param roomType the new room type
      */
     public void setRoomType(String roomType) {
-        this.roomType = roomType;
+        lock.lock();
+        try {
+            this.roomType = roomType;
+            publish();
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
      * Checks if the room is available for a given check-in and check-out period.
+     * Reservations and holds never overlap, so only the latest reservation and
+     * the latest hold starting before the check-out date can overlap the period.
+     * Periods starting before the room was closed up to a date are never
+     * available.
      *
      * @param checkIn  the check-in date
      * @param checkOut the check-out date
      * @return true if the room is available, false otherwise
      */
     public boolean isAvailable(int checkIn, int checkOut) {
-        for (Reservation reservation : reservations) {
-            // Check for any overlapping reservations
-            if ((checkIn >= reservation.getCheckIn() && checkIn < reservation.getCheckOut()) ||
-                    (checkOut > reservation.getCheckIn() && checkOut <= reservation.getCheckOut())) {
+        lock.lock();
+        try {
+            if (checkIn < closedBefore) {
+                return false; // Past nights, their stays may have been archived
+            }
+            Map.Entry<Integer, Reservation> latest = reservations.lowerEntry(checkOut);
+            if (latest != null && latest.getValue().getCheckOut() > checkIn) {
                 return false;
             }
+            Map.Entry<Integer, RoomHold> latestHold = holds.lowerEntry(checkOut);
+            return latestHold == null || latestHold.getValue().getCheckOut() <= checkIn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Finds the earliest window of free nights of the given length starting on
+     * or after a date, within the month.
+     *
+     * @param nights   the number of nights needed
+     * @param fromDate the earliest acceptable check-in date
+     * @return the check-in date of the window, or -1 if no such window exists
+     */
+    public int findNextFreeWindow(int nights, int fromDate) {
+        if (nights < 1) {
+            return -1;
+        }
+        lock.lock();
+        try {
+            int candidate = Math.max(Math.max(fromDate, 1), closedBefore);
+            while (candidate + nights <= Hotel.DAYS_IN_MONTH + 1) {
+                int claimedUntil = claimedUntil(candidate);
+                if (claimedUntil > candidate) {
+                    candidate = claimedUntil; // Skip past the stay or hold covering the candidate
+                } else {
+                    int nextClaim = nextClaimStart(candidate);
+                    if (nextClaim - candidate >= nights) {
+                        return candidate; // The gap before the next claim is long enough
+                    }
+                    candidate = nextClaim;
+                }
+            }
+            return -1;
+        } finally {
+            lock.unlock();
         }
-        return true;
+    }
+
+    /**
+     * Gets the check-out date of the reservation or hold covering a night.
+     * Called with the lock held.
+     *
+     * @param date the night to look up
+     * @return the check-out date of the covering claim, or the date itself if the
+     *         night is free
+     */
+    private int claimedUntil(int date) {
+        Map.Entry<Integer, Reservation> reservation = reservations.floorEntry(date);
+        if (reservation != null && reservation.getValue().getCheckOut() > date) {
+            return reservation.getValue().getCheckOut();
+        }
+        Map.Entry<Integer, RoomHold> hold = holds.floorEntry(date);
+        if (hold != null && hold.getValue().getCheckOut() > date) {
+            return hold.getValue().getCheckOut();
+        }
+        return date;
+    }
+
+    /**
+     * Gets the earliest check-in date of a reservation or hold on or after a
+     * date. Called with the lock held.
+     *
+     * @param date the first date to consider
+     * @return the earliest check-in date, or Integer.MAX_VALUE if there is none
+     */
+    private int nextClaimStart(int date) {
+        Integer reservation = reservations.ceilingKey(date);
+        Integer hold = holds.ceilingKey(date);
+        int next = Integer.MAX_VALUE;
+        if (reservation != null) {
+            next = reservation;
+        }
+        if (hold != null && hold < next) {
+            next = hold;
+        }
+        return next;
     }
 
     /**
@@ -110,35 +295,373 @@ public class Room {
      * @return true if the reservation was successfully added, false otherwise
      */
     public boolean addReservation(Reservation reservation) {
-        if (reservation == null) {
+        if (reservation == null || reservation.getCheckIn() >= reservation.getCheckOut()) {
             return false;
         }
 
-        if (isAvailable(reservation.getCheckIn(), reservation.getCheckOut())) {
-            reservations.add(reservation);
-            return true; // Reservation successfully added
-        } else {
-            return false; // Reservation could not be added due to unavailability
+        lock.lock();
+        try {
+            if (isAvailable(reservation.getCheckIn(), reservation.getCheckOut())) {
+                reservations.put(reservation.getCheckIn(), reservation);
+                occupancyMask |= nightsMask(reservation.getCheckIn(), reservation.getCheckOut());
+                publish();
+                for (RoomListener listener : listeners) {
+                    listener.nightsBooked(this, reservation.getCheckIn(), reservation.getCheckOut());
+                    listener.reservationAdded(this, reservation);
+                }
+                return true; // Reservation successfully added
+            } else {
+                return false; // Reservation could not be added due to unavailability
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
     /**
-     * Removes a reservation for a given guest name.
+     * Removes a reservation for a given guest name. Reservations with nights
+     * before the date the room was closed up to are final and stay.
      *
      * @param guestName the name of the guest
      * @return true if the reservation was successfully removed, false otherwise
      */
     public boolean removeReservation(String guestName) {
-        return reservations.removeIf(reservation -> reservation.getGuestName().equals(guestName));
+        int guestId = Reservation.NAMES.lookup(guestName);
+        if (guestId == SymbolTable.NONE) {
+            return false; // No reservation was ever made under this name
+        }
+        boolean removed = false;
+        lock.lock();
+        try {
+            Iterator<Reservation> iterator = reservations.values().iterator();
+            while (iterator.hasNext()) {
+                Reservation reservation = iterator.next();
+                if (reservation.getGuestId() == guestId && reservation.getCheckIn() >= closedBefore) {
+                    iterator.remove();
+                    released(reservation);
+                    removed = true;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return removed;
+    }
+
+    /**
+     * Removes a specific reservation from the room.
+     *
+     * @param reservation the reservation to remove
+     * @return true if the reservation was removed, false if it is not in the room
+     *         or has past nights
+     */
+    public boolean removeReservation(Reservation reservation) {
+        lock.lock();
+        try {
+            if (reservation != null && reservations.get(reservation.getCheckIn()) == reservation
+                    && reservation.getCheckIn() >= closedBefore) {
+                reservations.remove(reservation.getCheckIn());
+                released(reservation);
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
-     * Checks if the room has no reservations.
+     * Replaces a reservation of the room with one for other nights, in one step.
+     * Only the nights the new stay adds are checked; the nights the two stays
+     * share stay booked throughout, so no other booking can take them in
+     * between, and the old stay is kept if the new nights are not free. Past
+     * nights are final: the new stay must keep every past night of the old one
+     * and add none.
+     *
+     * @param current     the reservation to replace
+     * @param replacement the reservation for the new nights in this room
+     * @return true if the reservation was replaced, false if it is no longer in
+     *         the room or is already over, a new night is taken, or a past
+     *         night would change
+     */
+    public boolean replaceReservation(Reservation current, Reservation replacement) {
+        if (current == null || replacement == null || replacement.getCheckIn() >= replacement.getCheckOut()) {
+            return false;
+        }
+        long oldNights = nightsMask(current.getCheckIn(), current.getCheckOut());
+        long newNights = nightsMask(replacement.getCheckIn(), replacement.getCheckOut());
+        lock.lock();
+        try {
+            if (reservations.get(current.getCheckIn()) != current || current.getCheckOut() <= closedBefore
+                    || ((oldNights ^ newNights) & nightsMask(1, closedBefore)) != 0
+                    || (occupancyMask & newNights & ~oldNights) != 0) {
+                return false; // Cancelled meanwhile or over, a past night would change, or an added night is taken
+            }
+            reservations.remove(current.getCheckIn());
+            reservations.put(replacement.getCheckIn(), replacement);
+            occupancyMask = (occupancyMask & ~oldNights) | newNights;
+            publish();
+            for (RoomListener listener : listeners) {
+                notifyNights(listener, oldNights & ~newNights, false);
+                notifyNights(listener, newNights & ~oldNights, true);
+                listener.reservationRemoved(this, current);
+                listener.reservationAdded(this, replacement);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reports each run of consecutive nights of a mask to a listener as booked
+     * or released. Called with the lock held.
+     *
+     * @param listener the listener
+     * @param nights   the nights, as a mask
+     * @param booked   true to report the nights as booked, false as released
+     */
+    private void notifyNights(RoomListener listener, long nights, boolean booked) {
+        while (nights != 0) {
+            int first = Long.numberOfTrailingZeros(nights);
+            int last = Long.numberOfTrailingZeros(~(nights >>> first)) + first; // first night after the run
+            if (booked) {
+                listener.nightsBooked(this, first, last);
+            } else {
+                listener.nightsReleased(this, first, last);
+            }
+            nights &= ~nightsMask(first, last);
+        }
+    }
+
+    /**
+     * Places a hold on the nights of a stay if the room is available. The held
+     * nights count as booked until the hold is confirmed or released.
+     *
+     * @param guestName the name of the guest
+     * @param checkIn   the check-in date
+     * @param checkOut  the check-out date
+     * @param expiresAt the time the hold expires, in milliseconds since the epoch
+     * @return the hold, or null if the room is not available
+     */
+    public RoomHold placeHold(String guestName, int checkIn, int checkOut, long expiresAt) {
+        if (checkIn >= checkOut) {
+            return null;
+        }
+        lock.lock();
+        try {
+            if (!isAvailable(checkIn, checkOut)) {
+                return null;
+            }
+            RoomHold hold = new RoomHold(this, guestName, checkIn, checkOut, expiresAt);
+            holds.put(checkIn, hold);
+            occupancyMask |= nightsMask(checkIn, checkOut);
+            publish();
+            for (RoomListener listener : listeners) {
+                listener.nightsBooked(this, checkIn, checkOut);
+            }
+            return hold;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Turns an active hold into a reservation for the same nights. The nights
+     * stay taken throughout, so no other booking can slip in between.
+     *
+     * @param hold        the hold to confirm
+     * @param reservation the reservation replacing the hold
+     * @return true if the hold was confirmed, false if it is no longer active,
+     *         the reservation does not match it or its nights are past
+     */
+    public boolean confirmHold(RoomHold hold, Reservation reservation) {
+        lock.lock();
+        try {
+            if (holds.get(hold.getCheckIn()) != hold || reservation.getCheckIn() != hold.getCheckIn()
+                    || reservation.getCheckOut() != hold.getCheckOut() || hold.getCheckOut() <= closedBefore) {
+                return false;
+            }
+            holds.remove(hold.getCheckIn());
+            reservations.put(reservation.getCheckIn(), reservation);
+            publish();
+            hold.setState(RoomHold.CONFIRMED);
+            for (RoomListener listener : listeners) {
+                listener.reservationAdded(this, reservation);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases an active hold, freeing its nights.
+     *
+     * @param hold the hold to release
+     * @return true if the hold was released, false if it is no longer active
+     */
+    public boolean releaseHold(RoomHold hold) {
+        lock.lock();
+        try {
+            if (holds.get(hold.getCheckIn()) != hold) {
+                return false;
+            }
+            holds.remove(hold.getCheckIn());
+            hold.setState(RoomHold.RELEASED);
+            occupancyMask &= ~nightsMask(hold.getCheckIn(), hold.getCheckOut());
+            publish();
+            for (RoomListener listener : listeners) {
+                listener.nightsReleased(this, hold.getCheckIn(), hold.getCheckOut());
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Clears the nights of a removed reservation and notifies the listeners.
+     * Called with the lock held.
+     *
+     * @param reservation the reservation that was removed
+     */
+    private void released(Reservation reservation) {
+        occupancyMask &= ~nightsMask(reservation.getCheckIn(), reservation.getCheckOut());
+        publish();
+        for (RoomListener listener : listeners) {
+            listener.nightsReleased(this, reservation.getCheckIn(), reservation.getCheckOut());
+            listener.reservationRemoved(this, reservation);
+        }
+    }
+
+    /**
+     * Closes the nights before a date: they can no longer be booked, and the
+     * reservations with nights before it can no longer be cancelled or moved
+     * off them. A new version is published, since the available dates change.
+     *
+     * @param date the first night still open
+     */
+    public void closeBefore(int date) {
+        lock.lock();
+        try {
+            if (date > closedBefore) {
+                closedBefore = date;
+                publish();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the reservations checked out by a date out of the room, leaving
+     * their nights booked. Reservations never overlap, so they are the first
+     * ones by check-in date. The nights must have been closed first.
+     *
+     * @param date the date, no later than the one the room was closed up to
+     * @return the reservations taken out, by check-in date
+     */
+    public List<Reservation> archiveCheckedOut(int date) {
+        List<Reservation> archived = new ArrayList<Reservation>();
+        lock.lock();
+        try {
+            Iterator<Reservation> iterator = reservations.values().iterator();
+            while (iterator.hasNext()) {
+                Reservation reservation = iterator.next();
+                if (reservation.getCheckOut() > Math.min(date, closedBefore)) {
+                    break;
+                }
+                iterator.remove();
+                archived.add(reservation);
+            }
+            if (!archived.isEmpty()) {
+                publish();
+                for (RoomListener listener : listeners) {
+                    for (Reservation reservation : archived) {
+                        listener.reservationArchived(this, reservation);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return archived;
+    }
+
+    /**
+     * Acquires the room's lock. Callers that need several rooms at once must
+     * acquire their locks in ascending slot order and release every lock with
+     * {@link #unlock()}.
+     */
+    public void lock() {
+        lock.lock();
+    }
+
+    /**
+     * Releases the room's lock acquired with {@link #lock()}.
+     */
+    public void unlock() {
+        lock.unlock();
+    }
+
+    /**
+     * Gets the booked nights of the month as a bit mask, where bit d is set when
+     * night d is booked.
+     *
+     * @return the occupancy mask of the room
+     */
+    public long getOccupancyMask() {
+        return occupancyMask;
+    }
+
+    /**
+     * Builds the bit mask of the nights of a stay that fall within the month.
+     *
+     * @param checkIn  the check-in date
+     * @param checkOut the check-out date
+     * @return the mask with bits checkIn to checkOut - 1 set
+     */
+    public static long nightsMask(int checkIn, int checkOut) {
+        int from = Math.max(checkIn, 1);
+        int to = Math.min(checkOut, Hotel.DAYS_IN_MONTH + 1);
+        if (from >= to) {
+            return 0L;
+        }
+        return (-1L >>> (64 - (to - from))) << from;
+    }
+
+    /**
+     * Registers a listener to be notified when nights of the room are booked or
+     * released.
+     *
+     * @param listener the listener to add
+     */
+    public void addRoomListener(RoomListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener added with {@link #addRoomListener(RoomListener)}.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeRoomListener(RoomListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Checks if the room has no reservations and no active holds.
      *
      * @return true if the room is empty, false otherwise
      */
     public boolean isEmpty() {
-        return reservations.isEmpty();
+        lock.lock();
+        try {
+            return reservations.isEmpty() && holds.isEmpty();
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -147,6 +670,6 @@ public class Room {
      * @return the total earnings
      */
     public double getEarnings() {
-        return reservations.stream().mapToDouble(Reservation::getTotalCost).sum();
+        return snapshot.getEarnings();
     }
 }
@@ -0,0 +1,219 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The RoomAllocator class picks a room of a requested type for a stay. Rooms of
+ * a type are indexed by their occupancy mask, so rooms with the same booked
+ * nights, and therefore the same free runs, are grouped and evaluated once.
+ * Among the groups free for the stay, the allocator uses best fit: it prefers
+ * the group where the stay leaves the fewest new gaps (touching a booking or the
+ * month edge on both sides, then on one side), and then the group whose free
+ * run around the stay is the shortest, so long runs stay available for long
+ * stays.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class RoomAllocator implements RoomListener {
+    private static final long MONTH_MASK = Room.nightsMask(1, Hotel.DAYS_IN_MONTH + 1);
+
+    private Map<String, Map<Long, Set<Room>>> roomsByMask; // room type -> occupancy mask -> rooms
+    private Map<Room, Long> masks;
+
+    /**
+     * Constructor for creating an empty RoomAllocator.
+     */
+    public RoomAllocator() {
+        this.roomsByMask = new HashMap<String, Map<Long, Set<Room>>>();
+        this.masks = new HashMap<Room, Long>();
+    }
+
+    /**
+     * Adds a room to the index.
+     *
+     * @param room the room being added
+     */
+    public synchronized void roomAdded(Room room) {
+        masks.put(room, room.getOccupancyMask());
+        index(room, room.getOccupancyMask());
+    }
+
+    /**
+     * Removes a room from the index.
+     *
+     * @param room the room being removed
+     */
+    public synchronized void roomRemoved(Room room) {
+        Long mask = masks.remove(room);
+        if (mask != null) {
+            unindex(room, mask);
+        }
+    }
+
+    @Override
+    public synchronized void nightsBooked(Room room, int checkIn, int checkOut) {
+        Long mask = masks.get(room);
+        if (mask != null) {
+            move(room, mask, mask | Room.nightsMask(checkIn, checkOut));
+        }
+    }
+
+    @Override
+    public synchronized void nightsReleased(Room room, int checkIn, int checkOut) {
+        Long mask = masks.get(room);
+        if (mask != null) {
+            move(room, mask, mask & ~Room.nightsMask(checkIn, checkOut));
+        }
+    }
+
+    /**
+     * Moves a room from one occupancy mask group to another.
+     *
+     * @param room    the room to move
+     * @param oldMask the current occupancy mask
+     * @param newMask the new occupancy mask
+     */
+    private void move(Room room, long oldMask, long newMask) {
+        unindex(room, oldMask);
+        masks.put(room, newMask);
+        index(room, newMask);
+    }
+
+    /**
+     * Adds a room to the group of its occupancy mask.
+     *
+     * @param room the room
+     * @param mask the occupancy mask of the room
+     */
+    private void index(Room room, long mask) {
+        Map<Long, Set<Room>> groups = roomsByMask.get(room.getRoomType());
+        if (groups == null) {
+            groups = new HashMap<Long, Set<Room>>();
+            roomsByMask.put(room.getRoomType(), groups);
+        }
+        Set<Room> group = groups.get(mask);
+        if (group == null) {
+            group = new LinkedHashSet<Room>();
+            groups.put(mask, group);
+        }
+        group.add(room);
+    }
+
+    /**
+     * Removes a room from the group of its occupancy mask, dropping the group
+     * once it is empty.
+     *
+     * @param room the room
+     * @param mask the occupancy mask of the room
+     */
+    private void unindex(Room room, long mask) {
+        Map<Long, Set<Room>> groups = roomsByMask.get(room.getRoomType());
+        Set<Room> group = groups.get(mask);
+        group.remove(room);
+        if (group.isEmpty()) {
+            groups.remove(mask);
+        }
+    }
+
+    /**
+     * Scores how well a stay fits the free nights of an occupancy mask. Lower
+     * scores fit better: the number of new gaps left beside the stay counts
+     * first, then the length of the free run around the stay.
+     *
+     * @param mask     the occupancy mask of a room
+     * @param stay     the mask of the nights of the stay
+     * @param checkIn  the check-in date
+     * @param checkOut the check-out date
+     * @return the score, or -1 if some night of the stay is booked
+     */
+    private static int score(long mask, long stay, int checkIn, int checkOut) {
+        if ((mask & stay) != 0) {
+            return -1; // Some night of the stay is booked
+        }
+        long free = ~mask & MONTH_MASK;
+        int gapAfter = Long.numberOfTrailingZeros(~(free >>> checkOut));
+        int gapBefore = Long.numberOfLeadingZeros(~(free << (64 - checkIn)));
+        int fragments = (gapBefore > 0 ? 1 : 0) + (gapAfter > 0 ? 1 : 0);
+        return fragments * 64 + gapBefore + gapAfter;
+    }
+
+    /**
+     * Checks that a stay lies within the month.
+     *
+     * @param checkIn  the check-in date
+     * @param checkOut the check-out date
+     * @return true if the stay can be allocated
+     */
+    private static boolean isValidStay(int checkIn, int checkOut) {
+        return checkIn >= 1 && checkOut <= Hotel.DAYS_IN_MONTH + 1 && checkIn < checkOut;
+    }
+
+    /**
+     * Finds the best-fitting room of a type for a stay within the month.
+     *
+     * @param roomType the room type
+     * @param checkIn  the check-in date
+     * @param checkOut the check-out date
+     * @return the best-fitting free room, or null if no room of the type is free
+     */
+    public synchronized Room findBestFit(String roomType, int checkIn, int checkOut) {
+        Map<Long, Set<Room>> groups = roomsByMask.get(roomType);
+        if (groups == null || !isValidStay(checkIn, checkOut)) {
+            return null;
+        }
+        long stay = Room.nightsMask(checkIn, checkOut);
+        Set<Room> best = null;
+        int bestScore = Integer.MAX_VALUE;
+        for (Map.Entry<Long, Set<Room>> group : groups.entrySet()) {
+            int score = score(group.getKey(), stay, checkIn, checkOut);
+            if (score >= 0 && score < bestScore) {
+                best = group.getValue();
+                bestScore = score;
+                if (score == 0) {
+                    break; // Fills a gap exactly, nothing can do better
+                }
+            }
+        }
+        return best == null ? null : best.iterator().next();
+    }
+
+    /**
+     * Finds several rooms of a type for the same stay, best-fitting first.
+     *
+     * @param roomType the room type
+     * @param checkIn  the check-in date
+     * @param checkOut the check-out date
+     * @param count    the number of rooms wanted
+     * @return up to count free rooms, fewer if not enough rooms are free
+     */
+    public synchronized List<Room> findBestFits(String roomType, int checkIn, int checkOut, int count) {
+        List<Room> found = new ArrayList<Room>();
+        Map<Long, Set<Room>> groups = roomsByMask.get(roomType);
+        if (groups == null || !isValidStay(checkIn, checkOut)) {
+            return found;
+        }
+        long stay = Room.nightsMask(checkIn, checkOut);
+        List<long[]> candidates = new ArrayList<long[]>(); // { score, mask } of each free group
+        for (Long mask : groups.keySet()) {
+            int score = score(mask, stay, checkIn, checkOut);
+            if (score >= 0) {
+                candidates.add(new long[] { score, mask });
+            }
+        }
+        candidates.sort((a, b) -> Long.compare(a[0], b[0]));
+        for (long[] candidate : candidates) {
+            for (Room room : groups.get(candidate[1])) {
+                if (found.size() == count) {
+                    return found;
+                }
+                found.add(room);
+            }
+        }
+        return found;
+    }
+}
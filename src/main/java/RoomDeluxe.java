@@ -8,6 +8,9 @@
  * @version 1.0
  */
 public class RoomDeluxe extends Room {
+    /** Multiplier applied to the hotel base price for deluxe rooms. */
+    public static final double PRICE_MULTIPLIER = 1.2;
+
     /**
      * Constructor for creating a new deluxe room.
      *
@@ -16,7 +19,7 @@ public class RoomDeluxe extends Room {
      *                  modifier
      */
     public RoomDeluxe(String name, double basePrice) {
-        super(name + " (DX)", basePrice * 1.2); // Increase base price by 20%
+        super(name + " (DX)", basePrice * PRICE_MULTIPLIER); // Increase base price by 20%
         setRoomType("Deluxe"); // Set room type to "Deluxe"
     }
 }
\ No newline at end of file
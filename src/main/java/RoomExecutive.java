@@ -8,6 +8,9 @@
  * @version 1.0
  */
 public class RoomExecutive extends Room {
+    /** Multiplier applied to the hotel base price for executive rooms. */
+    public static final double PRICE_MULTIPLIER = 1.35;
+
     /**
      * Constructor for creating a new executive room.
      *
@@ -16,7 +19,7 @@ public class RoomExecutive extends Room {
      *                  modifier
      */
     public RoomExecutive(String name, double basePrice) {
-        super(name + " (EC)", basePrice * 1.35); // Increase base price by 35%
+        super(name + " (EC)", basePrice * PRICE_MULTIPLIER); // Increase base price by 35%
         setRoomType("Executive"); // Set room type to "Executive"
     }
 }
\ No newline at end of file
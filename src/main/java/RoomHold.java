@@ -0,0 +1,125 @@
+/**
+ * The RoomHold class represents a tentative claim on the nights of a room. While
+ * a hold is active the nights count as taken, so nobody else can book them; the
+ * hold is then either confirmed into a reservation or released, either by the
+ * guest or automatically once its time-to-live runs out.
+ * 
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class RoomHold {
+    /** The hold is active and its nights are taken. */
+    public static final int HELD = 0;
+    /** The hold was turned into a reservation. */
+    public static final int CONFIRMED = 1;
+    /** The hold was released and its nights are free again. */
+    public static final int RELEASED = 2;
+
+    private Room room;
+    private String guestName;
+    private int checkIn;
+    private int checkOut;
+    private long expiresAt;
+    private volatile int state;
+    private TimingWheel.Timeout timeout;
+
+    /**
+     * Constructor for creating a new RoomHold.
+     *
+     * @param room      the held room
+     * @param guestName the name of the guest
+     * @param checkIn   the check-in date
+     * @param checkOut  the check-out date
+     * @param expiresAt the time the hold expires, in milliseconds since the epoch
+     */
+    public RoomHold(Room room, String guestName, int checkIn, int checkOut, long expiresAt) {
+        this.room = room;
+        this.guestName = guestName;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+        this.expiresAt = expiresAt;
+        this.state = HELD;
+    }
+
+    /**
+     * Gets the held room.
+     *
+     * @return the room
+     */
+    public Room getRoom() {
+        return room;
+    }
+
+    /**
+     * Gets the name of the guest.
+     *
+     * @return the guest's name
+     */
+    public String getGuestName() {
+        return guestName;
+    }
+
+    /**
+     * Gets the check-in date.
+     *
+     * @return the check-in date
+     */
+    public int getCheckIn() {
+        return checkIn;
+    }
+
+    /**
+     * Gets the check-out date.
+     *
+     * @return the check-out date
+     */
+    public int getCheckOut() {
+        return checkOut;
+    }
+
+    /**
+     * Gets the time the hold expires.
+     *
+     * @return the expiry time, in milliseconds since the epoch
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Gets the state of the hold.
+     *
+     * @return {@link #HELD}, {@link #CONFIRMED} or {@link #RELEASED}
+     */
+    public int getState() {
+        return state;
+    }
+
+    /**
+     * Sets the state of the hold, called by the room with its lock held.
+     *
+     * @param state the new state
+     */
+    void setState(int state) {
+        this.state = state;
+    }
+
+    /**
+     * Gets the expiry timeout scheduled for the hold.
+     *
+     * @return the timeout, or null if none was scheduled
+     */
+    TimingWheel.Timeout getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Sets the expiry timeout scheduled for the hold.
+     *
+     * @param timeout the timeout
+     */
+    void setTimeout(TimingWheel.Timeout timeout) {
+        this.timeout = timeout;
+    }
+}
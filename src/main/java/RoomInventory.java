@@ -0,0 +1,156 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The RoomInventory class keeps, for each room type of a hotel, the number of
+ * rooms that are still free on each night of the month. The counts are
+ * adjusted one night at a time as rooms are booked and released, so type
+ * availability questions are answered without looking at individual rooms.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class RoomInventory implements RoomListener {
+    private ConcurrentMap<String, AtomicIntegerArray> freeCounts;
+
+    /**
+     * Constructor for creating an empty RoomInventory.
+     */
+    public RoomInventory() {
+        this.freeCounts = new ConcurrentHashMap<String, AtomicIntegerArray>();
+    }
+
+    /**
+     * Gets the free counts of a room type, creating them if needed.
+     *
+     * @param roomType the room type
+     * @return the free count of each night, indexed by date
+     */
+    private AtomicIntegerArray countsOf(String roomType) {
+        return freeCounts.computeIfAbsent(roomType, type -> new AtomicIntegerArray(Hotel.DAYS_IN_MONTH + 1));
+    }
+
+    /**
+     * Adds a room to the inventory, counting it as free on every night that is
+     * not booked or held.
+     *
+     * @param room the room being added
+     */
+    public void roomAdded(Room room) {
+        adjustFreeNights(room, 1);
+    }
+
+    /**
+     * Removes a room from the inventory.
+     *
+     * @param room the room being removed
+     */
+    public void roomRemoved(Room room) {
+        adjustFreeNights(room, -1);
+    }
+
+    /**
+     * Adds a delta to the free count of each night a room is free.
+     *
+     * @param room  the room
+     * @param delta the change to apply to each free night
+     */
+    private void adjustFreeNights(Room room, int delta) {
+        AtomicIntegerArray counts = countsOf(room.getRoomType());
+        long booked = room.getOccupancyMask();
+        for (int date = 1; date <= Hotel.DAYS_IN_MONTH; date++) {
+            if ((booked & (1L << date)) == 0) {
+                counts.addAndGet(date, delta);
+            }
+        }
+    }
+
+    @Override
+    public void nightsBooked(Room room, int checkIn, int checkOut) {
+        adjust(room.getRoomType(), checkIn, checkOut, -1);
+    }
+
+    @Override
+    public void nightsReleased(Room room, int checkIn, int checkOut) {
+        adjust(room.getRoomType(), checkIn, checkOut, 1);
+    }
+
+    /**
+     * Adds a delta to the free count of each night in a range, ignoring nights
+     * outside the month.
+     *
+     * @param roomType the room type
+     * @param checkIn  the first night of the range
+     * @param checkOut the end of the range, exclusive
+     * @param delta    the change to apply to each night
+     */
+    private void adjust(String roomType, int checkIn, int checkOut, int delta) {
+        AtomicIntegerArray counts = countsOf(roomType);
+        int from = Math.max(checkIn, 1);
+        int to = Math.min(checkOut, Hotel.DAYS_IN_MONTH + 1);
+        for (int date = from; date < to; date++) {
+            counts.addAndGet(date, delta);
+        }
+    }
+
+    /**
+     * Gets the number of free rooms of a type on a date.
+     *
+     * @param roomType the room type
+     * @param date     the date to check
+     * @return the number of free rooms, or 0 for dates outside the month
+     */
+    public int getFreeCount(String roomType, int date) {
+        AtomicIntegerArray counts = freeCounts.get(roomType);
+        if (counts == null || date < 1 || date > Hotel.DAYS_IN_MONTH) {
+            return 0;
+        }
+        return counts.get(date);
+    }
+
+    /**
+     * Gets the number of free rooms of all types on a date.
+     *
+     * @param date the date to check
+     * @return the number of free rooms, or 0 for dates outside the month
+     */
+    public int getFreeCount(int date) {
+        if (date < 1 || date > Hotel.DAYS_IN_MONTH) {
+            return 0;
+        }
+        int free = 0;
+        for (AtomicIntegerArray counts : freeCounts.values()) {
+            free += counts.get(date);
+        }
+        return free;
+    }
+
+    /**
+     * Checks whether every night of a stay still has at least one free room of a
+     * type. This is required for a single room of the type to be free for the
+     * whole stay, so a false result rejects the stay without looking at any
+     * room; a true result still needs a room to be picked and checked.
+     *
+     * @param roomType the room type
+     * @param checkIn  the check-in date
+     * @param checkOut the check-out date
+     * @return true if each night has a free room of the type, false otherwise
+     */
+    public boolean hasFreeNights(String roomType, int checkIn, int checkOut) {
+        if (checkIn < 1 || checkOut > Hotel.DAYS_IN_MONTH + 1 || checkIn >= checkOut) {
+            return false;
+        }
+        AtomicIntegerArray counts = freeCounts.get(roomType);
+        if (counts == null) {
+            return false;
+        }
+        for (int date = checkIn; date < checkOut; date++) {
+            if (counts.get(date) <= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
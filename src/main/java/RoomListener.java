@@ -0,0 +1,68 @@
+/**
+ * The RoomListener interface receives notifications when nights of a room are
+ * booked or released, or when anything else about the room changes. Hotels use
+ * it to keep their per-room-type inventory in step with the reservations of
+ * their rooms.
+ * 
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public interface RoomListener {
+    /**
+     * Called after the nights from check-in up to check-out have been booked.
+     *
+     * @param room     the room that was booked
+     * @param checkIn  the first booked night
+     * @param checkOut the check-out date, the night after the last booked night
+     */
+    void nightsBooked(Room room, int checkIn, int checkOut);
+
+    /**
+     * Called after the nights from check-in up to check-out have been released.
+     *
+     * @param room     the room that was released
+     * @param checkIn  the first released night
+     * @param checkOut the check-out date, the night after the last released
+     *                 night
+     */
+    void nightsReleased(Room room, int checkIn, int checkOut);
+
+    /**
+     * Called after any change to the room, such as a booking, a hold or a new
+     * price, once the room's new snapshot has been published.
+     *
+     * @param room the room that changed
+     */
+    default void roomChanged(Room room) {
+    }
+
+    /**
+     * Called after a reservation has been added to the room, including when a
+     * hold is confirmed into one.
+     *
+     * @param room        the room
+     * @param reservation the reservation that was added
+     */
+    default void reservationAdded(Room room, Reservation reservation) {
+    }
+
+    /**
+     * Called after a reservation has been removed from the room.
+     *
+     * @param room        the room
+     * @param reservation the reservation that was removed
+     */
+    default void reservationRemoved(Room room, Reservation reservation) {
+    }
+
+    /**
+     * Called after a checked-out reservation has left the room for the hotel's
+     * archive. Its nights stay booked.
+     *
+     * @param room        the room
+     * @param reservation the reservation that was archived
+     */
+    default void reservationArchived(Room room, Reservation reservation) {
+    }
+}
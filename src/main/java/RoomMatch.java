@@ -0,0 +1,66 @@
+/**
+ * The RoomMatch class is one result of an availability search: a room that is
+ * free for the requested nights, together with its hotel and the price of the
+ * stay. Matches are ordered from cheapest to most expensive.
+ * 
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class RoomMatch implements Comparable<RoomMatch> {
+    private Hotel hotel;
+    private Room room;
+    private double totalPrice;
+
+    /**
+     * Constructor for creating a new RoomMatch.
+     *
+     * @param hotel      the hotel of the room
+     * @param room       the matching room
+     * @param totalPrice the price of the stay in the room
+     */
+    public RoomMatch(Hotel hotel, Room room, double totalPrice) {
+        this.hotel = hotel;
+        this.room = room;
+        this.totalPrice = totalPrice;
+    }
+
+    /**
+     * Gets the hotel of the matching room.
+     *
+     * @return the hotel
+     */
+    public Hotel getHotel() {
+        return hotel;
+    }
+
+    /**
+     * Gets the matching room.
+     *
+     * @return the room
+     */
+    public Room getRoom() {
+        return room;
+    }
+
+    /**
+     * Gets the price of the stay in the matching room.
+     *
+     * @return the total price of the stay
+     */
+    public double getTotalPrice() {
+        return totalPrice;
+    }
+
+    /**
+     * Orders matches by total price, cheapest first.
+     *
+     * @param other the match to compare with
+     * @return a negative number, zero or a positive number if this match is
+     *         cheaper than, as expensive as or more expensive than the other
+     */
+    @Override
+    public int compareTo(RoomMatch other) {
+        return Double.compare(totalPrice, other.totalPrice);
+    }
+}
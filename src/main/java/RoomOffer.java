@@ -0,0 +1,76 @@
+/**
+ * The RoomOffer class is a room of a hotel held by another process, with the
+ * price of a stay in it: a search result or a confirmed booking returned by a
+ * {@link PartitionRouter}. Offers are ordered from cheapest to most expensive.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class RoomOffer implements Comparable<RoomOffer> {
+    private String hotelName;
+    private String roomName;
+    private String roomType;
+    private double totalPrice;
+
+    /**
+     * Constructor for creating a new RoomOffer.
+     *
+     * @param hotelName  the name of the hotel
+     * @param roomName   the name of the room
+     * @param roomType   the type of the room
+     * @param totalPrice the price of the stay in the room
+     */
+    public RoomOffer(String hotelName, String roomName, String roomType, double totalPrice) {
+        this.hotelName = hotelName;
+        this.roomName = roomName;
+        this.roomType = roomType;
+        this.totalPrice = totalPrice;
+    }
+
+    /**
+     * Gets the name of the hotel.
+     *
+     * @return the hotel name
+     */
+    public String getHotelName() {
+        return hotelName;
+    }
+
+    /**
+     * Gets the name of the room.
+     *
+     * @return the room name
+     */
+    public String getRoomName() {
+        return roomName;
+    }
+
+    /**
+     * Gets the type of the room.
+     *
+     * @return the room type
+     */
+    public String getRoomType() {
+        return roomType;
+    }
+
+    /**
+     * Gets the price of the stay.
+     *
+     * @return the total price
+     */
+    public double getTotalPrice() {
+        return totalPrice;
+    }
+
+    @Override
+    public int compareTo(RoomOffer other) {
+        return Double.compare(totalPrice, other.totalPrice);
+    }
+
+    @Override
+    public String toString() {
+        return hotelName + " | Room " + roomName + " (" + roomType + ") | " + totalPrice;
+    }
+}
@@ -0,0 +1,130 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The RoomSnapshot class is an immutable copy of a room's state at one point in
+ * time. A room publishes a new snapshot after every change instead of changing
+ * the old one, so a reader holding a snapshot never sees a later booking or a
+ * half-finished one, and taking a snapshot costs a single read.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class RoomSnapshot {
+    private long version;
+    private String name;
+    private String roomType;
+    private double price;
+    private List<Reservation> reservations;
+    private long occupancyMask;
+
+    /**
+     * Constructor for creating a new RoomSnapshot.
+     *
+     * @param version       the version of the room, increased by every change
+     * @param name          the name of the room
+     * @param roomType      the type of the room
+     * @param price         the price of the room
+     * @param reservations  the reservations of the room, ordered by check-in date
+     * @param occupancyMask the booked and held nights of the month
+     */
+    public RoomSnapshot(long version, String name, String roomType, double price,
+            Collection<Reservation> reservations, long occupancyMask) {
+        this.version = version;
+        this.name = name;
+        this.roomType = roomType;
+        this.price = price;
+        this.reservations = Collections.unmodifiableList(new ArrayList<Reservation>(reservations));
+        this.occupancyMask = occupancyMask;
+    }
+
+    /**
+     * Gets the version of the room the snapshot was taken at.
+     *
+     * @return the room version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the name of the room.
+     *
+     * @return the room name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the type of the room.
+     *
+     * @return the room type
+     */
+    public String getRoomType() {
+        return roomType;
+    }
+
+    /**
+     * Gets the price of the room.
+     *
+     * @return the room price
+     */
+    public double getPrice() {
+        return price;
+    }
+
+    /**
+     * Gets the reservations of the room, ordered by check-in date.
+     *
+     * @return the read-only list of reservations
+     */
+    public List<Reservation> getReservations() {
+        return reservations;
+    }
+
+    /**
+     * Gets the booked and held nights of the month as a bit mask, where bit d is
+     * set when night d is taken.
+     *
+     * @return the occupancy mask of the room
+     */
+    public long getOccupancyMask() {
+        return occupancyMask;
+    }
+
+    /**
+     * Checks if the room was free on a date. Nights outside the month are checked
+     * against the reservations.
+     *
+     * @param date the date to check
+     * @return true if the room was free, false otherwise
+     */
+    public boolean isAvailable(int date) {
+        if (date >= 1 && date <= Hotel.DAYS_IN_MONTH) {
+            return (occupancyMask & (1L << date)) == 0;
+        }
+        for (Reservation reservation : reservations) {
+            if (reservation.getCheckIn() <= date && reservation.getCheckOut() > date) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Calculates the total earnings from the reservations.
+     *
+     * @return the total earnings
+     */
+    public double getEarnings() {
+        double earnings = 0.0;
+        for (Reservation reservation : reservations) {
+            earnings += reservation.getTotalCost();
+        }
+        return earnings;
+    }
+}
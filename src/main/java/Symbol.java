@@ -0,0 +1,47 @@
+/**
+ * The Symbol class is a name interned in a {@link SymbolTable}. While a symbol
+ * is in use there is exactly one symbol for its name, so two symbols, or their
+ * ids, are equal exactly when their names are.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public final class Symbol {
+    private int id;
+    private String name;
+
+    /**
+     * Constructor for creating a Symbol. Only the table creates symbols.
+     *
+     * @param id   the id of the symbol
+     * @param name the name
+     */
+    Symbol(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    /**
+     * Gets the id of the symbol, unique among the symbols in use.
+     *
+     * @return the id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Gets the name of the symbol.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
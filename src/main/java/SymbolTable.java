@@ -0,0 +1,119 @@
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The SymbolTable class interns names into {@link Symbol}s, so that a name
+ * repeated across many records is kept once and records hold a reference to
+ * the shared symbol in its place. Two records have the same name exactly when
+ * they hold the same symbol, or symbols with the same id.
+ *
+ * <p>
+ * The table only holds its symbols weakly: once no record refers to a symbol,
+ * such as when the last reservation of a guest is cancelled or its hotel is
+ * removed, the garbage collector reclaims it and its entry is dropped on a
+ * later intern. The table therefore holds only the names in use. Ids are
+ * handed out in order, so symbols in use could only share an id after more
+ * than two billion names were interned; a name interned again after its
+ * symbol was reclaimed gets a new id.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class SymbolTable {
+    /** Id of the null name. */
+    public static final int NONE = -1;
+
+    private ConcurrentMap<String, Entry> entries;
+    private ReferenceQueue<Symbol> reclaimed;
+    private AtomicInteger nextId;
+
+    /**
+     * Constructor for creating an empty SymbolTable.
+     */
+    public SymbolTable() {
+        this.entries = new ConcurrentHashMap<String, Entry>();
+        this.reclaimed = new ReferenceQueue<Symbol>();
+        this.nextId = new AtomicInteger();
+    }
+
+    /**
+     * Gets the symbol of a name, adding the name to the table if it is new.
+     *
+     * @param name the name
+     * @return the symbol of the name, or null if the name is null
+     */
+    public Symbol intern(String name) {
+        if (name == null) {
+            return null;
+        }
+        Entry entry = entries.get(name);
+        Symbol symbol = entry == null ? null : entry.get();
+        if (symbol != null) {
+            return symbol;
+        }
+        purge();
+        Symbol[] interned = new Symbol[1];
+        entries.compute(name, (key, current) -> {
+            Symbol live = current == null ? null : current.get();
+            if (live != null) {
+                interned[0] = live; // Interned by another thread meanwhile
+                return current;
+            }
+            interned[0] = new Symbol(nextId.getAndIncrement() & Integer.MAX_VALUE, key);
+            return new Entry(interned[0], reclaimed);
+        });
+        return interned[0];
+    }
+
+    /**
+     * Gets the id of a name without adding it to the table.
+     *
+     * @param name the name
+     * @return the id of the name, or NONE if the name is null or no record
+     *         holds it
+     */
+    public int lookup(String name) {
+        if (name == null) {
+            return NONE;
+        }
+        Entry entry = entries.get(name);
+        Symbol symbol = entry == null ? null : entry.get();
+        return symbol == null ? NONE : symbol.getId();
+    }
+
+    /**
+     * Gets the number of names in the table, dropping the ones reclaimed.
+     *
+     * @return the number of names
+     */
+    public int size() {
+        purge();
+        return entries.size();
+    }
+
+    /**
+     * Drops the entries whose symbols have been reclaimed.
+     */
+    private void purge() {
+        Entry entry;
+        while ((entry = (Entry) reclaimed.poll()) != null) {
+            entries.remove(entry.name, entry); // Unless the name was interned again
+        }
+    }
+
+    /**
+     * A weak reference to the symbol of a name, queued once it is reclaimed.
+     */
+    private static class Entry extends WeakReference<Symbol> {
+        private String name;
+
+        Entry(Symbol symbol, ReferenceQueue<Symbol> queue) {
+            super(symbol, queue);
+            this.name = symbol.getName();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The TimingWheel class is a hierarchical timing wheel for scheduling many
+ * timeouts cheaply. Each wheel is a ring of buckets, one per tick; timeouts too
+ * far ahead for a wheel go to an overflow wheel whose tick is the span of the
+ * whole wheel below it. Advancing the clock by one tick only touches the bucket
+ * that comes due, and a bucket of an overflow wheel is moved down into the finer
+ * wheel when its time arrives. Scheduling and cancelling are O(1), and the cost
+ * of a tick does not depend on how many timeouts are outstanding.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class TimingWheel {
+    private long tickMillis;
+    private int wheelSize;
+    private long interval; // span of the whole wheel
+    private ArrayDeque<Timeout>[] buckets;
+    private long currentTime; // start of the current tick, a multiple of tickMillis
+    private TimingWheel overflowWheel;
+
+    /**
+     * Constructor for creating a new TimingWheel.
+     *
+     * @param tickMillis  the length of one tick in milliseconds
+     * @param wheelSize   the number of buckets in each wheel
+     * @param startMillis the current time in milliseconds
+     */
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.interval = tickMillis * wheelSize;
+        this.buckets = newBuckets(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayDeque<Timeout>();
+        }
+        this.currentTime = startMillis - (startMillis % tickMillis);
+    }
+
+    /**
+     * Creates an empty ring of buckets.
+     *
+     * @param size the number of buckets
+     * @return the array of buckets, all null
+     */
+    @SuppressWarnings("unchecked")
+    private static ArrayDeque<Timeout>[] newBuckets(int size) {
+        return (ArrayDeque<Timeout>[]) new ArrayDeque<?>[size]; // Generic arrays cannot be created directly
+    }
+
+    /**
+     * Schedules a timeout.
+     *
+     * @param timeout the timeout to schedule
+     * @return true if the timeout was scheduled, false if it is already due and
+     *         should be run by the caller
+     */
+    public synchronized boolean schedule(Timeout timeout) {
+        // Round up to a tick boundary so a timeout never runs before its deadline
+        timeout.expiration = (timeout.getDeadline() + tickMillis - 1) / tickMillis * tickMillis;
+        return add(timeout);
+    }
+
+    /**
+     * Advances the clock and collects the timeouts that have come due.
+     * Cancelled timeouts are dropped.
+     *
+     * @param nowMillis the current time in milliseconds
+     * @return the timeouts that are due, to be run by the caller
+     */
+    public synchronized List<Timeout> advanceClock(long nowMillis) {
+        List<Timeout> expired = new ArrayList<Timeout>();
+        for (Timeout timeout : advanceTo(nowMillis)) {
+            if (!timeout.isCancelled() && !add(timeout)) {
+                expired.add(timeout);
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Places a timeout in the bucket of its deadline, in this wheel or an
+     * overflow wheel.
+     *
+     * @param timeout the timeout to place
+     * @return false if the timeout is due within the current tick
+     */
+    private boolean add(Timeout timeout) {
+        long expiration = timeout.expiration;
+        if (expiration < currentTime + tickMillis) {
+            return false; // Already due
+        } else if (expiration < currentTime + interval) {
+            buckets[(int) ((expiration / tickMillis) % wheelSize)].add(timeout);
+            return true;
+        }
+        if (overflowWheel == null) {
+            overflowWheel = new TimingWheel(interval, wheelSize, currentTime);
+        }
+        return overflowWheel.add(timeout);
+    }
+
+    /**
+     * Moves the clock forward tick by tick, emptying each bucket that comes due
+     * and cascading the overflow wheel along.
+     *
+     * @param nowMillis the current time in milliseconds
+     * @return the timeouts taken out of the due buckets
+     */
+    private List<Timeout> advanceTo(long nowMillis) {
+        List<Timeout> due = new ArrayList<Timeout>();
+        while (currentTime + tickMillis <= nowMillis) {
+            currentTime += tickMillis;
+            ArrayDeque<Timeout> bucket = buckets[(int) ((currentTime / tickMillis) % wheelSize)];
+            due.addAll(bucket);
+            bucket.clear();
+            if (overflowWheel != null) {
+                due.addAll(overflowWheel.advanceTo(currentTime));
+            }
+        }
+        return due;
+    }
+
+    /**
+     * A task scheduled to run once its deadline has passed.
+     */
+    public static class Timeout {
+        private long deadline;
+        private Runnable task;
+        private volatile boolean cancelled;
+        private long expiration; // deadline rounded up to a tick of the wheel it was scheduled on
+
+        /**
+         * Constructor for creating a new Timeout.
+         *
+         * @param deadline the time to run the task, in milliseconds since the
+         *                 epoch
+         * @param task     the task to run
+         */
+        public Timeout(long deadline, Runnable task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        /**
+         * Gets the deadline of the timeout.
+         *
+         * @return the deadline in milliseconds since the epoch
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * Cancels the timeout. It stays in its bucket and is dropped when the
+         * bucket comes due.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * Checks if the timeout was cancelled.
+         *
+         * @return true if the timeout was cancelled
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Runs the task unless the timeout was cancelled.
+         */
+        public void run() {
+            if (!cancelled) {
+                task.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,313 @@
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * The Waitlist class keeps the stays a hotel could not book and books them
+ * when rooms free up. Entries are indexed by room type and by their exact
+ * check-in and check-out dates, each index cell holding its entries by
+ * priority and then arrival. When nights of a room are released, the room's
+ * free runs of nights are matched against the index: only the cells of stays
+ * that fit inside a free run are looked at, so the cost of a match depends on
+ * the length of the month and not on the number of waiting entries. The best
+ * entry found is booked into the room, or offered a hold on it, and matching
+ * repeats until nothing more fits.
+ *
+ * <p>
+ * Releases are reported while the room is locked, so matching runs later on a
+ * background thread and never books while another room's lock is held.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class Waitlist implements RoomListener {
+    private static final Comparator<WaitlistEntry> ORDER = Comparator
+            .comparingInt(WaitlistEntry::getPriority).reversed()
+            .thenComparingLong(WaitlistEntry::getSequence); // Highest priority first, then first come
+
+    private Hotel hotel;
+    private Map<String, PriorityQueue<WaitlistEntry>[][]> index; // room type -> check-in -> check-out -> entries
+    private int waiting;
+    private long nextSequence;
+    private Executor matcher;
+    private HoldManager holdManager;
+    private long holdTtlMillis;
+    private volatile Consumer<WaitlistEntry> matchListener;
+
+    /**
+     * Constructor for creating an empty Waitlist for a hotel.
+     *
+     * @param hotel the hotel whose rooms the entries wait for
+     */
+    public Waitlist(Hotel hotel) {
+        this.hotel = hotel;
+        this.index = new HashMap<String, PriorityQueue<WaitlistEntry>[][]>();
+        this.matcher = ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Sets the hold manager used for entries that are offered a hold. Without
+     * one, such entries are booked right away.
+     *
+     * @param holdManager   the hold manager
+     * @param holdTtlMillis how long an offered hold lasts, in milliseconds
+     */
+    public synchronized void setHoldManager(HoldManager holdManager, long holdTtlMillis) {
+        this.holdManager = holdManager;
+        this.holdTtlMillis = holdTtlMillis;
+    }
+
+    /**
+     * Sets the listener told about every entry that was booked or offered a
+     * hold. It is called on the matching thread.
+     *
+     * @param matchListener the listener, or null for none
+     */
+    public void setMatchListener(Consumer<WaitlistEntry> matchListener) {
+        this.matchListener = matchListener;
+    }
+
+    /**
+     * Adds a stay to the waitlist. If a room of the type is already free for
+     * the stay, it is matched right away.
+     *
+     * @param guestName the name of the guest
+     * @param roomType  the room type wanted
+     * @param checkIn   the check-in date
+     * @param checkOut  the check-out date
+     * @param priority  the priority of the entry, higher entries are matched
+     *                  first
+     * @param offerHold true to hold a freed room for the guest, false to book it
+     *                  right away
+     * @return the entry, or null if the stay does not lie within the month or
+     *         checks in on a night already closed
+     */
+    public WaitlistEntry add(String guestName, String roomType, int checkIn, int checkOut, int priority,
+            boolean offerHold) {
+        if (checkIn < hotel.getClosedBefore() || checkOut > Hotel.DAYS_IN_MONTH + 1 || checkIn >= checkOut) {
+            return null;
+        }
+        WaitlistEntry entry;
+        synchronized (this) {
+            entry = new WaitlistEntry(guestName, roomType, checkIn, checkOut, priority, nextSequence++, offerHold);
+            insert(entry);
+        }
+        Room free = hotel.assignRoom(roomType, checkIn, checkOut);
+        if (free != null) {
+            matcher.execute(() -> match(free));
+        }
+        return entry;
+    }
+
+    /**
+     * Takes an entry off the waitlist.
+     *
+     * @param entry the entry
+     * @return true if the entry was cancelled, false if it was already matched
+     *         or cancelled
+     */
+    public synchronized boolean cancel(WaitlistEntry entry) {
+        if (entry.getState() != WaitlistEntry.WAITING) {
+            return false;
+        }
+        entry.setState(WaitlistEntry.CANCELLED); // Dropped from its cell when the cell is next looked at
+        waiting--;
+        return true;
+    }
+
+    /**
+     * Expires the waiting entries that check in before a date, whose stays can
+     * no longer be booked.
+     *
+     * @param date the first night still open
+     * @return the number of entries expired
+     */
+    public synchronized int expireBefore(int date) {
+        int expired = 0;
+        for (PriorityQueue<WaitlistEntry>[][] cells : index.values()) {
+            for (int checkIn = 1; checkIn < Math.min(date, cells.length); checkIn++) {
+                for (int checkOut = checkIn + 1; checkOut < cells[checkIn].length; checkOut++) {
+                    PriorityQueue<WaitlistEntry> cell = cells[checkIn][checkOut];
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (WaitlistEntry entry : cell) {
+                        if (entry.getState() == WaitlistEntry.WAITING) {
+                            entry.setState(WaitlistEntry.EXPIRED);
+                            expired++;
+                        }
+                    }
+                    cells[checkIn][checkOut] = null;
+                }
+            }
+        }
+        waiting -= expired;
+        return expired;
+    }
+
+    /**
+     * Gets the number of entries still waiting.
+     *
+     * @return the number of waiting entries
+     */
+    public synchronized int getWaitingCount() {
+        return waiting;
+    }
+
+    @Override
+    public void nightsBooked(Room room, int checkIn, int checkOut) {
+        // Booking never frees anything for the waitlist
+    }
+
+    @Override
+    public void nightsReleased(Room room, int checkIn, int checkOut) {
+        matcher.execute(() -> match(room));
+    }
+
+    /**
+     * Books waiting entries into the free nights of a room, best entry first,
+     * until no waiting stay fits.
+     *
+     * @param room the room with newly freed nights
+     */
+    private void match(Room room) {
+        while (hotel.getRoomAt(room.getSlot()) == room) {
+            long taken = room.getOccupancyMask() | Room.nightsMask(1, hotel.getClosedBefore()); // Closed nights too
+            WaitlistEntry entry;
+            synchronized (this) {
+                entry = takeBest(room.getRoomType(), taken);
+            }
+            if (entry == null) {
+                return; // Nothing waiting fits the free nights
+            }
+            if (!offer(room, entry)) {
+                synchronized (this) {
+                    if (entry.getCheckIn() < hotel.getClosedBefore()) {
+                        entry.setState(WaitlistEntry.EXPIRED); // Closed in the meantime
+                    } else {
+                        entry.setState(WaitlistEntry.WAITING);
+                        insert(entry);
+                    }
+                }
+                return; // The nights were taken in the meantime
+            }
+            Consumer<WaitlistEntry> listener = matchListener;
+            if (listener != null) {
+                listener.accept(entry);
+            }
+        }
+    }
+
+    /**
+     * Books a room for an entry, or holds it for the guest.
+     *
+     * @param room  the room
+     * @param entry the entry
+     * @return true if the room was booked or held
+     */
+    private boolean offer(Room room, WaitlistEntry entry) {
+        HoldManager holds;
+        long ttl;
+        synchronized (this) {
+            holds = holdManager;
+            ttl = holdTtlMillis;
+        }
+        if (entry.getState() == WaitlistEntry.HELD) {
+            RoomHold hold = holds.placeHold(room, entry.getGuestName(), entry.getCheckIn(), entry.getCheckOut(), ttl);
+            entry.setHold(hold);
+            return hold != null;
+        }
+        Reservation reservation = new Reservation(entry.getGuestName(), entry.getCheckIn(), entry.getCheckOut(),
+                room.getName(), hotel, room);
+        if (!room.addReservation(reservation)) {
+            return false;
+        }
+        entry.setReservation(reservation);
+        return true;
+    }
+
+    /**
+     * Adds an entry to the cell of its room type and dates. Called with the
+     * monitor held.
+     *
+     * @param entry the entry
+     */
+    private void insert(WaitlistEntry entry) {
+        PriorityQueue<WaitlistEntry>[][] cells = index.computeIfAbsent(entry.getRoomType(), type -> newCells());
+        PriorityQueue<WaitlistEntry> cell = cells[entry.getCheckIn()][entry.getCheckOut()];
+        if (cell == null) {
+            cell = new PriorityQueue<WaitlistEntry>(ORDER);
+            cells[entry.getCheckIn()][entry.getCheckOut()] = cell;
+        }
+        cell.add(entry);
+        waiting++;
+    }
+
+    /**
+     * Creates the empty cells of one room type, one per check-in and check-out
+     * date.
+     *
+     * @return the array of cells, all null
+     */
+    @SuppressWarnings("unchecked")
+    private static PriorityQueue<WaitlistEntry>[][] newCells() {
+        PriorityQueue<?>[][] cells = new PriorityQueue<?>[Hotel.DAYS_IN_MONTH + 1][Hotel.DAYS_IN_MONTH + 2];
+        return (PriorityQueue<WaitlistEntry>[][]) cells; // Generic arrays cannot be created directly
+    }
+
+    /**
+     * Removes the best waiting entry of a room type whose stay fits in a free
+     * run of nights, marking it as being booked or held. Called with the monitor
+     * held.
+     *
+     * @param roomType the room type
+     * @param mask     the occupancy mask of the room
+     * @return the entry, or null if no waiting stay fits
+     */
+    private WaitlistEntry takeBest(String roomType, long mask) {
+        PriorityQueue<WaitlistEntry>[][] cells = index.get(roomType);
+        if (cells == null || waiting == 0) {
+            return null;
+        }
+        PriorityQueue<WaitlistEntry> bestCell = null;
+        int date = 1;
+        while (date <= Hotel.DAYS_IN_MONTH) {
+            if ((mask & (1L << date)) != 0) {
+                date++;
+                continue;
+            }
+            int runEnd = date; // The free run is date up to runEnd, exclusive
+            while (runEnd <= Hotel.DAYS_IN_MONTH && (mask & (1L << runEnd)) == 0) {
+                runEnd++;
+            }
+            for (int checkIn = date; checkIn < runEnd; checkIn++) {
+                for (int checkOut = checkIn + 1; checkOut <= runEnd; checkOut++) {
+                    PriorityQueue<WaitlistEntry> cell = cells[checkIn][checkOut];
+                    if (cell == null) {
+                        continue;
+                    }
+                    while (!cell.isEmpty() && cell.peek().getState() != WaitlistEntry.WAITING) {
+                        cell.poll(); // Cancelled or expired
+                    }
+                    if (!cell.isEmpty() && (bestCell == null || ORDER.compare(cell.peek(), bestCell.peek()) < 0)) {
+                        bestCell = cell;
+                    }
+                }
+            }
+            date = runEnd;
+        }
+        if (bestCell == null) {
+            return null;
+        }
+        WaitlistEntry entry = bestCell.poll();
+        waiting--;
+        boolean hold = entry.isOfferHold() && holdManager != null;
+        entry.setState(hold ? WaitlistEntry.HELD : WaitlistEntry.BOOKED); // Cannot be cancelled from now on
+        return entry;
+    }
+}
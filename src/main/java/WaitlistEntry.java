@@ -0,0 +1,173 @@
+/**
+ * The WaitlistEntry class is a stay a guest could not book, waiting on a
+ * hotel's waitlist for a room of the requested type to free up.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class WaitlistEntry {
+    /** State of an entry still waiting for a room. */
+    public static final int WAITING = 0;
+    /** State of an entry that was booked into a freed room. */
+    public static final int BOOKED = 1;
+    /** State of an entry that was offered a hold on a freed room. */
+    public static final int HELD = 2;
+    /** State of an entry taken off the waitlist. */
+    public static final int CANCELLED = 3;
+    /** State of an entry whose check-in date was closed while it waited. */
+    public static final int EXPIRED = 4;
+
+    private String guestName;
+    private String roomType;
+    private int checkIn;
+    private int checkOut;
+    private int priority;
+    private long sequence;
+    private boolean offerHold;
+    private volatile int state;
+    private volatile Reservation reservation;
+    private volatile RoomHold hold;
+
+    /**
+     * Constructor for creating a new WaitlistEntry.
+     *
+     * @param guestName the name of the guest
+     * @param roomType  the room type wanted
+     * @param checkIn   the check-in date
+     * @param checkOut  the check-out date
+     * @param priority  the priority of the entry, higher entries are matched
+     *                  first
+     * @param sequence  the order in which the entry joined the waitlist
+     * @param offerHold true to hold a freed room for the guest, false to book it
+     *                  right away
+     */
+    WaitlistEntry(String guestName, String roomType, int checkIn, int checkOut, int priority, long sequence,
+            boolean offerHold) {
+        this.guestName = guestName;
+        this.roomType = roomType;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+        this.priority = priority;
+        this.sequence = sequence;
+        this.offerHold = offerHold;
+        this.state = WAITING;
+    }
+
+    /**
+     * Gets the name of the guest.
+     *
+     * @return the guest's name
+     */
+    public String getGuestName() {
+        return guestName;
+    }
+
+    /**
+     * Gets the room type wanted.
+     *
+     * @return the room type
+     */
+    public String getRoomType() {
+        return roomType;
+    }
+
+    /**
+     * Gets the check-in date.
+     *
+     * @return the check-in date
+     */
+    public int getCheckIn() {
+        return checkIn;
+    }
+
+    /**
+     * Gets the check-out date.
+     *
+     * @return the check-out date
+     */
+    public int getCheckOut() {
+        return checkOut;
+    }
+
+    /**
+     * Gets the priority of the entry.
+     *
+     * @return the priority, higher entries are matched first
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Gets the order in which the entry joined the waitlist.
+     *
+     * @return the sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Checks if the guest is offered a hold rather than booked right away.
+     *
+     * @return true if a freed room is held for the guest
+     */
+    public boolean isOfferHold() {
+        return offerHold;
+    }
+
+    /**
+     * Gets the state of the entry.
+     *
+     * @return WAITING, BOOKED, HELD or CANCELLED
+     */
+    public int getState() {
+        return state;
+    }
+
+    /**
+     * Sets the state of the entry, called by its waitlist.
+     *
+     * @param state the new state
+     */
+    void setState(int state) {
+        this.state = state;
+    }
+
+    /**
+     * Gets the reservation made for the entry.
+     *
+     * @return the reservation, or null if the entry has not been booked
+     */
+    public Reservation getReservation() {
+        return reservation;
+    }
+
+    /**
+     * Sets the reservation made for the entry.
+     *
+     * @param reservation the reservation
+     */
+    void setReservation(Reservation reservation) {
+        this.reservation = reservation;
+    }
+
+    /**
+     * Gets the hold offered to the guest.
+     *
+     * @return the hold, or null if no hold was offered
+     */
+    public RoomHold getHold() {
+        return hold;
+    }
+
+    /**
+     * Sets the hold offered to the guest.
+     *
+     * @param hold the hold
+     */
+    void setHold(RoomHold hold) {
+        this.hold = hold;
+    }
+}
@@ -0,0 +1,123 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests that shutting down a {@link BookingPipeline} leaves no accepted
+ * request waiting.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class BookingPipelineTest {
+    private static final int PRODUCERS = 4;
+    private static final int REQUESTS = 5000; // per producer
+
+    @Test
+    public void shutdownCompletesEveryAcceptedRequest() throws Exception {
+        List<Hotel> hotels = createHotels(8, 10);
+        PartitionedEngine engine = new PartitionedEngine(4, 64);
+        BookingPipeline pipeline = new BookingPipeline(256, new BookingService(60000, 100000), engine);
+        ConcurrentLinkedQueue<CompletableFuture<Reservation>> accepted = new ConcurrentLinkedQueue<>();
+        CountDownLatch started = new CountDownLatch(PRODUCERS);
+
+        List<Thread> producers = new ArrayList<Thread>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                started.countDown();
+                for (int i = 0; i < REQUESTS; i++) {
+                    Hotel hotel = hotels.get(i % hotels.size());
+                    int checkIn = 1 + (i * 7 + producer) % 28;
+                    BookingRequest request = new BookingRequest("p" + producer + "-" + i, hotel, null, "Standard",
+                            "Guest " + producer + "-" + i, checkIn, checkIn + 1 + i % 2);
+                    try {
+                        accepted.add(pipeline.submit(request));
+                    } catch (IllegalStateException ex) {
+                        return; // Shut down while submitting
+                    }
+                }
+            });
+            producers.add(thread);
+            thread.start();
+        }
+        started.await();
+        Thread.sleep(20);
+        pipeline.shutdown(); // Races the producers
+        for (Thread thread : producers) {
+            thread.join();
+        }
+        engine.shutdown();
+
+        int booked = 0;
+        for (CompletableFuture<Reservation> future : accepted) {
+            assertTrue("Accepted request left waiting", future.isDone());
+            if (future.get() != null) {
+                booked++;
+            }
+        }
+        int stays = 0;
+        for (Hotel hotel : hotels) {
+            for (Room room : hotel.getRooms()) {
+                stays += room.getReservations().size();
+            }
+        }
+        assertEquals(stays, booked);
+    }
+
+    @Test
+    public void requestsFailWhenTheEngineIsShutDown() throws Exception {
+        List<Hotel> hotels = createHotels(2, 2);
+        PartitionedEngine engine = new PartitionedEngine(2, 16);
+        BookingPipeline pipeline = new BookingPipeline(64, new BookingService(60000, 1000), engine);
+        engine.shutdown();
+        List<CompletableFuture<Reservation>> futures = new ArrayList<CompletableFuture<Reservation>>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(pipeline.submit(new BookingRequest(null, hotels.get(i % 2), null, "Standard", "Guest " + i,
+                    1 + i % 20, 2 + i % 20)));
+        }
+        pipeline.shutdown();
+        for (CompletableFuture<Reservation> future : futures) {
+            try {
+                future.get(1, TimeUnit.SECONDS);
+                fail("Booked on a shut down engine");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof IllegalStateException);
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void submitAfterShutdownIsRejected() throws Exception {
+        List<Hotel> hotels = createHotels(1, 1);
+        PartitionedEngine engine = new PartitionedEngine(1, 16);
+        BookingPipeline pipeline = new BookingPipeline(16, new BookingService(60000, 1000), engine);
+        pipeline.shutdown();
+        engine.shutdown();
+        pipeline.submit(new BookingRequest(null, hotels.get(0), null, "Standard", "Guest", 1, 2));
+    }
+
+    private static List<Hotel> createHotels(int count, int roomsEach) {
+        List<Hotel> hotels = new ArrayList<Hotel>();
+        for (int h = 0; h < count; h++) {
+            Hotel hotel = new Hotel("Hotel " + h, 100);
+            hotel.setMaxRooms(roomsEach);
+            for (int r = 0; r < roomsEach; r++) {
+                hotel.addRoom(new Room("R" + r, 100));
+            }
+            hotels.add(hotel);
+        }
+        return hotels;
+    }
+}
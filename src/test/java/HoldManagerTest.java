@@ -0,0 +1,60 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests that a {@link HoldManager} expires every hold that comes due, even
+ * when releasing one of them fails.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class HoldManagerTest {
+    @Test
+    public void failingReleaseDoesNotStopOtherExpiries() throws Exception {
+        Room failing = new Room("R0", 100) {
+            @Override
+            public boolean releaseHold(RoomHold hold) {
+                throw new IllegalStateException("release failed");
+            }
+        };
+        List<Room> rooms = new ArrayList<Room>();
+        for (int r = 1; r <= 4; r++) {
+            rooms.add(new Room("R" + r, 100));
+        }
+        HoldManager holds = new HoldManager(100);
+        try {
+            // Mid-tick deadline, so every hold comes due in the same tick with the failing one first
+            long expiresAt = (System.currentTimeMillis() / 100 + 3) * 100 + 50;
+            assertNotNull(holds.placeHold(failing, "Guest 0", 3, 5, expiresAt - System.currentTimeMillis()));
+            for (int r = 0; r < rooms.size(); r++) {
+                assertNotNull(holds.placeHold(rooms.get(r), "Guest " + (r + 1), 3, 5,
+                        expiresAt - System.currentTimeMillis()));
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            int released = 0;
+            while (System.currentTimeMillis() < deadline) {
+                released = 0;
+                for (Room room : rooms) {
+                    if (room.isAvailable(3, 5)) {
+                        released++;
+                    }
+                }
+                if (released == rooms.size()) {
+                    break;
+                }
+                Thread.sleep(10);
+            }
+            assertEquals(rooms.size(), released);
+            assertFalse(failing.isAvailable(3, 5));
+        } finally {
+            holds.shutdown();
+        }
+    }
+}
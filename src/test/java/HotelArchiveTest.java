@@ -0,0 +1,170 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+/**
+ * Tests that archiving the checked-out stays of a {@link Hotel} keeps its
+ * earnings and history, and that past nights stay final afterwards.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class HotelArchiveTest {
+    @Test
+    public void archivingKeepsTheEarnings() {
+        Hotel hotel = createHotel(4);
+        int checkedOut = 0;
+        for (Room room : hotel.getRooms()) {
+            for (int checkIn = 1; checkIn < 30; checkIn += 3) {
+                assertTrue(book(hotel, room, room.getName() + "-" + checkIn, checkIn, checkIn + 2));
+                if (checkIn + 2 <= 12) {
+                    checkedOut++;
+                }
+            }
+        }
+        double earnings = hotel.getEstimatedEarnings();
+
+        assertEquals(checkedOut, hotel.archiveCheckedOut(12));
+        assertEquals(earnings, hotel.getEstimatedEarnings(), 1e-6);
+        assertEquals(checkedOut, hotel.getArchive().size());
+        double roomEarnings = 0;
+        for (Room room : hotel.getRooms()) {
+            roomEarnings += room.getEarnings();
+            assertTrue(room.getReservations().get(0).getCheckOut() > 12);
+        }
+        assertEquals(earnings, roomEarnings + hotel.getArchive().getRevenue(), 1e-6);
+
+        // The stays are read back from the compressed segment
+        List<ArchivedReservation> stays = hotel.getArchive().findByGuest("R1-4");
+        assertEquals(1, stays.size());
+        assertEquals("R1", stays.get(0).getRoomName());
+        assertEquals(4, stays.get(0).getCheckIn());
+        assertEquals(6, stays.get(0).getCheckOut());
+    }
+
+    @Test
+    public void pastNightsCannotBeCancelledOrMoved() {
+        Hotel hotel = createHotel(2);
+        Room first = hotel.getRoomAt(0);
+        Room second = hotel.getRoomAt(1);
+        assertTrue(book(hotel, first, "Ann", 3, 8));
+        Reservation ann = first.getReservations().get(0);
+        double earnings = hotel.getEstimatedEarnings();
+        hotel.archiveCheckedOut(5);
+
+        assertFalse(first.removeReservation(ann));
+        assertFalse(first.removeReservation("Ann"));
+        assertNull(hotel.modifyReservation(ann, second, 3, 8));
+        assertNull(hotel.modifyReservation(ann, first, 4, 8));
+        assertSame(ann, first.getReservations().get(0));
+        assertEquals(earnings, hotel.getEstimatedEarnings(), 1e-6);
+
+        // Only the open nights may change
+        Reservation longer = hotel.modifyReservation(ann, first, 3, 10);
+        assertNotNull(longer);
+        assertEquals(3, longer.getCheckIn());
+        assertFalse(first.isAvailable(5, 6));
+        assertFalse(second.isAvailable(4, 6));
+    }
+
+    @Test
+    public void secondRunWithTheSameWatermarkDoesNothing() {
+        Hotel hotel = createHotel(2);
+        Room room = hotel.getRoomAt(0);
+        assertTrue(book(hotel, room, "Ann", 1, 3));
+        assertTrue(book(hotel, room, "Bob", 6, 9));
+        Room empty = hotel.getRoomAt(1);
+        long version = empty.getVersion();
+        assertEquals(1, hotel.archiveCheckedOut(4));
+        assertTrue(empty.getVersion() > version); // Closing the nights changes the available dates
+
+        RoomSnapshot snapshot = room.getSnapshot();
+        assertEquals(0, hotel.archiveCheckedOut(4));
+        assertEquals(0, hotel.archiveCheckedOut(3));
+        assertSame(snapshot, room.getSnapshot());
+        assertEquals(1, hotel.getArchive().size());
+        assertEquals(1, hotel.getArchive().getSegments().size());
+        assertEquals(4, hotel.getArchive().getWatermark());
+    }
+
+    @Test
+    public void waitlistSkipsClosedNights() throws Exception {
+        Hotel hotel = createHotel(1);
+        Room room = hotel.getRoomAt(0);
+        RoomHold hold = room.placeHold("Hold", 1, 6, Long.MAX_VALUE);
+        assertNotNull(hold);
+        assertTrue(book(hotel, room, "Bob", 6, 31));
+        Waitlist waitlist = hotel.getWaitlist();
+        WaitlistEntry early = waitlist.add("Early", room.getRoomType(), 2, 4, 5, false);
+        WaitlistEntry late = waitlist.add("Late", room.getRoomType(), 5, 6, 0, false);
+        assertEquals(2, waitlist.getWaitingCount());
+
+        hotel.archiveCheckedOut(5);
+        assertEquals(WaitlistEntry.EXPIRED, early.getState());
+        assertEquals(1, waitlist.getWaitingCount());
+        assertNull(waitlist.add("Past", room.getRoomType(), 3, 6, 0, false));
+
+        CountDownLatch matched = new CountDownLatch(1);
+        waitlist.setMatchListener(entry -> matched.countDown());
+        assertTrue(room.releaseHold(hold));
+        assertTrue(matched.await(5, TimeUnit.SECONDS));
+        assertEquals(WaitlistEntry.BOOKED, late.getState());
+        assertEquals(0, waitlist.getWaitingCount());
+    }
+
+    @Test
+    public void snapshotsNeverSeeAStayTwiceOrMissing() throws Exception {
+        Hotel hotel = createHotel(8);
+        for (Room room : hotel.getRooms()) {
+            for (int checkIn = 1; checkIn < 30; checkIn += 2) {
+                assertTrue(book(hotel, room, room.getName() + "-" + checkIn, checkIn, checkIn + 2));
+            }
+        }
+        double earnings = hotel.getEstimatedEarnings();
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Double> wrong = new ArrayList<Double>();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                double seen = hotel.getEstimatedEarnings();
+                if (Math.abs(seen - earnings) > 1e-6) {
+                    synchronized (wrong) {
+                        wrong.add(seen);
+                    }
+                }
+            }
+        });
+        reader.start();
+        for (int today = 2; today <= Hotel.DAYS_IN_MONTH + 1; today++) {
+            hotel.archiveCheckedOut(today);
+        }
+        running.set(false);
+        reader.join();
+        assertTrue("Snapshots saw " + wrong, wrong.isEmpty());
+        assertEquals(8 * 15, hotel.getArchive().size());
+    }
+
+    private static Hotel createHotel(int rooms) {
+        Hotel hotel = new Hotel("Hotel", 100);
+        hotel.setMaxRooms(rooms);
+        for (int r = 0; r < rooms; r++) {
+            hotel.addRoom(new Room("R" + r, 100));
+        }
+        return hotel;
+    }
+
+    private static boolean book(Hotel hotel, Room room, String guestName, int checkIn, int checkOut) {
+        return room.addReservation(new Reservation(guestName, checkIn, checkOut, room.getName(), hotel, room));
+    }
+}
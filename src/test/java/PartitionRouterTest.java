@@ -0,0 +1,83 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests a {@link PartitionRouter} over partition processes, and the error
+ * replies of a {@link PartitionServer}.
+ *
+ * @author James Foo
+ * @author Zami Diamante
+ * @version 1.0
+ */
+public class PartitionRouterTest {
+    @Test
+    public void routesCallsToLaunchedPartitions() throws Exception {
+        try (PartitionRouter router = PartitionRouter.launch(2)) {
+            assertEquals(2, router.getPartitionCount());
+            for (int h = 0; h < 6; h++) {
+                String hotel = "Hotel " + h;
+                assertTrue(router.createHotel(hotel, 100, 3));
+                assertTrue(router.addRoom(hotel, "R1", "Standard"));
+                assertTrue(router.addRoom(hotel, "R2", "Deluxe"));
+            }
+            assertFalse(router.createHotel("Hotel 0", 100, 3));
+            assertEquals(Arrays.asList("Hotel 0", "Hotel 1", "Hotel 2", "Hotel 3", "Hotel 4", "Hotel 5"),
+                    router.listHotels());
+
+            RoomOffer offer = router.book("Hotel 3", null, "Standard", "Ann", 2, 5);
+            assertNotNull(offer);
+            assertEquals("R1", offer.getRoomName());
+            assertNull(router.book("Hotel 3", "R1", null, "Bob", 4, 6));
+            assertArrayEquals(new int[] { 1, 1 }, router.getAvailability("Hotel 3", 3));
+            assertEquals(offer.getTotalPrice(), router.getEstimatedEarnings("Hotel 3"), 1e-9);
+            assertTrue(router.cancel("Hotel 3", "R1", "Ann"));
+            assertArrayEquals(new int[] { 2, 0 }, router.getAvailability("Hotel 3", 3));
+
+            List<RoomOffer> offers = router.search(1, 3, Double.MAX_VALUE, null, 4);
+            assertEquals(4, offers.size());
+            for (int i = 1; i < offers.size(); i++) {
+                assertTrue(offers.get(i - 1).getTotalPrice() <= offers.get(i).getTotalPrice());
+            }
+            assertTrue(router.search(1, 3, Double.MAX_VALUE, null, 0).isEmpty());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void searchRejectsNegativeLimit() {
+        try (PartitionRouter router = new PartitionRouter(new int[] { 1 })) {
+            router.search(1, 3, 1000, null, -1);
+        }
+    }
+
+    @Test
+    public void serverClosesConnectionAfterError() throws Exception {
+        PartitionServer server = new PartitionServer(0);
+        server.start();
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out.writeByte(99); // Unknown opcode, followed by arguments the server cannot read
+            out.writeUTF("left unread");
+            out.flush();
+            assertEquals(PartitionProtocol.ERROR, in.readByte());
+            in.readUTF();
+            assertEquals(-1, in.read()); // Nothing else is sent, the connection is closed
+        } finally {
+            server.close();
+        }
+    }
+}